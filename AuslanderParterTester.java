@@ -0,0 +1,57 @@
+/**
+ * Testador que usa o método recursivo de Auslander-Parter implementado
+ * em TestPlanarity.
+ */
+public class AuslanderParterTester implements PlanarityTester {
+
+    private final PlanarityStats stats;
+
+    private final TestPlanarity testPlanarity;
+
+    private final CycleStrategy strategy;
+
+    private final long seed;
+
+    public AuslanderParterTester() {
+        this( null );
+    }
+
+    /**
+     * @param stats     Onde registrar as fases do teste, ou null.
+     */
+    public AuslanderParterTester( PlanarityStats stats ) {
+        this( stats, CycleStrategy.PADRAO, 0 );
+    }
+
+    /**
+     * @param stats     Onde registrar as fases do teste, ou null.
+     * @param strategy  Como escolher o ciclo inicial.
+     * @param seed      Semente da escolha do ciclo.
+     */
+    public AuslanderParterTester( PlanarityStats stats, CycleStrategy strategy, long seed ) {
+        this.stats = stats;
+        this.testPlanarity = new TestPlanarity( stats );
+        this.strategy = strategy;
+        this.seed = seed;
+    }
+
+    /**
+     * Encontra um ciclo no grafo e testa a planaridade a partir dele.
+     * Um grafo sem ciclos é sempre planar.
+     */
+    public <T> boolean isPlanar( Grafo<T> grafo ) {
+        return isPlanar( grafo, null );
+    }
+
+    /** Como isPlanar( grafo ), conferindo o orçamento na busca do ciclo e na recursão. */
+    @Override
+    public <T> boolean isPlanar( Grafo<T> grafo, PlanarityBudget budget ) {
+        if ( grafo.numVertices() == 0 ) return true;
+        PlanarityStats.Span span = PlanarityStats.begin( stats, PlanarityStats.Phase.CICLO, -1 );
+        Grafo<T> cycle = (new GraphTraverser<T>( grafo, budget )).findCycle( strategy, seed );
+        if ( span != null ) span.end( grafo.numVertices(), grafo.numEdges() );
+        if ( cycle == null ) return true;
+        return testPlanarity.testPlanarity( grafo, cycle, budget );
+    }
+
+}
@@ -0,0 +1,252 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Modo em lote: testa a planaridade de muitos arquivos numa única execução
+ * da JVM.
+ *
+ * A leitura dos arquivos roda num pool de threads de E/S e os testes num
+ * pool com uma thread por processador. O número de grafos lidos e ainda
+ * não testados é limitado, para que a memória não cresça com o tamanho do
+ * lote. Cada resultado é impresso assim que termina, numa linha separada
+ * por tabulações:
+ *
+ *     nome  Planar!|Nao planar!  n  m  tempo(ms)  decisor
+ *
+ * O decisor é o filtro de PlanarityPrefilter que respondeu sem o teste
+ * completo (trivial, densidade, bipartido ou tabela), "cache" ou "teste".
+ * Se houver um cache de resultados, grafos já vistos (mesmo renumerados)
+ * não são testados de novo; os decididos por um filtro não entram nele.
+ *
+ * Arquivos que não podem ser lidos geram uma linha "nome ERRO mensagem" e
+ * não interrompem o lote.
+ *
+ * runStream testa os grafos de um único arquivo com muitos grafos (graph6,
+ * sparse6 ou blocos de arestas, lidos por GraphStream). A leitura roda numa
+ * só thread, à frente dos testes, e o nome de cada grafo na saída é o nome
+ * do arquivo seguido de '#' e da posição do grafo, a partir de 1.
+ */
+public class BatchRunner {
+
+    private final PlanarityTester tester;
+
+    private final PrintStream out;
+
+    private final int ioThreads;
+
+    private final int cpuThreads;
+
+    private final ResultCache cache;
+
+    /**
+     * @param tester    O testador usado em cada grafo.
+     * @param out       Onde as linhas de resultado são escritas.
+     */
+    public BatchRunner( PlanarityTester tester, PrintStream out ) {
+        this( tester, out, 4, Runtime.getRuntime().availableProcessors(), null );
+    }
+
+    /**
+     * @param cache     Cache de resultados consultado antes de cada teste, ou null.
+     */
+    public BatchRunner( PlanarityTester tester, PrintStream out, int ioThreads, int cpuThreads, ResultCache cache ) {
+        this.tester = tester;
+        this.out = out;
+        this.ioThreads = ioThreads;
+        this.cpuThreads = cpuThreads;
+        this.cache = cache;
+    }
+
+    /**
+     * Lista os arquivos de entrada. Se o caminho for uma pasta, usa todos os
+     * arquivos dela em ordem alfabética; senão, lê o arquivo como uma lista
+     * com um caminho por linha.
+     */
+    public static List<Path> listInputs( String caminho ) throws IOException {
+        Path path = Paths.get( caminho );
+        List<Path> arquivos = new ArrayList<Path>();
+        if ( Files.isDirectory( path ) ) {
+            try ( Stream<Path> files = Files.list( path ) ) {
+                files.filter( Files::isRegularFile ).sorted().forEach( arquivos::add );
+            }
+        } else {
+            for ( String linha : Files.readAllLines( path, StandardCharsets.UTF_8 ) ) {
+                linha = linha.trim();
+                if ( !linha.isEmpty() ) arquivos.add( Paths.get( linha ) );
+            }
+        }
+        return arquivos;
+    }
+
+    /**
+     * Testa todos os arquivos e espera o fim do lote.
+     *
+     * @return      O número de arquivos que não puderam ser testados.
+     */
+    public int run( List<Path> arquivos ) throws InterruptedException {
+        ExecutorService io = Executors.newFixedThreadPool( ioThreads, daemon( "batch-io" ) );
+        ExecutorService cpu = Executors.newFixedThreadPool( cpuThreads, daemon( "batch-cpu" ) );
+        Semaphore emAndamento = new Semaphore( 4 * cpuThreads );
+        CountDownLatch fim = new CountDownLatch( arquivos.size() );
+        AtomicInteger erros = new AtomicInteger();
+        try {
+            for ( Path arquivo : arquivos ) {
+                emAndamento.acquire();
+                io.execute( () -> {
+                    long inicio = System.nanoTime();
+                    // Até o teste ser entregue ao pool de CPU, a vaga e a contagem
+                    // são desta tarefa; um Error (como o OutOfMemoryError de
+                    // VertexInterner para rótulos demais) não pode deixá-las presas.
+                    boolean entregue = false;
+                    try {
+                        EdgeList edges = EdgeListLoader.loadLabeled( arquivo.toString() );
+                        cpu.execute( () -> {
+                            try {
+                                test( arquivo.toString(), edges, inicio );
+                            } catch ( RuntimeException | Error e ) {
+                                report( arquivo.toString(), e );
+                                erros.incrementAndGet();
+                            } finally {
+                                emAndamento.release();
+                                fim.countDown();
+                            }
+                        } );
+                        entregue = true;
+                    } catch ( IOException | RuntimeException | Error e ) {
+                        report( arquivo.toString(), e );
+                        erros.incrementAndGet();
+                    } finally {
+                        if ( !entregue ) {
+                            emAndamento.release();
+                            fim.countDown();
+                        }
+                    }
+                } );
+            }
+            fim.await();
+        } finally {
+            io.shutdownNow();
+            cpu.shutdownNow();
+        }
+        return erros.get();
+    }
+
+    /**
+     * Testa todos os grafos de um arquivo com muitos grafos e espera o fim.
+     * A thread que chama lê os grafos, um de cada vez, e os entrega ao pool
+     * de testes; no máximo 4 grafos por thread de teste ficam na memória.
+     *
+     * @return      O número de grafos que não puderam ser testados.
+     * @throws IOException se o arquivo não puder ser lido.
+     */
+    public int runStream( Path arquivo ) throws IOException, InterruptedException {
+        ExecutorService cpu = Executors.newFixedThreadPool( cpuThreads, daemon( "batch-cpu" ) );
+        int limite = 4 * cpuThreads;
+        Semaphore emAndamento = new Semaphore( limite );
+        AtomicInteger erros = new AtomicInteger();
+        try ( GraphStream grafos = new GraphStream( arquivo ) ) {
+            while ( true ) {
+                emAndamento.acquire();
+                long inicio = System.nanoTime();
+                EdgeList edges;
+                try {
+                    edges = grafos.next();
+                } catch ( GraphFormatException e ) {
+                    report( arquivo + "#" + grafos.count(), e );
+                    erros.incrementAndGet();
+                    emAndamento.release();
+                    continue;
+                }
+                if ( edges == null ) {
+                    emAndamento.release();
+                    break;
+                }
+                String nome = arquivo + "#" + grafos.count();
+                cpu.execute( () -> {
+                    try {
+                        test( nome, edges, inicio );
+                    } catch ( RuntimeException | Error e ) {
+                        report( nome, e );
+                        erros.incrementAndGet();
+                    } finally {
+                        emAndamento.release();
+                    }
+                } );
+            }
+            emAndamento.acquire( limite );
+        } finally {
+            cpu.shutdownNow();
+        }
+        return erros.get();
+    }
+
+    private void test( String nome, EdgeList edges, long inicio ) {
+        int n, m;
+        boolean planar;
+        GraphFingerprint chave = null;
+        ResultCache.Result cached = null;
+        PlanarityPrefilter.Decisao decisao = null;
+        if ( tester instanceof LRPlanarityTester ) {
+            GrafoCSR grafo = edges.toCSR();
+            n = grafo.numVertices();
+            m = grafo.numEdges();
+            decisao = PlanarityPrefilter.decide( grafo );
+            if ( decisao == null && cache != null ) cached = cache.get( chave = GraphFingerprint.of( grafo ) );
+            planar = decisao != null ? decisao.isPlanar()
+                   : cached != null  ? cached.isPlanar()
+                                     : ( (LRPlanarityTester) tester ).isPlanar( grafo );
+        } else {
+            // O grafo pode ter laços, então os filtros olham o núcleo.
+            Grafo<Integer> grafo = edges.toGrafo();
+            n = grafo.numVertices();
+            m = grafo.numEdges();
+            if ( cache != null ) cached = cache.get( chave = GraphFingerprint.of( grafo ) );
+            if ( cached != null ) {
+                planar = cached.isPlanar();
+            } else {
+                Grafo<Integer> kernel = GraphReducer.reduce( grafo ).kernel();
+                decisao = PlanarityPrefilter.decide( kernel );
+                planar = decisao != null ? decisao.isPlanar() : new BlockPlanarityTester( tester ).isPlanar( kernel );
+            }
+        }
+        if ( cache != null && cached == null && decisao == null ) cache.put( chave, planar, null );
+        String decisor = decisao != null ? decisao.filtro().nome() : cached != null ? "cache" : "teste";
+        double ms = ( System.nanoTime() - inicio ) / 1e6;
+        synchronized ( out ) {
+            out.printf( Locale.ROOT, "%s\t%s\t%d\t%d\t%.3f\t%s%n", nome, planar ? "Planar!" : "Nao planar!", n, m, ms, decisor );
+            out.flush();
+        }
+    }
+
+    private void report( String nome, Throwable e ) {
+        synchronized ( out ) {
+            String mensagem = e instanceof GraphFormatException ? e.getMessage() : e.toString();
+            out.printf( "%s\tERRO\t%s%n", nome, mensagem );
+            out.flush();
+        }
+    }
+
+    private static ThreadFactory daemon( String nome ) {
+        AtomicInteger contador = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread( r, nome + "-" + contador.incrementAndGet() );
+            t.setDaemon( true );
+            return t;
+        };
+    }
+
+}
@@ -0,0 +1,102 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decomposição de um grafo em componentes biconexos (blocos).
+ *
+ * Um grafo é planar se e somente se todos os seus blocos são planares,
+ * então cada bloco pode ser testado separadamente. A decomposição usa o
+ * algoritmo de Tarjan com pilha explícita, em tempo O(n+m).
+ */
+public class BiconnectedComponents {
+
+    /**
+     * Divide o grafo em blocos. Cada aresta pertence a exatamente um bloco;
+     * pontes formam blocos de uma única aresta e vértices isolados não
+     * aparecem em nenhum bloco.
+     *
+     * @param grafo     O grafo a ser dividido.
+     * @return          A lista de blocos, cada um como um novo grafo.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<Grafo<T>> split( Grafo<T> grafo ) {
+        // Numera os vértices e monta a adjacência em vetores.
+        int n = grafo.numVertices();
+        Object[] label = new Object[n];
+        Map<T, Integer> indice = new HashMap<T, Integer>();
+        for ( T v : grafo.getVertices() ) {
+            label[indice.size()] = v;
+            indice.put( v, indice.size() );
+        }
+        int[] start = new int[n + 1];
+        for ( int v = 0; v < n; v++ ) start[v + 1] = start[v] + grafo.getDegree( (T) label[v] );
+        int[] adj = new int[start[n]];
+        for ( int v = 0; v < n; v++ ) {
+            int k = start[v];
+            for ( T u : grafo.getNeighbors( (T) label[v] ) ) adj[k++] = indice.get( u );
+        }
+
+        List<Grafo<T>> blocks = new ArrayList<Grafo<T>>();
+        int[] disc = new int[n];
+        int[] low = new int[n];
+        int[] parent = new int[n];
+        int[] next = new int[n];
+        int[] stack = new int[n];
+        int[] edgeU = new int[start[n] / 2 + 1];
+        int[] edgeV = new int[start[n] / 2 + 1];
+        int edgeTop = 0;
+        int time = 0;
+        Arrays.fill( disc, -1 );
+
+        for ( int s = 0; s < n; s++ ) {
+            if ( disc[s] != -1 ) continue;
+            int sp = 0;
+            stack[sp++] = s;
+            disc[s] = low[s] = time++;
+            parent[s] = -1;
+            next[s] = start[s];
+            while ( sp > 0 ) {
+                int v = stack[sp - 1];
+                if ( next[v] < start[v + 1] ) {
+                    int w = adj[next[v]++];
+                    if ( disc[w] == -1 ) {
+                        // Aresta de árvore.
+                        parent[w] = v;
+                        disc[w] = low[w] = time++;
+                        next[w] = start[w];
+                        edgeU[edgeTop] = v;
+                        edgeV[edgeTop++] = w;
+                        stack[sp++] = w;
+                    } else if ( w != parent[v] && disc[w] < disc[v] ) {
+                        // Aresta de retorno para um ancestral.
+                        edgeU[edgeTop] = v;
+                        edgeV[edgeTop++] = w;
+                        low[v] = Math.min( low[v], disc[w] );
+                    }
+                } else {
+                    sp--;
+                    int p = parent[v];
+                    if ( p == -1 ) continue;
+                    low[p] = Math.min( low[p], low[v] );
+                    if ( low[v] >= disc[p] ) {
+                        // p separa a subárvore de v: as arestas empilhadas desde (p, v) formam um bloco.
+                        Grafo<T> block = new Grafo<T>();
+                        int u, w;
+                        do {
+                            edgeTop--;
+                            u = edgeU[edgeTop];
+                            w = edgeV[edgeTop];
+                            block.addEdge( (T) label[u], (T) label[w] );
+                        } while ( u != p || w != v );
+                        blocks.add( block );
+                    }
+                }
+            }
+        }
+        return blocks;
+    }
+
+}
@@ -0,0 +1,122 @@
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Testador que divide o grafo em blocos biconexos e testa cada bloco
+ * separadamente com outro testador, em paralelo num ForkJoinPool.
+ *
+ * Isso permite usar o método de Auslander-Parter, que exige um grafo
+ * biconexo, em grafos desconexos, com vértices de corte ou sem ciclos.
+ * Assim que um bloco não planar é encontrado, os blocos ainda não
+ * testados são descartados. Cada bloco passa antes pelos filtros de
+ * PlanarityPrefilter; blocos são conexos, então um bloco com m <= n + 2 ou
+ * até 8 vértices não chega ao testador.
+ */
+public class BlockPlanarityTester implements PlanarityTester {
+
+    /** Abaixo deste número de arestas um intervalo de blocos é testado sem dividir a tarefa. */
+    private static final int SEQUENTIAL_THRESHOLD = 1024;
+
+    private final PlanarityTester tester;
+
+    private final ForkJoinPool pool;
+
+    private final PlanarityStats stats;
+
+    /**
+     * Cria o testador usando o pool comum.
+     *
+     * @param tester    O testador aplicado a cada bloco.
+     */
+    public BlockPlanarityTester( PlanarityTester tester ) {
+        this( tester, ForkJoinPool.commonPool() );
+    }
+
+    public BlockPlanarityTester( PlanarityTester tester, ForkJoinPool pool ) {
+        this( tester, pool, null );
+    }
+
+    /**
+     * @param stats     Onde registrar o tempo da divisão em blocos, ou null.
+     */
+    public BlockPlanarityTester( PlanarityTester tester, ForkJoinPool pool, PlanarityStats stats ) {
+        this.tester = tester;
+        this.pool = pool;
+        this.stats = stats;
+    }
+
+    public <T> boolean isPlanar( Grafo<T> grafo ) {
+        return isPlanar( grafo, null );
+    }
+
+    /**
+     * Como isPlanar( grafo ), passando o orçamento ao teste de cada bloco.
+     * Quando ele estoura num bloco, os demais param na próxima conferência.
+     */
+    @Override
+    public <T> boolean isPlanar( Grafo<T> grafo, PlanarityBudget budget ) {
+        if ( budget != null ) budget.charge( grafo.numEdges() );
+        PlanarityStats.Span span = PlanarityStats.begin( stats, PlanarityStats.Phase.BLOCOS, -1 );
+        List<Grafo<T>> blocks = BiconnectedComponents.split( grafo );
+        if ( span != null ) span.end( grafo.numVertices(), grafo.numEdges() );
+
+        // Soma acumulada das arestas, para dividir o trabalho por tamanho.
+        long[] edges = new long[blocks.size() + 1];
+        for ( int i = 0; i < blocks.size(); i++ ) {
+            edges[i + 1] = edges[i] + blocks.get( i ).numEdges();
+        }
+        BlockTask<T> task = new BlockTask<T>( blocks, edges, 0, blocks.size(), new AtomicBoolean( false ), budget );
+        return PlanarityBudget.invoke( pool, task, budget );
+    }
+
+    /** Tarefa que testa os blocos no intervalo [from, to). */
+    private final class BlockTask<T> extends RecursiveTask<Boolean> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Grafo<T>> blocks;
+        private final long[] edges;
+        private final int from;
+        private final int to;
+
+        /* Marcado quando algum bloco não é planar; as demais tarefas param ao vê-lo. */
+        private final AtomicBoolean naoPlanar;
+
+        private final PlanarityBudget budget;
+
+        BlockTask( List<Grafo<T>> blocks, long[] edges, int from, int to, AtomicBoolean naoPlanar,
+                   PlanarityBudget budget ) {
+            this.blocks = blocks;
+            this.edges = edges;
+            this.from = from;
+            this.to = to;
+            this.naoPlanar = naoPlanar;
+            this.budget = budget;
+        }
+
+        @Override
+        protected Boolean compute() {
+            if ( to - from > 1 && edges[to] - edges[from] > SEQUENTIAL_THRESHOLD ) {
+                int mid = ( from + to ) >>> 1;
+                BlockTask<T> left = new BlockTask<T>( blocks, edges, from, mid, naoPlanar, budget );
+                left.fork();
+                boolean right = new BlockTask<T>( blocks, edges, mid, to, naoPlanar, budget ).compute();
+                return left.join() && right;
+            }
+            for ( int i = from; i < to; i++ ) {
+                if ( naoPlanar.get() ) return false;
+                Grafo<T> block = blocks.get( i );
+                if ( block.numEdges() <= 1 ) continue;     // uma ponte é sempre planar
+                PlanarityPrefilter.Decisao decisao = PlanarityPrefilter.decide( block );
+                if ( decisao != null ? !decisao.isPlanar() : !tester.isPlanar( block, budget ) ) {
+                    naoPlanar.set( true );
+                    return false;
+                }
+            }
+            return !naoPlanar.get();
+        }
+    }
+
+}
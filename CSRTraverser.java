@@ -0,0 +1,162 @@
+import java.util.Arrays;
+
+/**
+ * Percursos sobre um grafo em formato CSR (GrafoCSR ou MappedCSR) usando
+ * apenas vetores de int.
+ *
+ * Equivalente ao GraphTraverser para grafos de inteiros: marcações de
+ * visita e cores ficam em vetores indexados pelo vértice, e as buscas
+ * usam pilha explícita em vez de recursão.
+ */
+public class CSRTraverser {
+
+    private final IntGraph grafo;
+
+    /**
+     * Construtor para a classe CSRTraverser.
+     */
+    public CSRTraverser( IntGraph grafo ) {
+        this.grafo = grafo;
+    }
+
+    /**
+     * Função que testa se o grafo é bipartido, colorindo cada componente
+     * com duas cores por busca em largura.
+     */
+    public boolean eBipartido() {
+        int bound = grafo.vertexBound();
+        byte[] color = new byte[bound];        // 0 = sem cor, 1 e 2 = as duas cores
+        int[] queue = new int[bound];
+        for ( int s = 0; s < bound; s++ ) {
+            if ( color[s] != 0 || !grafo.hasVertex( s ) ) continue;
+            int head = 0, tail = 0;
+            color[s] = 1;
+            queue[tail++] = s;
+            while ( head < tail ) {
+                int v = queue[head++];
+                for ( int i = grafo.neighborStart( v ); i < grafo.neighborEnd( v ); i++ ) {
+                    int n = grafo.neighborAt( i );
+                    if ( color[n] == 0 ) {
+                        color[n] = (byte) ( 3 - color[v] );
+                        queue[tail++] = n;
+                    } else if ( color[n] == color[v] ) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Conta os componentes conexos do grafo. Rótulos sem arestas não são
+     * vértices, então todo componente tem pelo menos uma aresta.
+     */
+    public int numComponents() {
+        int bound = grafo.vertexBound();
+        boolean[] searched = new boolean[bound];
+        int[] stack = new int[bound];
+        int count = 0;
+        for ( int s = 0; s < bound; s++ ) {
+            if ( searched[s] || !grafo.hasVertex( s ) ) continue;
+            count++;
+            int sp = 0;
+            searched[s] = true;
+            stack[sp++] = s;
+            while ( sp > 0 ) {
+                int v = stack[--sp];
+                for ( int i = grafo.neighborStart( v ); i < grafo.neighborEnd( v ); i++ ) {
+                    int n = grafo.neighborAt( i );
+                    if ( !searched[n] ) {
+                        searched[n] = true;
+                        stack[sp++] = n;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Encontra um ciclo no grafo por busca em profundidade.
+     *
+     * @return      Os vértices do ciclo na ordem em que aparecem, ou null se o grafo não tiver ciclos.
+     */
+    public int[] findCycle() {
+        int bound = grafo.vertexBound();
+        int[] parent = new int[bound];
+        int[] depth = new int[bound];
+        int[] next = new int[bound];           // próxima posição de vizinho a examinar
+        int[] stack = new int[bound];
+        Arrays.fill( depth, -1 );
+        for ( int s = 0; s < bound; s++ ) {
+            if ( depth[s] != -1 || !grafo.hasVertex( s ) ) continue;
+            int sp = 0;
+            stack[sp++] = s;
+            depth[s] = 0;
+            parent[s] = -1;
+            next[s] = grafo.neighborStart( s );
+            while ( sp > 0 ) {
+                int v = stack[sp - 1];
+                if ( next[v] == grafo.neighborEnd( v ) ) {
+                    sp--;
+                    continue;
+                }
+                int n = grafo.neighborAt( next[v]++ );
+                if ( depth[n] == -1 ) {
+                    depth[n] = depth[v] + 1;
+                    parent[n] = v;
+                    next[n] = grafo.neighborStart( n );
+                    stack[sp++] = n;
+                } else if ( n != parent[v] && depth[n] < depth[v] ) {
+                    // Aresta de retorno: o ciclo é o caminho na árvore de n até v mais a aresta (v, n).
+                    int[] cycle = new int[depth[v] - depth[n] + 1];
+                    int k = 0;
+                    for ( int u = v; u != n; u = parent[u] ) cycle[k++] = u;
+                    cycle[k] = n;
+                    return cycle;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Encontra um caminho entre dois vértices do grafo que não passa por
+     * nenhum vértice proibido (exceto o destino).
+     *
+     * @param start     O vértice inicial.
+     * @param end       O vértice final.
+     * @param banned    banned[v] é true se o caminho não pode passar por v.
+     * @return          Os vértices do caminho de start até end, ou null se não existir.
+     */
+    public int[] findPath( int start, int end, boolean[] banned ) {
+        int bound = grafo.vertexBound();
+        boolean[] searched = new boolean[bound];
+        int[] next = new int[bound];
+        int[] stack = new int[bound];
+        int sp = 0;
+        stack[sp++] = start;
+        searched[start] = true;
+        next[start] = grafo.neighborStart( start );
+        while ( sp > 0 ) {
+            int v = stack[sp - 1];
+            if ( next[v] == grafo.neighborEnd( v ) ) {
+                sp--;
+                continue;
+            }
+            int n = grafo.neighborAt( next[v]++ );
+            if ( n == end ) {
+                int[] path = Arrays.copyOf( stack, sp + 1 );
+                path[sp] = end;
+                return path;
+            } else if ( !searched[n] && !banned[n] ) {
+                searched[n] = true;
+                next[n] = grafo.neighborStart( n );
+                stack[sp++] = n;
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,113 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A posição de cada vértice ao longo de um ciclo, usada para ordenar os
+ * vértices de contato dos pedaços.
+ *
+ * No ciclo de um subproblema, o trecho do ciclo anterior entre os contatos
+ * start e end é trocado por um caminho através do pedaço. As posições do
+ * novo ciclo são então derivadas das do anterior, sem percorrê-lo: start
+ * fica na posição 0, os vértices internos do caminho em 1..k-1, end em k,
+ * e cada vértice que continua no ciclo fica em k mais a sua distância até
+ * end no ciclo anterior, seguindo no sentido oposto ao trecho removido.
+ * Montar a ordem custa O(k); uma consulta segue a cadeia de ordens
+ * anteriores até uma tabela. Quando a cadeia passa de MAX_DEPTH, a ordem
+ * é tabelada percorrendo o ciclo, como GraphView faz com as visões.
+ */
+final class CycleOrder<T> {
+
+    /** Cadeias mais longas do que isso são substituídas por uma tabela. */
+    private static final int MAX_DEPTH = 8;
+
+    /* A posição de cada vértice, quando tabelada; senão null */
+    private final Map<T, Integer> table;
+
+    /* A ordem do ciclo anterior e os dados da troca, quando não tabelada */
+    private final CycleOrder<T> parent;
+    private final Map<T, Integer> path;      // vértices internos do caminho, com sua posição
+    private final int pathLength;            // arestas do caminho
+    private final int arcLength;             // arestas do trecho removido
+    private final int endPosition;           // posição de end no ciclo anterior
+    private final int direction;             // +1 ou -1: sentido do trecho removido, de start para end
+
+    private final int length;
+
+    private final int depth;
+
+    private CycleOrder( Map<T, Integer> table, CycleOrder<T> parent, Map<T, Integer> path, int pathLength,
+                        int arcLength, int endPosition, int direction, int length, int depth ) {
+        this.table = table;
+        this.parent = parent;
+        this.path = path;
+        this.pathLength = pathLength;
+        this.arcLength = arcLength;
+        this.endPosition = endPosition;
+        this.direction = direction;
+        this.length = length;
+        this.depth = depth;
+    }
+
+    /** Numera os vértices do ciclo na ordem em que aparecem, percorrendo-o uma vez. */
+    static <T> CycleOrder<T> of( GraphView<T> cycle ) {
+        Map<T, Integer> table = new HashMap<T, Integer>();
+        GraphTraverser<T> traverser = new GraphTraverser<T>( cycle );
+        int n = cycle.numVertices();
+        for ( int k = 0; k < n; k++ ) {
+            table.put( traverser.walkCycle(), k );
+        }
+        return new CycleOrder<T>( table, null, null, 0, 0, 0, 0, n, 0 );
+    }
+
+    /**
+     * A ordem do ciclo obtido trocando o trecho arc (de start a end, com
+     * arcLength arestas) por piecePath.
+     *
+     * @param newCycle  O novo ciclo, usado só se a ordem precisar ser tabelada.
+     * @param second    O vizinho de start no trecho removido.
+     */
+    CycleOrder<T> splice( T start, T second, T end, int arcLength, Grafo<T> piecePath, GraphView<T> newCycle ) {
+        if ( depth + 1 > MAX_DEPTH ) return of( newCycle );
+        int ps = position( start );
+        int direction = Math.floorMod( position( second ) - ps, length ) == 1 ? 1 : -1;
+
+        // Number the interior vertices of the path, walking it from start to end.
+        Map<T, Integer> path = new HashMap<T, Integer>();
+        T prev = start;
+        T curr = piecePath.getNeighbors( start ).iterator().next();
+        int k = 1;
+        while ( !curr.equals( end ) ) {
+            path.put( curr, k++ );
+            for ( T v : piecePath.getNeighbors( curr ) ) {
+                if ( !v.equals( prev ) ) {
+                    prev = curr;
+                    curr = v;
+                    break;
+                }
+            }
+        }
+        int newLength = k + length - arcLength;
+        return new CycleOrder<T>( null, this, path, k, arcLength, position( end ), direction, newLength, depth + 1 );
+    }
+
+    /** O número de vértices do ciclo. */
+    int length() {
+        return length;
+    }
+
+    /** A posição de v no ciclo, ou -1 se v não estiver no ciclo. */
+    int position( T v ) {
+        if ( table != null ) {
+            Integer k = table.get( v );
+            return k != null ? k : -1;
+        }
+        Integer k = path.get( v );
+        if ( k != null ) return k;
+        int p = parent.position( v );
+        if ( p < 0 ) return -1;
+        int offset = Math.floorMod( direction * ( p - endPosition ), parent.length );
+        if ( offset > parent.length - arcLength ) return -1;        // no interior do trecho removido
+        return ( pathLength + offset ) % length;
+    }
+
+}
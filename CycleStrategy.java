@@ -0,0 +1,52 @@
+import java.util.Locale;
+
+/**
+ * Como escolher o ciclo inicial do método de Auslander-Parter.
+ *
+ * O ciclo define os pedaços do primeiro nível: um ciclo curto (um
+ * triângulo, por exemplo) deixa quase todo o grafo num único pedaço
+ * grande, que gera um nível a mais para cada trecho do grafo que ele
+ * contém. Ciclos longos dividem o grafo em mais pedaços, menores, e
+ * reduzem a profundidade.
+ *
+ *  - PRIMEIRO: o primeiro ciclo achado por uma busca em profundidade, como
+ *    em GraphTraverser.findCycle.
+ *  - LONGO:    o maior ciclo fundamental de uma árvore de busca em
+ *    profundidade (uma aresta de retorno mais o caminho da árvore entre as
+ *    suas pontas).
+ *  - GRAU:     o ciclo fundamental de maior soma de graus, numa busca que
+ *    começa no vértice de maior grau e visita primeiro os vizinhos de
+ *    maior grau. Os vértices de grau alto ficam no ciclo, e não dentro
+ *    dos pedaços.
+ *
+ * A semente escolhe o vértice onde a busca começa (exceto em GRAU), então
+ * o mesmo grafo e a mesma semente dão sempre o mesmo ciclo.
+ */
+public enum CycleStrategy {
+    PRIMEIRO, LONGO, GRAU;
+
+    /**
+     * A estratégia usada quando nenhuma é pedida. Em triangulações e grades
+     * GRAU gera menos pares de pedaços e é a mais rápida (veja
+     * CycleStrategyBenchmark no módulo bench/).
+     */
+    public static final CycleStrategy PADRAO = GRAU;
+
+    /**
+     * Retorna a estratégia com o nome dado, sem diferenciar maiúsculas.
+     *
+     * @return      A estratégia, ou null se o nome não for conhecido.
+     */
+    public static CycleStrategy forName( String nome ) {
+        for ( CycleStrategy s : values() ) {
+            if ( s.name().equalsIgnoreCase( nome ) ) return s;
+        }
+        return null;
+    }
+
+    /** O nome usado na linha de comando. */
+    public String nome() {
+        return name().toLowerCase( Locale.ROOT );
+    }
+
+}
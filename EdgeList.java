@@ -0,0 +1,93 @@
+import java.nio.IntBuffer;
+
+/**
+ * Lista de arestas lida de um arquivo de entrada.
+ *
+ * As arestas ficam intercaladas num único IntBuffer (origem, destino,
+ * origem, destino, ...). Para arquivos texto o buffer envolve um vetor
+ * comum; para o formato binário ele é uma visão direta do arquivo mapeado
+ * em memória, sem cópia.
+ *
+ * Quando lida por EdgeListLoader.loadLabeled, os vértices são os ids densos
+ * (0 a n-1) dados por um VertexInterner, que guarda os rótulos originais
+ * para a saída.
+ */
+public class EdgeList {
+
+    private final IntBuffer pairs;
+    private final int size;
+
+    /* Rótulos dos vértices, ou null se os vértices são os próprios números do arquivo */
+    private final VertexInterner labels;
+
+    /**
+     * Constrói a lista sobre um buffer de pares.
+     *
+     * @param pairs     Os vértices das arestas, intercalados.
+     * @param size      O número de arestas (metade dos inteiros usados do buffer).
+     */
+    public EdgeList( IntBuffer pairs, int size ) {
+        this( pairs, size, null );
+    }
+
+    /**
+     * Constrói a lista sobre um buffer de pares de ids densos.
+     *
+     * @param labels    Os rótulos de cada id, ou null.
+     */
+    public EdgeList( IntBuffer pairs, int size, VertexInterner labels ) {
+        this.pairs = pairs;
+        this.size = size;
+        this.labels = labels;
+    }
+
+    /** Constrói uma lista de arestas a partir de dois vetores paralelos. */
+    public static EdgeList of( int[] origem, int[] destino, int m ) {
+        int[] pairs = new int[2 * m];
+        for ( int e = 0; e < m; e++ ) {
+            pairs[2 * e] = origem[e];
+            pairs[2 * e + 1] = destino[e];
+        }
+        return new EdgeList( IntBuffer.wrap( pairs ), m );
+    }
+
+    /** Função que retorna o número de arestas da lista. */
+    public int size() {
+        return size;
+    }
+
+    /** O primeiro vértice da aresta e. */
+    public int source( int e ) {
+        return pairs.get( 2 * e );
+    }
+
+    /** O segundo vértice da aresta e. */
+    public int target( int e ) {
+        return pairs.get( 2 * e + 1 );
+    }
+
+    /** Os rótulos dos vértices, ou null se os vértices não foram renumerados. */
+    public VertexInterner labels() {
+        return labels;
+    }
+
+    /** O rótulo original do vértice v, para a saída. */
+    public String label( int v ) {
+        return labels != null ? labels.label( v ) : Integer.toString( v );
+    }
+
+    /** Constrói um Grafo com as arestas da lista. */
+    public Grafo<Integer> toGrafo() {
+        Grafo<Integer> grafo = new Grafo<Integer>();
+        for ( int e = 0; e < size; e++ ) {
+            grafo.addEdge( source( e ), target( e ) );
+        }
+        return grafo;
+    }
+
+    /** Constrói a representação CSR com as arestas da lista. */
+    public GrafoCSR toCSR() {
+        return GrafoCSR.fromEdges( this );
+    }
+
+}
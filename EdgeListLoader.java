@@ -0,0 +1,360 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Leitor de arquivos de arestas.
+ *
+ * Aceita dois formatos:
+ *  - texto: pares de inteiros não negativos separados por espaços ou quebras de linha,
+ *    como os arquivos da pasta Entrada. A leitura é feita por um FileChannel
+ *    com um buffer grande e um analisador de inteiros escrito à mão, sem
+ *    expressões regulares.
+ *  - binário: cabeçalho de 16 bytes ("PLNR", versão 1 e número de arestas,
+ *    em little-endian) seguido dos pares de int em little-endian. O arquivo
+ *    é mapeado em memória e as arestas são lidas direto do mapeamento.
+ *
+ * Erros de formato são reportados com GraphFormatException, indicando a
+ * linha e a posição no arquivo.
+ *
+ * loadLabeled aceita também rótulos arbitrários no formato texto (qualquer
+ * sequência de bytes sem espaços, como "rua_7" ou 9000000000) e renumera
+ * os vértices de 0 a n-1 à medida que aparecem, com um VertexInterner.
+ * A renumeração é feita durante a leitura, sem criar um objeto por rótulo.
+ */
+public class EdgeListLoader {
+
+    /** Os quatro primeiros bytes de um arquivo binário. */
+    private static final byte[] MAGIC = { 'P', 'L', 'N', 'R' };
+
+    private static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 16;
+
+    /** Tamanho do buffer usado na leitura de arquivos texto. */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /** Tamanho do buffer usado na leitura de fluxos, que costumam ser pequenos. */
+    private static final int STREAM_BUFFER_SIZE = 1 << 16;
+
+    /** Tamanho máximo de um rótulo em loadLabeled. */
+    private static final int MAX_LABEL = 1 << 16;
+
+    /**
+     * Lê as arestas do arquivo, detectando o formato pelo cabeçalho.
+     *
+     * @param fileName  O caminho do arquivo.
+     * @return          A lista de arestas lida.
+     * @throws GraphFormatException se o conteúdo do arquivo for inválido.
+     * @throws IOException se o arquivo não puder ser lido.
+     */
+    public static EdgeList load( String fileName ) throws IOException {
+        Path path = Paths.get( fileName );
+        try ( FileChannel channel = FileChannel.open( path, StandardOpenOption.READ ) ) {
+            if ( isBinary( channel ) ) {
+                return loadBinary( fileName, channel );
+            }
+            return loadText( fileName, channel );
+        }
+    }
+
+    private static boolean isBinary( FileChannel channel ) throws IOException {
+        if ( channel.size() < HEADER_SIZE ) return false;
+        ByteBuffer head = ByteBuffer.allocate( MAGIC.length );
+        while ( head.hasRemaining() && channel.read( head, head.position() ) > 0 ) { }
+        return Arrays.equals( head.array(), MAGIC );
+    }
+
+    /** Se o arquivo está no formato binário. */
+    static boolean isBinary( Path path ) throws IOException {
+        try ( FileChannel channel = FileChannel.open( path, StandardOpenOption.READ ) ) {
+            return isBinary( channel );
+        }
+    }
+
+    /**
+     * Valida o cabeçalho de um arquivo binário e devolve o número de arestas.
+     * As arestas começam na posição HEADER_SIZE.
+     */
+    static long binaryEdgeCount( String fileName, FileChannel channel ) throws IOException {
+        long fileSize = channel.size();
+        ByteBuffer head = ByteBuffer.allocate( HEADER_SIZE ).order( ByteOrder.LITTLE_ENDIAN );
+        while ( head.hasRemaining() && channel.read( head, head.position() ) > 0 ) { }
+        int version = head.getInt( MAGIC.length );
+        if ( version != VERSION ) {
+            throw new GraphFormatException( fileName, 1, MAGIC.length, "versao do formato binario desconhecida: " + version );
+        }
+        long m = head.getLong( 8 );
+        if ( m < 0 || m > ( fileSize - HEADER_SIZE ) / 8 || HEADER_SIZE + 8 * m != fileSize ) {
+            throw new GraphFormatException( fileName, 1, 8,
+                "o cabecalho declara " + m + " arestas mas o arquivo tem " + fileSize + " bytes" );
+        }
+        return m;
+    }
+
+    /**
+     * Mapeia o arquivo binário e devolve uma lista de arestas que lê direto
+     * do mapeamento.
+     */
+    private static EdgeList loadBinary( String fileName, FileChannel channel ) throws IOException {
+        long m = binaryEdgeCount( fileName, channel );
+        long fileSize = channel.size();
+        if ( fileSize > Integer.MAX_VALUE ) {
+            throw new GraphFormatException( fileName, 1, 0, "arquivo binario grande demais para mapear (" + fileSize + " bytes)" );
+        }
+        MappedByteBuffer map = channel.map( FileChannel.MapMode.READ_ONLY, HEADER_SIZE, fileSize - HEADER_SIZE );
+        IntBuffer pairs = map.order( ByteOrder.LITTLE_ENDIAN ).asIntBuffer();
+        for ( int i = 0; i < 2 * m; i++ ) {
+            if ( pairs.get( i ) < 0 ) {
+                throw new GraphFormatException( fileName, 1, HEADER_SIZE + 4L * i, "vertice negativo: " + pairs.get( i ) );
+            }
+        }
+        return new EdgeList( pairs, (int) m );
+    }
+
+    /**
+     * Lê um arquivo texto em blocos grandes, convertendo os dígitos em
+     * inteiros à medida que aparecem. Um número pode começar num bloco e
+     * terminar no seguinte.
+     */
+    private static EdgeList loadText( String fileName, FileChannel channel ) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect( BUFFER_SIZE );
+        int[] pairs = new int[1024];
+        int count = 0;              // quantidade de inteiros lidos
+
+        long line = 1;
+        long offset = 0;            // posição do byte atual no arquivo
+        long tokenLine = 0;         // linha e posição onde começou o número atual
+        long tokenOffset = 0;
+        boolean inNumber = false;
+        boolean negative = false;
+        boolean hasDigits = false;
+        long value = 0;
+
+        while ( channel.read( buffer ) != -1 ) {
+            buffer.flip();
+            while ( buffer.hasRemaining() ) {
+                byte c = buffer.get();
+                if ( c >= '0' && c <= '9' ) {
+                    if ( !inNumber ) {
+                        inNumber = true;
+                        tokenLine = line;
+                        tokenOffset = offset;
+                    }
+                    value = value * 10 + ( c - '0' );
+                    hasDigits = true;
+                    if ( value > (long) Integer.MAX_VALUE + 1 ) {
+                        throw new GraphFormatException( fileName, tokenLine, tokenOffset, "numero grande demais para um vertice" );
+                    }
+                } else if ( c == '-' && !inNumber ) {
+                    inNumber = true;
+                    negative = true;
+                    tokenLine = line;
+                    tokenOffset = offset;
+                } else if ( c == ' ' || c == '\t' || c == '\r' || c == '\n' ) {
+                    if ( inNumber ) {
+                        if ( count == pairs.length ) pairs = Arrays.copyOf( pairs, 2 * count );
+                        pairs[count++] = toInt( fileName, tokenLine, tokenOffset, negative, hasDigits, value );
+                        inNumber = false;
+                        negative = false;
+                        hasDigits = false;
+                        value = 0;
+                    }
+                    if ( c == '\n' ) line++;
+                } else {
+                    throw new GraphFormatException( fileName, line, offset, "caractere inesperado '" + (char) ( c & 0xff ) + "'" );
+                }
+                offset++;
+            }
+            buffer.clear();
+        }
+        if ( inNumber ) {
+            if ( count == pairs.length ) pairs = Arrays.copyOf( pairs, 2 * count );
+            pairs[count++] = toInt( fileName, tokenLine, tokenOffset, negative, hasDigits, value );
+        }
+        if ( count % 2 != 0 ) {
+            throw new GraphFormatException( fileName, tokenLine, tokenOffset, "aresta incompleta: falta o segundo vertice" );
+        }
+        return new EdgeList( IntBuffer.wrap( pairs, 0, count ), count / 2 );
+    }
+
+    /**
+     * Lê as arestas do arquivo, renumerando os vértices de 0 a n-1 na ordem
+     * em que aparecem. No formato texto os vértices podem ter rótulos
+     * arbitrários; os rótulos originais ficam em EdgeList.labels.
+     *
+     * @param fileName  O caminho do arquivo.
+     * @return          A lista de arestas com os vértices renumerados.
+     * @throws GraphFormatException se o conteúdo do arquivo for inválido.
+     * @throws IOException se o arquivo não puder ser lido.
+     */
+    public static EdgeList loadLabeled( String fileName ) throws IOException {
+        Path path = Paths.get( fileName );
+        try ( FileChannel channel = FileChannel.open( path, StandardOpenOption.READ ) ) {
+            if ( isBinary( channel ) ) {
+                return intern( loadBinary( fileName, channel ) );
+            }
+            return loadLabeledText( fileName, channel, BUFFER_SIZE );
+        }
+    }
+
+    /**
+     * Lê arestas no formato texto de um fluxo, como o corpo de um pedido,
+     * renumerando os vértices como em loadLabeled. O fluxo não é fechado.
+     *
+     * @param name      O nome usado nas mensagens de erro.
+     */
+    public static EdgeList loadLabeled( InputStream in, String name ) throws IOException {
+        return loadLabeledText( name, Channels.newChannel( in ), STREAM_BUFFER_SIZE );
+    }
+
+    /* Renumera os vértices de uma lista de arestas lida do formato binário. */
+    private static EdgeList intern( EdgeList edges ) {
+        VertexInterner labels = new VertexInterner();
+        int[] pairs = new int[2 * edges.size()];
+        for ( int e = 0; e < edges.size(); e++ ) {
+            pairs[2 * e] = labels.intern( edges.source( e ) );
+            pairs[2 * e + 1] = labels.intern( edges.target( e ) );
+        }
+        return new EdgeList( IntBuffer.wrap( pairs ), edges.size(), labels );
+    }
+
+    /**
+     * Lê um arquivo texto de rótulos separados por espaços, em blocos, e
+     * entrega cada rótulo ao VertexInterner assim que ele termina. Um rótulo
+     * pode começar num bloco e terminar no seguinte.
+     */
+    private static EdgeList loadLabeledText( String fileName, ReadableByteChannel channel, int bufferSize ) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate( bufferSize );
+        byte[] data = buffer.array();
+        VertexInterner labels = new VertexInterner();
+        int[] pairs = new int[1024];
+        int count = 0;
+
+        byte[] token = new byte[64];
+        int length = 0;             // bytes do rótulo atual
+        long line = 1;
+        long tokenLine = 0;
+        long tokenOffset = 0;
+        long offset = 0;            // posição do início do bloco no arquivo
+
+        int read;
+        while ( ( read = channel.read( buffer ) ) != -1 ) {
+            for ( int i = 0; i < read; i++ ) {
+                byte c = data[i];
+                if ( c == ' ' || c == '\t' || c == '\r' || c == '\n' ) {
+                    if ( length > 0 ) {
+                        if ( count == pairs.length ) pairs = Arrays.copyOf( pairs, 2 * count );
+                        pairs[count++] = intern( labels, token, length );
+                        length = 0;
+                    }
+                    if ( c == '\n' ) line++;
+                } else {
+                    if ( length == 0 ) {
+                        tokenLine = line;
+                        tokenOffset = offset + i;
+                    }
+                    if ( length == token.length ) {
+                        if ( length == MAX_LABEL ) {
+                            throw new GraphFormatException( fileName, tokenLine, tokenOffset, "rotulo com mais de " + MAX_LABEL + " bytes" );
+                        }
+                        token = Arrays.copyOf( token, Math.min( 2 * length, MAX_LABEL ) );
+                    }
+                    token[length++] = c;
+                }
+            }
+            offset += read;
+            buffer.clear();
+        }
+        if ( length > 0 ) {
+            if ( count == pairs.length ) pairs = Arrays.copyOf( pairs, 2 * count );
+            pairs[count++] = intern( labels, token, length );
+        }
+        if ( count % 2 != 0 ) {
+            throw new GraphFormatException( fileName, tokenLine, tokenOffset, "aresta incompleta: falta o segundo vertice" );
+        }
+        return new EdgeList( IntBuffer.wrap( pairs, 0, count ), count / 2, labels );
+    }
+
+    private static int intern( VertexInterner labels, byte[] token, int length ) {
+        if ( !VertexInterner.isCanonicalNumber( token, 0, length ) ) return labels.intern( token, 0, length );
+        int i = token[0] == '-' ? 1 : 0;
+        long value = 0;
+        for ( int k = i; k < length; k++ ) value = value * 10 + ( token[k] - '0' );
+        return labels.intern( i == 1 ? -value : value );
+    }
+
+    private static int toInt( String fileName, long line, long offset, boolean negative, boolean hasDigits, long value )
+            throws GraphFormatException {
+        if ( !hasDigits ) {
+            throw new GraphFormatException( fileName, line, offset, "sinal '-' sem digitos" );
+        }
+        if ( negative && value != 0 ) {
+            throw new GraphFormatException( fileName, line, offset, "vertice negativo: -" + value );
+        }
+        if ( value > Integer.MAX_VALUE ) {
+            throw new GraphFormatException( fileName, line, offset, "numero grande demais para um vertice" );
+        }
+        return (int) value;
+    }
+
+    /**
+     * Grava as arestas no formato texto, um par por linha, usando os rótulos
+     * originais quando a lista foi renumerada.
+     *
+     * @param edges     As arestas a gravar.
+     * @param fileName  O caminho do arquivo de saída.
+     */
+    public static void writeText( EdgeList edges, String fileName ) throws IOException {
+        try ( Writer out = Files.newBufferedWriter( Paths.get( fileName ), StandardCharsets.US_ASCII ) ) {
+            for ( int e = 0; e < edges.size(); e++ ) {
+                out.write( edges.label( edges.source( e ) ) );
+                out.write( ' ' );
+                out.write( edges.label( edges.target( e ) ) );
+                out.write( '\n' );
+            }
+        }
+    }
+
+    /**
+     * Grava as arestas no formato binário. Numa lista renumerada são gravados
+     * os ids densos; os rótulos não cabem no formato.
+     *
+     * @param edges     As arestas a gravar.
+     * @param fileName  O caminho do arquivo de saída.
+     */
+    public static void writeBinary( EdgeList edges, String fileName ) throws IOException {
+        try ( FileChannel channel = FileChannel.open( Paths.get( fileName ),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE ) ) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect( BUFFER_SIZE ).order( ByteOrder.LITTLE_ENDIAN );
+            buffer.put( MAGIC );
+            buffer.putInt( VERSION );
+            buffer.putLong( edges.size() );
+            for ( int e = 0; e < edges.size(); e++ ) {
+                if ( buffer.remaining() < 8 ) {
+                    buffer.flip();
+                    while ( buffer.hasRemaining() ) channel.write( buffer );
+                    buffer.clear();
+                }
+                buffer.putInt( edges.source( e ) );
+                buffer.putInt( edges.target( e ) );
+            }
+            buffer.flip();
+            while ( buffer.hasRemaining() ) channel.write( buffer );
+        }
+    }
+
+}
@@ -9,18 +9,22 @@ import java.util.Set;
  * @author Paulo Rolim
  */
 
- public class Grafo<T> {
+ public class Grafo<T> implements GraphView<T> {
  
     /*Mapeamento dos vertices para um conjunto contendo todos os vértices adjacentes*/
     HashMap<T, Set<T>> adjacencyMap = new HashMap<T, Set<T>>();
 
+    /*Soma dos tamanhos dos conjuntos de adjacência, mantida a cada alteração
+     *para que numEdges custe O(1). Um laço conta uma vez.*/
+    private int degreeSum = 0;
+
     //Construtor da classe
     public Grafo(){}
 
     /*Constrói um grafo idêntico o grafo dado como entrada.
-     *O parametro source é o grafo de entrada.
+     *O parametro source é o grafo de entrada (um Grafo ou uma visão).
     */
-    public Grafo(Grafo<T> source) {
+    public Grafo(GraphView<T> source) {
         for (T v : source.getVertices()) {
             for (T u : source.getNeighbors(v)) {
                 this.addEdge(v,u);
@@ -44,21 +48,39 @@ import java.util.Set;
     public void addEdge(T v1, T v2) {
         addVertex(v1);
         addVertex(v2);
-        adjacencyMap.get(v1).add(v2);
-        adjacencyMap.get(v2).add(v1);
+        if (adjacencyMap.get(v1).add(v2)) degreeSum++;
+        if (adjacencyMap.get(v2).add(v1)) degreeSum++;
     }
 
-    /*Remove uma aresta entre dois vértices
+    /*Remove uma aresta entre dois vértices (ou um laço, se v1 e v2 forem iguais)
+     *e os vértices que ficarem isolados
      * 
      *O parametro v1 é o primeiro vértice da aresta
      *O parmetro v2 é o segundo vértice da aresta
     */
     public void removeEdge(T v1, T v2) {
         if (hasEdge(v1,v2) && hasEdge(v2,v1)) {
-            adjacencyMap.get(v1).remove(v2);
-            adjacencyMap.get(v2).remove(v1);
-            if (adjacencyMap.get(v1).size() == 0) adjacencyMap.remove(v1);
-            if (adjacencyMap.get(v2).size() == 0) adjacencyMap.remove(v2);
+            Set<T> n1 = adjacencyMap.get(v1);
+            Set<T> n2 = adjacencyMap.get(v2);
+            if (n1.remove(v2)) degreeSum--;
+            if (n2.remove(v1)) degreeSum--;
+            if (n1.isEmpty()) adjacencyMap.remove(v1);
+            if (n2.isEmpty()) adjacencyMap.remove(v2);
+        }
+    }
+
+    /*Remove um vértice e todas as arestas ligadas a ele
+     *O parametro v é o vértice a ser removido
+    */
+    public void removeVertex(T v) {
+        Set<T> neighbors = adjacencyMap.remove(v);
+        if (neighbors == null) return;
+        degreeSum -= neighbors.size();
+        for (T u : neighbors) {
+            if (u.equals(v)) continue;
+            adjacencyMap.get(u).remove(v);
+            degreeSum--;
+            if (adjacencyMap.get(u).size() == 0) adjacencyMap.remove(u);
         }
     }
 
@@ -70,20 +92,18 @@ import java.util.Set;
         return adjacencyMap.size();
     }
 
-    /*Função que retorna o número de arestas do grafo
+    /*Função que retorna o número de arestas do grafo, em O(1)
      * 
      */
     public int numEdges() {
-        int count = 0;
-        for (Set<T> edges : adjacencyMap.values()) {
-            count += edges.size();
-        }
-        return count/2;
+        return degreeSum/2;
     }
 
     /**
      * Função que retorna todos os vértices vizinhos ao vértice fornecido
      * Onde o praâmetro v é o vértice cujos vizinhos serão retornados
+     * O conjunto não deve ser alterado diretamente: use addEdge e removeEdge,
+     * que mantêm a contagem de arestas.
     */
     public Set<T> getNeighbors(T v) {
         return adjacencyMap.get(v);
@@ -0,0 +1,175 @@
+import java.util.Arrays;
+
+/**
+ * Representação imutável de um grafo não direcionado em formato CSR
+ * (compressed sparse row), para grafos cujos vértices são inteiros
+ * não negativos.
+ *
+ * Os vizinhos do vértice v ficam em targets[offsets[v]..offsets[v+1]),
+ * ordenados e sem repetição. Ao contrário de Grafo, não há objetos por
+ * aresta: o grafo inteiro ocupa dois vetores de int, e percorrer os
+ * vizinhos de um vértice é uma leitura sequencial de memória.
+ *
+ * @author Paulo Rolim
+ */
+public class GrafoCSR implements IntGraph {
+
+    /* offsets[v] é a posição do primeiro vizinho de v em targets */
+    private final int[] offsets;
+
+    /* Vizinhos de todos os vértices, concatenados */
+    private final int[] targets;
+
+    private final int numVertices;
+
+    private GrafoCSR( int[] offsets, int[] targets ) {
+        this.offsets = offsets;
+        this.targets = targets;
+        int count = 0;
+        for ( int v = 0; v + 1 < offsets.length; v++ ) {
+            if ( offsets[v + 1] > offsets[v] ) count++;
+        }
+        this.numVertices = count;
+    }
+
+    /**
+     * Constrói o grafo a partir de uma lista de arestas.
+     * Arestas repetidas são descartadas, como em Grafo. Os laços também são
+     * descartados, ao contrário de Grafo, em que addEdge( v, v ) guarda v
+     * entre os seus próprios vizinhos.
+     *
+     * @param origem    O primeiro vértice de cada aresta.
+     * @param destino   O segundo vértice de cada aresta.
+     * @param m         O número de arestas nos vetores.
+     * @return          O grafo construído.
+     */
+    public static GrafoCSR fromEdges( int[] origem, int[] destino, int m ) {
+        return fromEdges( EdgeList.of( origem, destino, m ) );
+    }
+
+    /**
+     * Constrói o grafo a partir de uma lista de arestas lida de arquivo.
+     * Arestas repetidas e laços são descartados.
+     */
+    public static GrafoCSR fromEdges( EdgeList edges ) {
+        int m = edges.size();
+        int bound = 0;
+        for ( int e = 0; e < m; e++ ) {
+            int u = edges.source( e ), v = edges.target( e );
+            if ( u < 0 || v < 0 ) {
+                throw new IllegalArgumentException( "Vertice negativo na aresta " + u + " " + v );
+            }
+            bound = Math.max( bound, Math.max( u, v ) + 1 );
+        }
+
+        // Conta o grau de cada vértice e distribui as arestas nos dois sentidos.
+        int[] offsets = new int[bound + 1];
+        for ( int e = 0; e < m; e++ ) {
+            int u = edges.source( e ), v = edges.target( e );
+            if ( u == v ) continue;
+            offsets[u + 1]++;
+            offsets[v + 1]++;
+        }
+        for ( int v = 0; v < bound; v++ ) offsets[v + 1] += offsets[v];
+        int[] targets = new int[offsets[bound]];
+        int[] pos = Arrays.copyOf( offsets, bound );
+        for ( int e = 0; e < m; e++ ) {
+            int u = edges.source( e ), v = edges.target( e );
+            if ( u == v ) continue;
+            targets[pos[u]++] = v;
+            targets[pos[v]++] = u;
+        }
+
+        // Ordena cada lista de vizinhos e remove as repetições, compactando no lugar.
+        int write = 0;
+        int start = 0;
+        for ( int v = 0; v < bound; v++ ) {
+            int end = offsets[v + 1];
+            Arrays.sort( targets, start, end );
+            offsets[v] = write;
+            for ( int i = start; i < end; i++ ) {
+                if ( i == start || targets[i] != targets[i - 1] ) {
+                    targets[write++] = targets[i];
+                }
+            }
+            start = end;
+        }
+        offsets[bound] = write;
+        if ( write < targets.length ) targets = Arrays.copyOf( targets, write );
+        return new GrafoCSR( offsets, targets );
+    }
+
+    /**
+     * Constrói a representação CSR de um grafo de inteiros.
+     */
+    public static GrafoCSR fromGrafo( Grafo<Integer> grafo ) {
+        int m = 0;
+        for ( Integer v : grafo.getVertices() ) m += grafo.getDegree( v );
+        int[] origem = new int[m];
+        int[] destino = new int[m];
+        int e = 0;
+        for ( Integer v : grafo.getVertices() ) {
+            for ( Integer u : grafo.getNeighbors( v ) ) {
+                origem[e] = v;
+                destino[e] = u;
+                e++;
+            }
+        }
+        return fromEdges( origem, destino, m );
+    }
+
+    /**
+     * Função que retorna o limite superior (exclusivo) dos rótulos de vértices.
+     * Todos os vértices estão em 0..vertexBound()-1; rótulos sem arestas
+     * nesse intervalo não contam como vértices.
+     */
+    public int vertexBound() {
+        return offsets.length - 1;
+    }
+
+    /** Função que retorna o número de vértices com pelo menos uma aresta. */
+    public int numVertices() {
+        return numVertices;
+    }
+
+    /** Função que retorna o número de arestas do grafo. */
+    public int numEdges() {
+        return targets.length / 2;
+    }
+
+    /**
+     * Função que retorna o grau de um vértice fornecido.
+     * Quando a função retorna -1 significa que o vértice informado não existe no grafo.
+     */
+    public int getDegree( int v ) {
+        if ( !hasVertex( v ) ) return -1;
+        return offsets[v + 1] - offsets[v];
+    }
+
+    /** Função booleana que verifica se o vértice informado existe no grafo. */
+    public boolean hasVertex( int v ) {
+        return v >= 0 && v < vertexBound() && offsets[v + 1] > offsets[v];
+    }
+
+    /** Verifica se a aresta fornecida está presente no grafo, por busca binária. */
+    public boolean hasEdge( int v1, int v2 ) {
+        if ( !hasVertex( v1 ) ) return false;
+        return Arrays.binarySearch( targets, offsets[v1], offsets[v1 + 1], v2 ) >= 0;
+    }
+
+    /** Posição do primeiro vizinho de v, para uso com neighborAt. */
+    public int neighborStart( int v ) {
+        return offsets[v];
+    }
+
+    /** Posição seguinte ao último vizinho de v. */
+    public int neighborEnd( int v ) {
+        return offsets[v + 1];
+    }
+
+    /** O vizinho guardado na posição i (entre neighborStart e neighborEnd de algum vértice). */
+    public int neighborAt( int i ) {
+        return targets[i];
+    }
+
+}
@@ -0,0 +1,212 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Impressão digital de um grafo, usada como chave do cache de resultados.
+ *
+ * Os vértices são renumerados numa ordem canônica: cada vértice recebe uma
+ * cor calculada a partir do grau e refinada algumas vezes com as cores dos
+ * vizinhos (refinamento de Weisfeiler-Lehman), e os vértices são ordenados
+ * pela cor. A impressão guarda a lista de arestas renumerada e ordenada e um
+ * hash dela combinado com o da sequência de graus.
+ *
+ * Quando as cores separam todos os vértices (o caso comum), grafos que
+ * diferem só pelos rótulos dos vértices têm a mesma impressão. Empates são
+ * desfeitos pela ordem de leitura, o que pode fazer grafos isomorfos
+ * terem impressões diferentes, mas nunca o contrário: impressões iguais
+ * implicam listas de arestas canônicas iguais, e portanto grafos isomorfos.
+ */
+public final class GraphFingerprint {
+
+    /** Rodadas de refinamento das cores. */
+    private static final int ROUNDS = 3;
+
+    private final int numVertices;
+
+    private final long hash;
+
+    /* Arestas canônicas (u << 32 | v, com u < v), em ordem crescente */
+    private final long[] edges;
+
+    /* Rótulo original de cada vértice canônico; null para impressões lidas de arquivo */
+    private final Object[] labels;
+
+    GraphFingerprint( int numVertices, long hash, long[] edges, Object[] labels ) {
+        this.numVertices = numVertices;
+        this.hash = hash;
+        this.edges = edges;
+        this.labels = labels;
+    }
+
+    /** Calcula a impressão digital de um grafo. */
+    public static <T> GraphFingerprint of( Grafo<T> grafo ) {
+        int n = grafo.numVertices();
+        Object[] label = new Object[n];
+        Map<T, Integer> indice = new HashMap<T, Integer>();
+        for ( T v : grafo.getVertices() ) {
+            label[indice.size()] = v;
+            indice.put( v, indice.size() );
+        }
+        int[] start = new int[n + 1];
+        int k = 0;
+        for ( T v : grafo.getVertices() ) {
+            start[k + 1] = start[k] + grafo.getDegree( v );
+            k++;
+        }
+        int[] adj = new int[start[n]];
+        k = 0;
+        for ( T v : grafo.getVertices() ) {
+            int pos = start[k++];
+            for ( T u : grafo.getNeighbors( v ) ) adj[pos++] = indice.get( u );
+        }
+        return build( n, start, adj, label );
+    }
+
+    /** Calcula a impressão digital de um grafo em representação CSR. */
+    public static GraphFingerprint of( IntGraph grafo ) {
+        int n = grafo.numVertices();
+        int[] dense = new int[grafo.vertexBound()];
+        Object[] label = new Object[n];
+        int k = 0;
+        for ( int v = 0; v < grafo.vertexBound(); v++ ) {
+            if ( grafo.hasVertex( v ) ) {
+                dense[v] = k;
+                label[k++] = v;
+            }
+        }
+        int[] start = new int[n + 1];
+        int[] adj = new int[2 * grafo.numEdges()];
+        k = 0;
+        for ( int v = 0; v < grafo.vertexBound(); v++ ) {
+            if ( !grafo.hasVertex( v ) ) continue;
+            int pos = start[k];
+            for ( int i = grafo.neighborStart( v ); i < grafo.neighborEnd( v ); i++ ) {
+                adj[pos++] = dense[grafo.neighborAt( i )];
+            }
+            start[++k] = pos;
+        }
+        return build( n, start, adj, label );
+    }
+
+    private static GraphFingerprint build( int n, int[] start, int[] adj, Object[] label ) {
+        // Cores iniciais pelo grau, refinadas com as cores dos vizinhos.
+        long[] color = new long[n];
+        long[] next = new long[n];
+        for ( int v = 0; v < n; v++ ) color[v] = mix( start[v + 1] - start[v] );
+        long[] degrees = new long[n];
+        for ( int v = 0; v < n; v++ ) degrees[v] = start[v + 1] - start[v];
+        for ( int r = 0; r < ROUNDS; r++ ) {
+            for ( int v = 0; v < n; v++ ) {
+                long sum = 0;
+                for ( int i = start[v]; i < start[v + 1]; i++ ) sum += mix( color[adj[i]] );
+                next[v] = mix( color[v] * 31 + sum );
+            }
+            long[] t = color;
+            color = next;
+            next = t;
+        }
+
+        // Ordena os vértices pela cor (32 bits mais altos), com o índice nos bits baixos.
+        long[] keys = new long[n];
+        for ( int v = 0; v < n; v++ ) keys[v] = ( color[v] & 0xffffffff00000000L ) | v;
+        Arrays.sort( keys );
+        int[] canon = new int[n];
+        Object[] canonLabel = new Object[n];
+        for ( int i = 0; i < n; i++ ) {
+            int v = (int) keys[i];
+            canon[v] = i;
+            canonLabel[i] = label[v];
+        }
+
+        long[] edges = new long[adj.length / 2];
+        int m = 0;
+        for ( int v = 0; v < n; v++ ) {
+            for ( int i = start[v]; i < start[v + 1]; i++ ) {
+                int u = adj[i];
+                if ( u > v ) edges[m++] = pack( canon[v], canon[u] );
+            }
+        }
+        edges = Arrays.copyOf( edges, m );
+        Arrays.sort( edges );
+
+        Arrays.sort( degrees );
+        long hash = n;
+        for ( long d : degrees ) hash = mix( hash * 31 + d );
+        for ( long e : edges ) hash = mix( hash * 31 + e );
+        return new GraphFingerprint( n, hash, edges, canonLabel );
+    }
+
+    private static long pack( int a, int b ) {
+        int u = Math.min( a, b ), v = Math.max( a, b );
+        return ( (long) u << 32 ) | v;
+    }
+
+    /* Função de mistura de bits (finalizador do SplitMix64). */
+    private static long mix( long z ) {
+        z = ( z ^ ( z >>> 30 ) ) * 0xbf58476d1ce4e5b9L;
+        z = ( z ^ ( z >>> 27 ) ) * 0x94d049bb133111ebL;
+        return z ^ ( z >>> 31 );
+    }
+
+    public int numVertices() {
+        return numVertices;
+    }
+
+    public long hash() {
+        return hash;
+    }
+
+    /** O número de arestas do grafo. */
+    public int numEdges() {
+        return edges.length;
+    }
+
+    long[] edges() {
+        return edges;
+    }
+
+    /**
+     * Converte um subgrafo do grafo original para arestas canônicas, para
+     * guardar um certificado no cache.
+     */
+    public <T> long[] encode( Grafo<T> subgrafo ) {
+        Map<Object, Integer> canon = new HashMap<Object, Integer>();
+        for ( int i = 0; i < labels.length; i++ ) canon.put( labels[i], i );
+        long[] result = new long[subgrafo.numEdges()];
+        int m = 0;
+        for ( T v : subgrafo.getVertices() ) {
+            for ( T u : subgrafo.getNeighbors( v ) ) {
+                int a = canon.get( v ), b = canon.get( u );
+                if ( a < b ) result[m++] = pack( a, b );
+            }
+        }
+        return Arrays.copyOf( result, m );
+    }
+
+    /**
+     * Converte arestas canônicas de volta para os rótulos deste grafo.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Grafo<T> decode( long[] canonicalEdges ) {
+        Grafo<T> grafo = new Grafo<T>();
+        for ( long e : canonicalEdges ) {
+            grafo.addEdge( (T) labels[(int) ( e >>> 32 )], (T) labels[(int) e] );
+        }
+        return grafo;
+    }
+
+    @Override
+    public boolean equals( Object o ) {
+        if ( this == o ) return true;
+        if ( !( o instanceof GraphFingerprint ) ) return false;
+        GraphFingerprint f = (GraphFingerprint) o;
+        return hash == f.hash && numVertices == f.numVertices && Arrays.equals( edges, f.edges );
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) ( hash ^ ( hash >>> 32 ) );
+    }
+
+}
@@ -0,0 +1,30 @@
+import java.io.IOException;
+
+/**
+ * Erro de formato num arquivo de entrada, com a linha e a posição
+ * (em bytes, a partir do início do arquivo) onde o problema foi encontrado.
+ */
+public class GraphFormatException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long line;
+    private final long offset;
+
+    public GraphFormatException( String fileName, long line, long offset, String message ) {
+        super( fileName + ": linha " + line + ", posicao " + offset + ": " + message );
+        this.line = line;
+        this.offset = offset;
+    }
+
+    /** A linha onde o erro foi encontrado, começando em 1. */
+    public long getLine() {
+        return line;
+    }
+
+    /** A posição em bytes onde o erro foi encontrado, começando em 0. */
+    public long getOffset() {
+        return offset;
+    }
+
+}
@@ -0,0 +1,183 @@
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+/**
+ * Gerador determinístico de grafos grandes para testes de desempenho.
+ *
+ * Todos os grafos são gerados com o número de arestas pedido (ou o mais
+ * próximo que a família permite) e dependem só da semente: a mesma
+ * semente gera sempre o mesmo arquivo. Os rótulos dos vértices e a ordem
+ * das arestas são embaralhados, para que a entrada não chegue já na ordem
+ * de uma busca.
+ *
+ * Famílias:
+ *  - triangulacao: triangulação planar aleatória (inserção de vértices em faces sorteadas)
+ *  - grade:        grade retangular, planar
+ *  - roda:         um ciclo mais um vértice ligado a todos, planar
+ *  - k5:           triangulação com uma subdivisão de K5 escondida, não planar
+ *  - k33:          triangulação com uma subdivisão de K3,3 escondida, não planar
+ *
+ * Para gerar um arquivo use java GraphGenerator tipo arestas semente saida [-b]
+ * (-b grava no formato binário).
+ */
+public class GraphGenerator {
+
+    /** Número de vértices internos de cada caminho de uma subdivisão escondida. */
+    private static final int SUBDIVISAO = 3;
+
+    public static void main( String[] args ) throws IOException {
+        if ( args.length < 4 ) {
+            System.err.println( "Uso: java GraphGenerator triangulacao|grade|roda|k5|k33 arestas semente saida [-b]" );
+            System.exit(1);
+        }
+        EdgeList edges = generate( args[0], Integer.parseInt( args[1] ), Long.parseLong( args[2] ) );
+        if ( args.length > 4 && args[4].equals( "-b" ) ) EdgeListLoader.writeBinary( edges, args[3] );
+        else EdgeListLoader.writeText( edges, args[3] );
+    }
+
+    /**
+     * Gera um grafo da família dada.
+     *
+     * @param tipo      O nome da família.
+     * @param arestas   O número aproximado de arestas.
+     * @param semente   A semente do gerador aleatório.
+     */
+    public static EdgeList generate( String tipo, int arestas, long semente ) {
+        switch ( tipo ) {
+            case "triangulacao": return triangulation( arestas, semente );
+            case "grade":        return grid( arestas, semente );
+            case "roda":         return wheel( arestas, semente );
+            case "k5":           return hidden( arestas, semente, false );
+            case "k33":          return hidden( arestas, semente, true );
+            default: throw new IllegalArgumentException( "tipo de grafo desconhecido: " + tipo );
+        }
+    }
+
+    /**
+     * Triangulação planar com 3n-6 arestas: começa com um triângulo e insere
+     * cada novo vértice numa face sorteada, ligando-o aos três vértices dela.
+     */
+    public static EdgeList triangulation( int arestas, long semente ) {
+        SplittableRandom random = new SplittableRandom( semente );
+        int n = Math.max( 3, ( arestas + 6 ) / 3 );
+        Builder b = new Builder( 3 * n );
+        // Faces guardadas como triplas; a face externa nunca é sorteada.
+        int[] faces = new int[3 * ( 2 * n )];
+        int f = 1;
+        faces[0] = 0; faces[1] = 1; faces[2] = 2;
+        b.add( 0, 1 ); b.add( 1, 2 ); b.add( 0, 2 );
+        for ( int v = 3; v < n; v++ ) {
+            int k = random.nextInt( f );
+            int x = faces[3 * k], y = faces[3 * k + 1], z = faces[3 * k + 2];
+            b.add( v, x ); b.add( v, y ); b.add( v, z );
+            faces[3 * k + 2] = v;
+            faces[3 * f] = y; faces[3 * f + 1] = z; faces[3 * f + 2] = v; f++;
+            faces[3 * f] = z; faces[3 * f + 1] = x; faces[3 * f + 2] = v; f++;
+        }
+        return b.shuffled( n, random );
+    }
+
+    /** Grade quadrada com cerca de 2l² arestas. */
+    public static EdgeList grid( int arestas, long semente ) {
+        int l = Math.max( 2, (int) Math.round( Math.sqrt( arestas / 2.0 ) ) );
+        Builder b = new Builder( 2 * l * l );
+        for ( int i = 0; i < l; i++ ) {
+            for ( int j = 0; j < l; j++ ) {
+                if ( j + 1 < l ) b.add( i * l + j, i * l + j + 1 );
+                if ( i + 1 < l ) b.add( i * l + j, ( i + 1 ) * l + j );
+            }
+        }
+        return b.shuffled( l * l, new SplittableRandom( semente ) );
+    }
+
+    /** Roda com arestas/2 raios. */
+    public static EdgeList wheel( int arestas, long semente ) {
+        int k = Math.max( 3, arestas / 2 );
+        Builder b = new Builder( 2 * k );
+        for ( int i = 1; i <= k; i++ ) {
+            b.add( 0, i );
+            b.add( i, i % k + 1 );
+        }
+        return b.shuffled( k + 1, new SplittableRandom( semente ) );
+    }
+
+    /**
+     * Triangulação à qual se acrescentam caminhos novos entre 5 (ou 3+3)
+     * vértices sorteados, formando uma subdivisão de K5 (ou K3,3).
+     */
+    public static EdgeList hidden( int arestas, long semente, boolean k33 ) {
+        SplittableRandom random = new SplittableRandom( semente );
+        int caminhos = k33 ? 9 : 10;
+        int extra = caminhos * ( SUBDIVISAO + 1 );
+        EdgeList base = triangulation( Math.max( 3, arestas - extra ), random.nextLong() );
+        int n = 0;
+        for ( int e = 0; e < base.size(); e++ ) n = Math.max( n, Math.max( base.source( e ), base.target( e ) ) + 1 );
+
+        int[] principal = new int[k33 ? 6 : 5];
+        for ( int i = 0; i < principal.length; i++ ) {
+            boolean repetido;
+            do {
+                principal[i] = random.nextInt( n );
+                repetido = false;
+                for ( int j = 0; j < i; j++ ) repetido |= principal[j] == principal[i];
+            } while ( repetido );
+        }
+
+        Builder b = new Builder( base.size() + extra );
+        for ( int e = 0; e < base.size(); e++ ) b.add( base.source( e ), base.target( e ) );
+        int novo = n;
+        for ( int i = 0; i < principal.length; i++ ) {
+            for ( int j = i + 1; j < principal.length; j++ ) {
+                if ( k33 && ( i < 3 ) == ( j < 3 ) ) continue;
+                int anterior = principal[i];
+                for ( int s = 0; s < SUBDIVISAO; s++ ) {
+                    b.add( anterior, novo );
+                    anterior = novo++;
+                }
+                b.add( anterior, principal[j] );
+            }
+        }
+        return b.shuffled( novo, random );
+    }
+
+    /** Acumula arestas e as embaralha no fim. */
+    private static final class Builder {
+
+        private int[] origem;
+        private int[] destino;
+        private int m = 0;
+
+        Builder( int capacidade ) {
+            origem = new int[capacidade];
+            destino = new int[capacidade];
+        }
+
+        void add( int u, int v ) {
+            origem[m] = u;
+            destino[m] = v;
+            m++;
+        }
+
+        /* Renumera os vértices por uma permutação sorteada e embaralha as arestas. */
+        EdgeList shuffled( int n, SplittableRandom random ) {
+            int[] rotulo = new int[n];
+            for ( int i = 0; i < n; i++ ) rotulo[i] = i;
+            for ( int i = n - 1; i > 0; i-- ) {
+                int j = random.nextInt( i + 1 );
+                int t = rotulo[i]; rotulo[i] = rotulo[j]; rotulo[j] = t;
+            }
+            for ( int i = m - 1; i > 0; i-- ) {
+                int j = random.nextInt( i + 1 );
+                int u = origem[i]; origem[i] = origem[j]; origem[j] = u;
+                int v = destino[i]; destino[i] = destino[j]; destino[j] = v;
+            }
+            for ( int e = 0; e < m; e++ ) {
+                origem[e] = rotulo[origem[e]];
+                destino[e] = rotulo[destino[e]];
+            }
+            return EdgeList.of( origem, destino, m );
+        }
+
+    }
+
+}
@@ -0,0 +1,220 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pré-processamento que reduz o grafo antes do teste de planaridade.
+ *
+ * Repete, até não haver mais o que fazer:
+ *  - remove vértices de grau 0 e 1, que não fazem parte de nenhum ciclo;
+ *  - suprime vértices de grau 2, trocando o caminho a-v-b pela aresta a-b;
+ *  - descarta laços e arestas paralelas criadas pela supressão.
+ *
+ * Nenhuma dessas operações muda a planaridade. O que sobra (o núcleo) tem
+ * todos os vértices com grau pelo menos 3, e costuma ser muito menor que o
+ * grafo original quando este é quase todo árvores e caminhos subdivididos.
+ *
+ * Cada vértice é visitado a partir de uma fila de trabalho e cada aresta é
+ * removida no máximo uma vez, então a redução roda em tempo linear. Cada
+ * aresta do núcleo lembra o caminho do grafo original que ela substitui,
+ * para que subgrafos do núcleo (como um certificado de Kuratowski) possam
+ * ser expandidos de volta.
+ */
+public class GraphReducer {
+
+    /**
+     * Reduz o grafo. O grafo dado não é alterado.
+     *
+     * @param grafo     O grafo a ser reduzido.
+     * @return          O núcleo e o mapeamento de volta para o grafo original.
+     */
+    public static <T> Reduction<T> reduce( Grafo<T> grafo ) {
+        // A cópia já deixa de fora os vértices isolados.
+        Grafo<T> kernel = new Grafo<T>( grafo );
+        Map<Pair<T>, Chain<T>> chains = new HashMap<Pair<T>, Chain<T>>();
+
+        Deque<T> queue = new ArrayDeque<T>();
+        List<T> loops = new ArrayList<T>();
+        for ( T v : kernel.getVertices() ) {
+            if ( kernel.hasEdge( v, v ) ) loops.add( v );
+        }
+        for ( T v : loops ) {
+            kernel.removeEdge( v, v );      // remove também v, se ele ficar isolado
+        }
+        for ( T v : kernel.getVertices() ) {
+            if ( kernel.getDegree( v ) <= 2 ) queue.add( v );
+        }
+
+        while ( !queue.isEmpty() ) {
+            T v = queue.poll();
+            int degree = kernel.getDegree( v );
+            if ( degree == 0 ) {
+                kernel.removeVertex( v );
+            } else if ( degree == 1 ) {
+                T u = kernel.getNeighbors( v ).iterator().next();
+                kernel.removeEdge( v, u );
+                chains.remove( new Pair<T>( v, u ) );
+                if ( kernel.getDegree( u ) >= 1 && kernel.getDegree( u ) <= 2 ) queue.add( u );
+            } else if ( degree == 2 ) {
+                Iterator<T> it = kernel.getNeighbors( v ).iterator();
+                T a = it.next();
+                T b = it.next();
+                Chain<T> left = chains.remove( new Pair<T>( a, v ) );
+                Chain<T> right = chains.remove( new Pair<T>( v, b ) );
+                kernel.removeEdge( a, v );
+                kernel.removeEdge( v, b );
+                if ( kernel.hasEdge( a, b ) ) {
+                    // Aresta paralela: o caminho já existente representa os dois.
+                    if ( kernel.getDegree( a ) <= 2 ) queue.add( a );
+                    if ( kernel.getDegree( b ) <= 2 ) queue.add( b );
+                } else {
+                    kernel.addEdge( a, b );
+                    chains.put( new Pair<T>( a, b ), new Chain<T>( a, left, v, right, b ) );
+                }
+            }
+            // Grau -1: o vértice já saiu do núcleo.
+        }
+        return new Reduction<T>( grafo, kernel, chains );
+    }
+
+    /** O resultado de uma redução. */
+    public static final class Reduction<T> {
+
+        private final Grafo<T> original;
+
+        private final Grafo<T> kernel;
+
+        /* Caminho original de cada aresta do núcleo que não é uma aresta original */
+        private final Map<Pair<T>, Chain<T>> chains;
+
+        Reduction( Grafo<T> original, Grafo<T> kernel, Map<Pair<T>, Chain<T>> chains ) {
+            this.original = original;
+            this.kernel = kernel;
+            this.chains = chains;
+        }
+
+        /** O grafo reduzido. Seus vértices são vértices do grafo original. */
+        public Grafo<T> kernel() {
+            return kernel;
+        }
+
+        public Grafo<T> original() {
+            return original;
+        }
+
+        /**
+         * O caminho do grafo original representado por uma aresta do núcleo,
+         * de u até v, incluindo as pontas.
+         */
+        public List<T> expand( T u, T v ) {
+            List<T> path = new ArrayList<T>();
+            path.add( u );
+            Chain<T> c = chains.get( new Pair<T>( u, v ) );
+            if ( c != null ) c.interior( u, path );
+            path.add( v );
+            return path;
+        }
+
+        /**
+         * Expande um subgrafo do núcleo, trocando cada aresta pelo caminho
+         * original correspondente.
+         */
+        public Grafo<T> expand( Grafo<T> subgrafo ) {
+            Grafo<T> result = new Grafo<T>();
+            for ( T u : subgrafo.getVertices() ) {
+                for ( T v : subgrafo.getNeighbors( u ) ) {
+                    if ( result.hasEdge( u, v ) ) continue;
+                    List<T> path = expand( u, v );
+                    for ( int i = 0; i + 1 < path.size(); i++ ) result.addEdge( path.get( i ), path.get( i + 1 ) );
+                }
+            }
+            return result;
+        }
+
+    }
+
+    /**
+     * Caminho do grafo original representado por uma aresta x-y do núcleo:
+     * x, o caminho left, mid, o caminho right e y. Um caminho null é uma
+     * aresta original.
+     */
+    private static final class Chain<T> {
+
+        final T x;
+        final Chain<T> left;
+        final T mid;
+        final Chain<T> right;
+        final T y;
+
+        Chain( T x, Chain<T> left, T mid, Chain<T> right, T y ) {
+            this.x = x;
+            this.left = left;
+            this.mid = mid;
+            this.right = right;
+            this.y = y;
+        }
+
+        /* Acrescenta os vértices internos do caminho, na ordem a partir da ponta from. */
+        void interior( T from, List<T> out ) {
+            // Pilha de caminhos a expandir (com a ponta de partida) e de vértices a emitir.
+            Deque<Object> stack = new ArrayDeque<Object>();
+            stack.push( new Step<T>( this, from ) );
+            while ( !stack.isEmpty() ) {
+                Object top = stack.pop();
+                if ( !( top instanceof Step ) ) {
+                    @SuppressWarnings("unchecked")
+                    T v = (T) top;
+                    out.add( v );
+                    continue;
+                }
+                @SuppressWarnings("unchecked")
+                Step<T> step = (Step<T>) top;
+                Chain<T> c = step.chain;
+                boolean forward = c.x.equals( step.from );
+                Chain<T> first = forward ? c.left : c.right;
+                Chain<T> second = forward ? c.right : c.left;
+                if ( second != null ) stack.push( new Step<T>( second, c.mid ) );
+                stack.push( c.mid );
+                if ( first != null ) stack.push( new Step<T>( first, step.from ) );
+            }
+        }
+    }
+
+    private static final class Step<T> {
+        final Chain<T> chain;
+        final T from;
+
+        Step( Chain<T> chain, T from ) {
+            this.chain = chain;
+            this.from = from;
+        }
+    }
+
+    /** Par não ordenado de vértices, usado como chave de uma aresta. */
+    private static final class Pair<T> {
+        final T a;
+        final T b;
+
+        Pair( T a, T b ) {
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        public boolean equals( Object o ) {
+            if ( !( o instanceof Pair ) ) return false;
+            Pair<?> p = (Pair<?>) o;
+            return ( a.equals( p.a ) && b.equals( p.b ) ) || ( a.equals( p.b ) && b.equals( p.a ) );
+        }
+
+        @Override
+        public int hashCode() {
+            return a.hashCode() ^ b.hashCode();
+        }
+    }
+
+}
@@ -0,0 +1,337 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Leitura sequencial de um arquivo com muitos grafos, um de cada vez, sem
+ * carregar o arquivo inteiro.
+ *
+ * Aceita três formatos:
+ *  - graph6: um grafo por linha, no formato do nauty.
+ *  - sparse6: um grafo por linha, começando com ':'.
+ *  - lista de arestas: blocos de pares de rótulos como os da pasta Entrada,
+ *    separados por uma ou mais linhas em branco. Os vértices de cada bloco
+ *    são renumerados de 0 a n-1, como em EdgeListLoader.loadLabeled.
+ * O cabeçalho opcional ">>graph6<<" ou ">>sparse6<<", no início da
+ * primeira linha, é ignorado.
+ *
+ * O formato é detectado pela primeira linha não vazia: graph6 se ela só
+ * tem caracteres entre '?' e '~', sparse6 se começa com ':' e lista de
+ * arestas nos demais casos. Nos formatos de uma linha por grafo, cada linha
+ * é decodificada pelo seu primeiro caractere, então graph6 e sparse6 podem
+ * aparecer misturados.
+ *
+ * Um registro inválido gera GraphFormatException, mas a leitura continua
+ * no registro seguinte na próxima chamada de next.
+ */
+public class GraphStream implements Closeable {
+
+    /** Tamanho do buffer de leitura do arquivo. */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /** Tamanho máximo de uma linha (um grafo graph6 com cerca de 10 mil vértices). */
+    private static final int MAX_LINE = 1 << 23;
+
+    private final String fileName;
+
+    private final FileChannel channel;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate( BUFFER_SIZE );
+
+    /* A linha atual, sem o '\n' (e sem '\r' final) */
+    private byte[] line = new byte[256];
+    private int length;
+    private long lineNumber;
+    private long lineOffset;        // posição do início da linha no arquivo
+    private long offset;            // posição do próximo byte do buffer no arquivo
+
+    /* Se a linha atual já foi lida mas ainda não consumida */
+    private boolean pending;
+
+    private boolean edgeBlocks;
+
+    private int count;
+
+    /**
+     * Abre o arquivo e detecta o formato.
+     *
+     * @throws IOException se o arquivo não puder ser lido.
+     */
+    public GraphStream( Path path ) throws IOException {
+        this.fileName = path.toString();
+        this.channel = FileChannel.open( path, StandardOpenOption.READ );
+        buffer.limit( 0 );
+        try {
+            while ( readLine() ) {
+                if ( isBlank() ) continue;
+                if ( dropPrefix( ">>graph6<<" ) || dropPrefix( ">>sparse6<<" ) ) {
+                    pending = !isBlank();
+                    break;
+                }
+                edgeBlocks = line[0] != ':' && !isGraph6();
+                pending = true;
+                break;
+            }
+        } catch ( IOException e ) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** Se o arquivo foi lido como blocos de listas de arestas. */
+    public boolean isEdgeList() {
+        return edgeBlocks;
+    }
+
+    /** Quantos registros (válidos ou não) já foram lidos. */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Lê o próximo grafo.
+     *
+     * @return      As arestas do grafo, com os vértices de 0 a n-1, ou null no fim do arquivo.
+     * @throws GraphFormatException se o registro for inválido; a próxima chamada lê o seguinte.
+     */
+    public EdgeList next() throws IOException {
+        while ( pending || readLine() ) {
+            pending = false;
+            if ( isBlank() ) continue;
+            count++;
+            if ( edgeBlocks ) return readBlock();
+            if ( line[0] == ':' ) return sparse6();
+            if ( line[0] == ';' ) {
+                throw new GraphFormatException( fileName, lineNumber, lineOffset, "sparse6 incremental (';') nao suportado" );
+            }
+            return graph6();
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Lê a próxima linha para o vetor line. Devolve false no fim do arquivo.
+     * Linhas longas demais são descartadas até o fim com um erro.
+     */
+    private boolean readLine() throws IOException {
+        length = 0;
+        lineOffset = offset;
+        boolean any = false;
+        while ( true ) {
+            if ( !buffer.hasRemaining() ) {
+                buffer.clear();
+                int read = channel.read( buffer );
+                buffer.flip();
+                if ( read == -1 ) {
+                    if ( !any ) return false;
+                    break;
+                }
+                continue;
+            }
+            any = true;
+            byte c = buffer.get();
+            offset++;
+            if ( c == '\n' ) break;
+            if ( length == line.length ) {
+                if ( length == MAX_LINE ) {
+                    skipLine();
+                    lineNumber++;
+                    throw new GraphFormatException( fileName, lineNumber, lineOffset, "linha com mais de " + MAX_LINE + " bytes" );
+                }
+                line = Arrays.copyOf( line, Math.min( 2 * length, MAX_LINE ) );
+            }
+            line[length++] = c;
+        }
+        if ( length > 0 && line[length - 1] == '\r' ) length--;
+        lineNumber++;
+        return true;
+    }
+
+    /* Descarta o resto de uma linha longa demais. */
+    private void skipLine() throws IOException {
+        while ( true ) {
+            if ( !buffer.hasRemaining() ) {
+                buffer.clear();
+                int read = channel.read( buffer );
+                buffer.flip();
+                if ( read == -1 ) return;
+                continue;
+            }
+            offset++;
+            if ( buffer.get() == '\n' ) return;
+        }
+    }
+
+    private boolean isBlank() {
+        for ( int i = 0; i < length; i++ ) {
+            byte c = line[i];
+            if ( c != ' ' && c != '\t' ) return false;
+        }
+        return true;
+    }
+
+    /* Remove o cabeçalho do início da linha, se ele estiver lá; o primeiro grafo vem logo depois dele. */
+    private boolean dropPrefix( String prefix ) {
+        if ( length < prefix.length() ) return false;
+        for ( int i = 0; i < prefix.length(); i++ ) {
+            if ( line[i] != prefix.charAt( i ) ) return false;
+        }
+        length -= prefix.length();
+        lineOffset += prefix.length();
+        System.arraycopy( line, prefix.length(), line, 0, length );
+        return true;
+    }
+
+    private boolean isGraph6() {
+        for ( int i = 0; i < length; i++ ) {
+            if ( line[i] < 63 || line[i] > 126 ) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Lê um bloco de lista de arestas, da linha atual até a próxima linha
+     * em branco, renumerando os rótulos.
+     */
+    private EdgeList readBlock() throws IOException {
+        long blockLine = lineNumber;
+        long blockOffset = lineOffset;
+        VertexInterner labels = new VertexInterner();
+        int[] pairs = new int[64];
+        int size = 0;
+        do {
+            if ( isBlank() ) break;
+            int i = 0;
+            while ( i < length ) {
+                while ( i < length && ( line[i] == ' ' || line[i] == '\t' ) ) i++;
+                int start = i;
+                while ( i < length && line[i] != ' ' && line[i] != '\t' ) i++;
+                if ( i == start ) break;
+                if ( size == pairs.length ) pairs = Arrays.copyOf( pairs, 2 * size );
+                pairs[size++] = intern( labels, line, start, i - start );
+            }
+        } while ( readLine() );
+        if ( size % 2 != 0 ) {
+            throw new GraphFormatException( fileName, blockLine, blockOffset, "aresta incompleta: falta o segundo vertice" );
+        }
+        return new EdgeList( IntBuffer.wrap( pairs, 0, size ), size / 2, labels );
+    }
+
+    private static int intern( VertexInterner labels, byte[] token, int start, int length ) {
+        if ( !VertexInterner.isCanonicalNumber( token, start, length ) ) return labels.intern( token, start, length );
+        int i = start + ( token[start] == '-' ? 1 : 0 );
+        long value = 0;
+        for ( int k = i; k < start + length; k++ ) value = value * 10 + ( token[k] - '0' );
+        return labels.intern( i > start ? -value : value );
+    }
+
+    /**
+     * Decodifica uma linha graph6: o número de vértices seguido do triângulo
+     * superior da matriz de adjacência, coluna a coluna, 6 bits por byte.
+     */
+    private EdgeList graph6() throws GraphFormatException {
+        int[] pos = { 0 };
+        int n = readSize( pos );
+        long bits = (long) n * ( n - 1 ) / 2;
+        long expected = pos[0] + ( bits + 5 ) / 6;
+        if ( length != expected ) {
+            throw new GraphFormatException( fileName, lineNumber, lineOffset,
+                "graph6 com " + n + " vertices deveria ter " + expected + " bytes, mas tem " + length );
+        }
+        int[] pairs = new int[64];
+        int size = 0;
+        long k = 0;
+        for ( int j = 1; j < n; j++ ) {
+            for ( int i = 0; i < j; i++, k++ ) {
+                int b = line[pos[0] + (int) ( k / 6 )] - 63;
+                if ( ( b >> ( 5 - (int) ( k % 6 ) ) & 1 ) == 0 ) continue;
+                if ( size == pairs.length ) pairs = Arrays.copyOf( pairs, 2 * size );
+                pairs[size++] = i;
+                pairs[size++] = j;
+            }
+        }
+        return new EdgeList( IntBuffer.wrap( pairs, 0, size ), size / 2 );
+    }
+
+    /**
+     * Decodifica uma linha sparse6: o número de vértices seguido de uma
+     * sequência de (b, x), com b de 1 bit e x de k bits, onde k é o número
+     * de bits de n-1. b = 1 avança o vértice atual v; se x > v, v passa a
+     * ser x, senão há uma aresta {x, v}.
+     */
+    private EdgeList sparse6() throws GraphFormatException {
+        int[] pos = { 1 };
+        int n = readSize( pos );
+        int k = 0;
+        while ( ( 1L << k ) < n ) k++;
+        long total = 6L * ( length - pos[0] );
+        int start = pos[0];
+        int[] pairs = new int[64];
+        int size = 0;
+        long bit = 0;
+        long v = 0;
+        while ( bit + 1 + k <= total ) {
+            if ( bitAt( start, bit++ ) == 1 ) v++;
+            long x = 0;
+            for ( int i = 0; i < k; i++ ) x = x << 1 | bitAt( start, bit++ );
+            if ( v >= n ) break;
+            if ( x > v ) {
+                v = x;
+            } else {
+                if ( size == pairs.length ) pairs = Arrays.copyOf( pairs, 2 * size );
+                pairs[size++] = (int) x;
+                pairs[size++] = (int) v;
+            }
+        }
+        return new EdgeList( IntBuffer.wrap( pairs, 0, size ), size / 2 );
+    }
+
+    private int bitAt( int start, long bit ) {
+        int b = line[start + (int) ( bit / 6 )] - 63;
+        return b >> ( 5 - (int) ( bit % 6 ) ) & 1;
+    }
+
+    /**
+     * Lê o número de vértices na posição pos[0], em 1, 4 ou 8 bytes, e
+     * avança pos[0] para depois dele.
+     */
+    private int readSize( int[] pos ) throws GraphFormatException {
+        int p = pos[0];
+        for ( int i = p; i < length; i++ ) {
+            if ( line[i] < 63 || line[i] > 126 ) {
+                throw new GraphFormatException( fileName, lineNumber, lineOffset + i, "caractere inesperado '" + (char) ( line[i] & 0xff ) + "'" );
+            }
+        }
+        if ( p >= length ) throw new GraphFormatException( fileName, lineNumber, lineOffset + p, "falta o numero de vertices" );
+        int bytes;
+        if ( line[p] != 126 ) {
+            pos[0] = p + 1;
+            return line[p] - 63;
+        } else if ( p + 1 < length && line[p + 1] != 126 ) {
+            p += 1;
+            bytes = 3;
+        } else {
+            p += 2;
+            bytes = 6;
+        }
+        if ( p + bytes > length ) throw new GraphFormatException( fileName, lineNumber, lineOffset + p, "numero de vertices incompleto" );
+        long n = 0;
+        for ( int i = 0; i < bytes; i++ ) n = n << 6 | ( line[p + i] - 63 );
+        if ( n > Integer.MAX_VALUE ) {
+            throw new GraphFormatException( fileName, lineNumber, lineOffset + p, "grafo com vertices demais: " + n );
+        }
+        pos[0] = p + bytes;
+        return (int) n;
+    }
+
+}
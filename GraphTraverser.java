@@ -1,24 +1,33 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SplittableRandom;
 
 
+/**
+ * Percursos sobre um grafo: bipartição, caminhos, ciclos e divisão em
+ * pedaços.
+ *
+ * O estado de cada busca (grafo resultante, vértice alvo) é local à
+ * chamada, e as marcas de visita e as cores ficam na TraversalWorkspace da
+ * thread, reaproveitada por todos os percursos dela. Assim um mesmo objeto
+ * pode ser usado por várias tarefas ao mesmo tempo. A exceção é walkCycle,
+ * que guarda a posição do percurso no próprio objeto.
+ *
+ * Com um PlanarityBudget, cada busca conta as arestas que examina e cobra
+ * o orçamento a cada PlanarityBudget.CHUNK delas; a busca é abandonada com
+ * PlanarityBudget.Exceeded quando ele acaba.
+ */
 public class GraphTraverser<T> {
     
-    private Grafo<T> grafo;
-
-    private Set<T> searched = new HashSet<T>();
-
-    /** Um map usado para colorir o grafo */
-    private Map<T, Integer> coloring = null;
-
-    /** Variável que guarda o grafo resultante de uma operação */
-    private Grafo<T> result = null;
-
-    /** Vértice alvo. */
-    private T goal = null;
+    private final GraphView<T> grafo;
 
     /** O próximo vértice a ser percorrido (usado para percorrer um ciclo). */
     private T next = null;
@@ -26,46 +35,103 @@ public class GraphTraverser<T> {
     /** O vértice anterior a ser perccorido (usado para percorrer um ciclo). */
     private T prev = null;
 
+    /** O orçamento das buscas, ou null para nenhum limite. */
+    private final PlanarityBudget budget;
+
     /**
      * Construtor para a classe GrafoTraverser.
      * 
      */
-    public GraphTraverser( Grafo<T> grafo ) {
+    public GraphTraverser( GraphView<T> grafo ) {
+        this( grafo, null );
+    }
+
+    /**
+     * @param budget    O orçamento cobrado pelas buscas, ou null.
+     */
+    public GraphTraverser( GraphView<T> grafo, PlanarityBudget budget ) {
         this.grafo = grafo;
+        this.budget = budget;
+    }
+
+    /* Conta um passo de uma busca; a cada CHUNK passos cobra o orçamento e recomeça a contagem. */
+    private int step( int passos ) {
+        if ( budget == null || ++passos < PlanarityBudget.CHUNK ) return passos;
+        budget.charge( passos );
+        return 0;
     }
 
     /**
-     * Função que testa se o grafo é bipartido.
+     * Função que testa se o grafo é bipartido, colorindo cada
+     * componente a partir de um vértice ainda sem cor.
      *
      */
     public boolean eBipartido() {
-        if (grafo.numVertices() == 0) return true;
-        coloring = new HashMap<T, Integer>();
-        return eBipartido(grafo.getVertices().iterator().next(), true);
+        TraversalWorkspace coloring = TraversalWorkspace.get();
+        coloring.begin();
+        for (T v : grafo.getVertices()) {
+            if (coloring.color(v) < 0 && !eBipartido(v, true, coloring)) return false;
+        }
+        return true;
     } 
 
+    /**
+     * Conta os componentes conexos do grafo (um vértice isolado é um
+     * componente), por busca em profundidade com pilha explícita.
+     */
+    public int numComponents() {
+        TraversalWorkspace searched = TraversalWorkspace.get();
+        searched.begin();
+        Deque<T> pilha = new ArrayDeque<T>();
+        int count = 0;
+        int passos = 0;
+        for ( T s : grafo.getVertices() ) {
+            if ( !searched.mark( s ) ) continue;
+            count++;
+            pilha.push( s );
+            while ( !pilha.isEmpty() ) {
+                passos = step( passos );
+                for ( T n : grafo.getNeighbors( pilha.pop() ) ) {
+                    if ( searched.mark( n ) ) pilha.push( n );
+                }
+            }
+        }
+        return count;
+    }
+
     /**
      *Função que testa se o grafo é bipartido
      * O parametro é o proprio grafo, e retorna true se o grafo 
      * for bipartido.
      * Utiliza a propriedade de que um grafo bipartido pode ser
      * colorido com apenas duas cores.
+     * Os vértices a colorir ficam numa pilha explícita junto com a cor
+     * esperada, em vez de chamadas recursivas.
      */
-    private boolean eBipartido(T v, boolean color) {
-        if (coloring.containsKey(v)) {
-            if (!coloring.get(v).equals(color? 1 : 0)) {
-                return false;
+    private boolean eBipartido(T v, boolean color, TraversalWorkspace coloring) {
+        Deque<T> pilha = new ArrayDeque<T>();
+        Deque<Boolean> cores = new ArrayDeque<Boolean>();
+        pilha.push(v);
+        cores.push(color);
+        int passos = 0;
+        while (!pilha.isEmpty()) {
+            passos = step(passos);
+            T u = pilha.pop();
+            boolean c = cores.pop();
+            int cor = coloring.color(u);
+            if (cor >= 0) {
+                if (cor != (c? 1 : 0)) {
+                    return false;
+                }
             } else {
-                return true;
-            }
-        } else {
-            coloring.put(v, color? 1 : 0);
-            boolean bipartite = true;
-            for (T n : grafo.getNeighbors(v)) {
-                bipartite = bipartite && eBipartido(n, !color);
+                coloring.setColor(u, c? 1 : 0);
+                for (T n : grafo.getNeighbors(u)) {
+                    pilha.push(n);
+                    cores.push(!c);
+                }
             }
-            return bipartite;
         }
+        return true;
     }
 
     /**
@@ -92,32 +158,51 @@ public class GraphTraverser<T> {
 
     /**
      * Encontra um caminho viável entre dois vértices do grafo
+     * que não passa pelos vértices de banned (exceto as pontas).
+     * banned é consultado com contains, sem ser copiado, então deve ser
+     * um conjunto, como os vértices de um ciclo.
      *
      */
     public Grafo<T> findPath( T start, T end, Collection<T> banned ) {
-        searched.clear();
-        searched.addAll( banned );
-        result = new Grafo<T>();
-        goal = end;
-        boolean pathFound = findPath( start ); //chama a função acessória findPath
+        TraversalWorkspace searched = TraversalWorkspace.get();
+        searched.begin();
+        Grafo<T> result = new Grafo<T>();
+        boolean pathFound = findPath( start, end, banned, searched, result ); //chama a função acessória findPath
         return pathFound ? result : null;
     }
 
     /**
      * Auxiliar da função encontrar caminho.
-     *
+     * Busca em profundidade com pilha explícita: cada vértice do caminho
+     * atual guarda o iterador dos vizinhos que ainda faltam examinar.
      */
-    private boolean findPath( T v ) {
-        searched.add( v );
-        for ( T n : grafo.getNeighbors( v ) ) {
+    private boolean findPath( T start, T goal, Collection<T> banned, TraversalWorkspace searched, Grafo<T> result ) {
+        Deque<T> caminho = new ArrayDeque<T>();
+        Deque<Iterator<T>> vizinhos = new ArrayDeque<Iterator<T>>();
+        searched.mark( start );
+        caminho.push( start );
+        vizinhos.push( grafo.getNeighbors( start ).iterator() );
+        int passos = 0;
+        while ( !caminho.isEmpty() ) {
+            passos = step( passos );
+            T v = caminho.peek();
+            Iterator<T> it = vizinhos.peek();
+            if ( !it.hasNext() ) {
+                // Nenhum vizinho leva ao alvo: desfaz o último passo.
+                caminho.pop();
+                vizinhos.pop();
+                if ( !caminho.isEmpty() ) result.removeEdge( caminho.peek(), v );
+                continue;
+            }
+            T n = it.next();
             if ( n.equals( goal ) ) {
                 result.addEdge( v, n );
                 return true;
-            } else if ( !searched.contains( n ) ) {
+            } else if ( !searched.isMarked( n ) && !banned.contains( n ) ) {
                 result.addEdge( v, n );
-                boolean pathFound = findPath( n );
-                if ( pathFound ) return true;
-                result.removeEdge( v, n );
+                searched.mark( n );
+                caminho.push( n );
+                vizinhos.push( grafo.getNeighbors( n ).iterator() );
             }
         }
         return false;
@@ -128,28 +213,148 @@ public class GraphTraverser<T> {
      * caso encontre o ciclo ele retorna o vértice.
      */
     public Grafo<T> findCycle() {
-        searched.clear();
-        result = new Grafo<T>();
-        goal = grafo.getVertices().iterator().next();
-        return findCycle( goal ); //chama a função acessória
+        T start = grafo.getVertices().iterator().next();
+        return findCycle( start, new Grafo<T>() ); //chama a função acessória
+    }
+
+    /**
+     * Encontra um ciclo pela estratégia dada.
+     *
+     * @param strategy  Como escolher o ciclo.
+     * @param seed      Semente que escolhe o vértice inicial da busca.
+     * @return          O ciclo, ou null se o grafo não tiver ciclos.
+     */
+    public Grafo<T> findCycle( CycleStrategy strategy, long seed ) {
+        if ( grafo.numVertices() == 0 ) return null;
+        switch ( strategy ) {
+            case PRIMEIRO: return findCycle( startVertex( seed ), new Grafo<T>() );
+            case LONGO:    return fundamentalCycle( startVertex( seed ), false );
+            default:       return fundamentalCycle( maxDegreeVertex(), true );
+        }
+    }
+
+    /* Um vértice sorteado com a semente; sempre o mesmo para o mesmo grafo e a mesma semente. */
+    private T startVertex( long seed ) {
+        int k = new SplittableRandom( seed ).nextInt( grafo.numVertices() );
+        Iterator<T> it = grafo.getVertices().iterator();
+        for ( int i = 0; i < k; i++ ) it.next();
+        return it.next();
+    }
+
+    private T maxDegreeVertex() {
+        T best = null;
+        for ( T v : grafo.getVertices() ) {
+            if ( best == null || grafo.getDegree( v ) > grafo.getDegree( best ) ) best = v;
+        }
+        return best;
+    }
+
+    /**
+     * Busca em profundidade a partir de root que escolhe, entre as arestas
+     * de retorno, a que fecha o ciclo fundamental de maior peso. O peso de
+     * um vértice é 1, ou o seu grau quando byDegree; nesse caso os vizinhos
+     * de maior grau também são visitados primeiro.
+     *
+     * Numa busca em profundidade toda aresta fora da árvore liga um vértice
+     * a um ancestral, e o peso do ciclo que ela fecha é a diferença das
+     * somas de pesos da raiz até as suas pontas, então cada aresta custa O(1).
+     */
+    private Grafo<T> fundamentalCycle( T root, boolean byDegree ) {
+        Map<T, T> parent = new HashMap<T, T>();
+        Map<T, Integer> depth = new HashMap<T, Integer>();
+        Map<T, Long> weight = new HashMap<T, Long>();      // soma dos pesos da raiz até o vértice
+        T bestV = null, bestU = null;
+        long best = 0;
+
+        Deque<T> caminho = new ArrayDeque<T>();
+        Deque<Iterator<T>> vizinhos = new ArrayDeque<Iterator<T>>();
+        depth.put( root, 0 );
+        weight.put( root, (long) weightOf( root, byDegree ) );
+        caminho.push( root );
+        vizinhos.push( neighbors( root, byDegree ) );
+        int passos = 0;
+        while ( !caminho.isEmpty() ) {
+            passos = step( passos );
+            T v = caminho.peek();
+            Iterator<T> it = vizinhos.peek();
+            if ( !it.hasNext() ) {
+                caminho.pop();
+                vizinhos.pop();
+                continue;
+            }
+            T n = it.next();
+            Integer dn = depth.get( n );
+            if ( dn == null ) {
+                parent.put( n, v );
+                depth.put( n, depth.get( v ) + 1 );
+                weight.put( n, weight.get( v ) + weightOf( n, byDegree ) );
+                caminho.push( n );
+                vizinhos.push( neighbors( n, byDegree ) );
+            } else if ( dn < depth.get( v ) - 1 ) {
+                // Aresta de retorno para um ancestral que não é o pai.
+                long w = weight.get( v ) - weight.get( n ) + weightOf( n, byDegree );
+                if ( w > best ) {
+                    best = w;
+                    bestV = v;
+                    bestU = n;
+                }
+            }
+        }
+        if ( bestV == null ) return null;
+
+        Grafo<T> result = new Grafo<T>();
+        result.addEdge( bestV, bestU );
+        for ( T v = bestV; !v.equals( bestU ); v = parent.get( v ) ) {
+            result.addEdge( v, parent.get( v ) );
+        }
+        return result;
+    }
+
+    private int weightOf( T v, boolean byDegree ) {
+        return byDegree ? grafo.getDegree( v ) : 1;
+    }
+
+    /* Os vizinhos de v, em ordem decrescente de grau quando byDegree. */
+    private Iterator<T> neighbors( T v, boolean byDegree ) {
+        if ( !byDegree ) return grafo.getNeighbors( v ).iterator();
+        List<T> lista = new ArrayList<T>( grafo.getNeighbors( v ) );
+        lista.sort( ( a, b ) -> Integer.compare( grafo.getDegree( b ), grafo.getDegree( a ) ) );
+        return lista.iterator();
     }
 
     /**
      * Função privada que cria o ciclo testando se
      * há um caminho possível e se esse caminho forma
-     * um ciclo
+     * um ciclo.
+     * Usa pilha explícita, como findPath.
      */
-    private Grafo<T> findCycle( T v ) {
-        searched.add( v );
-        for ( T n : grafo.getNeighbors( v ) ) {
-            if ( n.equals( goal ) && result.numVertices() > 2 ) {
+    private Grafo<T> findCycle( T start, Grafo<T> result ) {
+        TraversalWorkspace searched = TraversalWorkspace.get();
+        searched.begin();
+        Deque<T> caminho = new ArrayDeque<T>();
+        Deque<Iterator<T>> vizinhos = new ArrayDeque<Iterator<T>>();
+        searched.mark( start );
+        caminho.push( start );
+        vizinhos.push( grafo.getNeighbors( start ).iterator() );
+        int passos = 0;
+        while ( !caminho.isEmpty() ) {
+            passos = step( passos );
+            T v = caminho.peek();
+            Iterator<T> it = vizinhos.peek();
+            if ( !it.hasNext() ) {
+                caminho.pop();
+                vizinhos.pop();
+                if ( !caminho.isEmpty() ) result.removeEdge( caminho.peek(), v );
+                continue;
+            }
+            T n = it.next();
+            if ( n.equals( start ) && result.numVertices() > 2 ) {
                 result.addEdge( v, n );
                 return result;
-            } else if ( !searched.contains( n ) ) {
+            } else if ( searched.mark( n ) ) {
                 result.addEdge( v, n );
-                Grafo<T> completedCycle = findCycle( n );
-                if ( completedCycle != null ) return completedCycle;
-                result.removeEdge( v, n );
+                caminho.push( n );
+                vizinhos.push( grafo.getNeighbors( n ).iterator() );
             }
         }
         return null;
@@ -162,16 +367,29 @@ public class GraphTraverser<T> {
      * @param cycle     Ciclo extraído do grafo
      * @return          O conjunto de todos vértices do grafo
      */
-    public Set<Grafo<T>> splitIntoPieces ( Grafo<T> cycle ) {
-        searched.clear();
+    public Set<Grafo<T>> splitIntoPieces ( GraphView<T> cycle ) {
+        return splitIntoPieces( cycle, cycle.getVertices() );
+    }
+
+    /**
+     * Divide o grafo em pedaços em relação ao ciclo, começando só pelos
+     * vértices de contacts: os vértices do grafo que estão no ciclo. O
+     * ciclo pode ter vértices fora do grafo, que não são percorridos, então
+     * o custo depende do tamanho do grafo e não do ciclo.
+     */
+    public Set<Grafo<T>> splitIntoPieces ( GraphView<T> cycle, Iterable<T> contacts ) {
+        TraversalWorkspace searched = TraversalWorkspace.get();
+        searched.begin();
         Set<Grafo<T>> pieces = new HashSet<Grafo<T>>();
-        for ( T v : cycle.getVertices() ) {
-            searched.add( v );
+        int passos = 0;
+        for ( T v : contacts ) {
+            searched.mark( v );
             for ( T n : grafo.getNeighbors( v ) ) {
-                if (   !searched.contains( n ) && !cycle.hasEdge( n, v ) ) {
-                    result = new Grafo<T>();
+                passos = step( passos );
+                if (   !searched.isMarked( n ) && !cycle.hasEdge( n, v ) ) {
+                    Grafo<T> result = new Grafo<T>();
                     result.addEdge( v, n );
-                    makePiece( cycle, n );
+                    passos = makePiece( cycle, n, searched, result, passos );
                     pieces.add( result );
                 }
             }
@@ -184,19 +402,26 @@ public class GraphTraverser<T> {
      * esse cilco inicia-se.
      *
      * @param cycle     O ciclo extraído do grafo.
-     * @param v         O vértice atual
+     * @param start     O vértice por onde o pedaço começa
      *
-     * @return          Essa parte do grafo
+     * @return          Os passos ainda não cobrados do orçamento
      */
-    private void makePiece( Grafo<T> cycle, T v ) {
-        if ( cycle.hasVertex( v ) ) return;
-        searched.add( v );
-        for (T n : grafo.getNeighbors( v ) ) {
-            if ( !result.hasEdge( n, v ) ) {
-                result.addEdge( v, n );
-                makePiece( cycle, n );
+    private int makePiece( GraphView<T> cycle, T start, TraversalWorkspace searched, Grafo<T> result, int passos ) {
+        Deque<T> pilha = new ArrayDeque<T>();
+        pilha.push( start );
+        while ( !pilha.isEmpty() ) {
+            passos = step( passos );
+            T v = pilha.pop();
+            if ( cycle.hasVertex( v ) ) continue;
+            searched.mark( v );
+            for (T n : grafo.getNeighbors( v ) ) {
+                if ( !result.hasEdge( n, v ) ) {
+                    result.addEdge( v, n );
+                    pilha.push( n );
+                }
             }
         }
+        return passos;
     }
 
 
@@ -0,0 +1,61 @@
+import java.util.Set;
+
+/**
+ * Consultas somente de leitura sobre um grafo.
+ *
+ * Implementada por Grafo e pelas visões que apresentam um grafo derivado
+ * de outros sem copiá-los: a união de dois grafos (union) e um grafo com
+ * algumas arestas escondidas (withoutEdges). As visões consultam os grafos
+ * de origem a cada chamada, então esses grafos não podem ser alterados
+ * enquanto a visão estiver em uso.
+ */
+public interface GraphView<T> {
+
+    /** Visões aninhadas além desta profundidade são copiadas para um Grafo. */
+    int MAX_DEPTH = 4;
+
+    Set<T> getVertices();
+
+    /** Os vizinhos de v, ou null se v não estiver no grafo. */
+    Set<T> getNeighbors( T v );
+
+    /** O grau de v, ou -1 se v não estiver no grafo. */
+    int getDegree( T v );
+
+    boolean hasVertex( T v );
+
+    boolean hasEdge( T v1, T v2 );
+
+    int numVertices();
+
+    int numEdges();
+
+    /**
+     * A união de dois grafos: cada vértice e aresta de a ou de b.
+     * Custa O(1) para construir; as contagens são calculadas na primeira consulta.
+     */
+    static <T> GraphView<T> union( GraphView<T> a, GraphView<T> b ) {
+        return compact( new UnionView<T>( a, b, 1 + Math.max( depth( a ), depth( b ) ) ) );
+    }
+
+    /**
+     * O grafo base sem as arestas de removed, que devem ser arestas do base.
+     * Vértices que ficam sem arestas saem do grafo, como em Grafo.removeEdge.
+     */
+    static <T> GraphView<T> withoutEdges( GraphView<T> base, Grafo<T> removed ) {
+        return compact( new MaskedView<T>( base, removed, 1 + depth( base ) ) );
+    }
+
+    /* Profundidade de aninhamento de uma visão; um Grafo tem profundidade 0. */
+    private static int depth( GraphView<?> g ) {
+        if ( g instanceof UnionView ) return ( (UnionView<?>) g ).depth;
+        if ( g instanceof MaskedView ) return ( (MaskedView<?>) g ).depth;
+        return 0;
+    }
+
+    /* Copia a visão quando o aninhamento fica fundo demais, limitando o custo de cada consulta. */
+    private static <T> GraphView<T> compact( GraphView<T> view ) {
+        return depth( view ) > MAX_DEPTH ? new Grafo<T>( view ) : view;
+    }
+
+}
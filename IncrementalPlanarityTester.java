@@ -0,0 +1,745 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Teste de planaridade incremental, para grafos construídos aresta por
+ * aresta.
+ *
+ * Um grafo é planar se e só se cada um dos seus blocos (componentes
+ * biconexos) é planar, e uma aresta nova só altera o bloco que a recebe.
+ * Os blocos são mantidos sobre uma floresta geradora enraizada: cada aresta
+ * da floresta pertence a um bloco (union-find sobre os blocos) e cada bloco
+ * conhece o seu vértice mais próximo da raiz, o topo.
+ *
+ *  - Uma aresta entre dois componentes é uma ponte e forma um bloco novo;
+ *    a árvore menor é reenraizada no seu extremo e pendurada na outra.
+ *  - Uma aresta dentro de um componente funde num bloco só os blocos do
+ *    caminho entre os seus extremos, achados subindo de topo em topo.
+ *
+ * Cada bloco guarda também uma imersão plana: a rotação das semiarestas em
+ * volta de cada vértice, com as faces numeradas e um índice de (vértice,
+ * face). Se em cada bloco do caminho os dois vértices de ligação estão numa
+ * mesma face, os blocos são colados por essas faces e a aresta nova é
+ * desenhada na face resultante, sem teste algum. Isso custa o menor grau
+ * dos vértices de ligação de cada bloco mais o tamanho da menor parte de
+ * cada face unida ou dividida, e é o caso comum quando as arestas chegam
+ * na ordem de construção de um grafo planar (uma triangulação, por
+ * exemplo, cuja imersão é única).
+ *
+ * Quando a aresta não cabe na imersão guardada, o bloco fundido fica
+ * marcado e isPlanar o testa de novo inteiro pelo teste left-right, que
+ * também devolve uma imersão nova; só esse bloco é testado, não o
+ * componente. Esse é o pior caso de uma pergunta: O(tamanho do bloco).
+ * addEdge em si nunca chama o teste.
+ *
+ * Como a planaridade é monótona, ao achar um bloco não planar a inserção
+ * que quebrou a planaridade é encontrada por busca binária no prefixo das
+ * arestas daquele bloco. Depois disso, as inserções seguintes não fazem
+ * mais nada.
+ */
+public class IncrementalPlanarityTester<T> {
+
+    private static final LRPlanarityTester lr = new LRPlanarityTester();
+
+    private final Map<T, Integer> indice = new HashMap<T, Integer>();
+
+    private final Set<Long> arestas = new HashSet<Long>();
+
+    /* Vértices: union-find dos componentes, com o tamanho na raiz, e a
+       floresta geradora, com a aresta que liga cada vértice ao seu pai */
+    private int[] comp = new int[16];
+    private int[] compSize = new int[16];
+    private int[] treeParent = new int[16];
+    private int[] treeEdge = new int[16];
+
+    /* Marcas das buscas: mark[x] == stamp se x já foi visto na busca atual */
+    private int[] mark = new int[16];
+    private int[] pos = new int[16];
+    private int stamp = 0;
+
+    /* Arestas: extremos, momento da inserção e próxima aresta do mesmo bloco */
+    private int[] from = new int[16];
+    private int[] to = new int[16];
+    private int[] time = new int[16];
+    private int[] next = new int[16];
+    private int m = 0;
+
+    /* Union-find dos blocos, identificados pela aresta que os criou, e
+       dados de cada raiz */
+    private int[] block = new int[16];
+    private int[] numEdges = new int[16];
+    private int[] head = new int[16];           // primeira aresta da lista do bloco
+    private int[] tail = new int[16];           // última aresta da lista do bloco
+    private int[] top = new int[16];            // vértice do bloco mais próximo da raiz
+    private int[] topDart = new int[16];        // semiaresta do bloco que sai do topo
+    private boolean[] dirty = new boolean[16];  // sem imersão desde a última alteração
+    private int[] blockMark = new int[16];
+
+    /* Semiarestas 2e (de from[e] para to[e]) e 2e+1: a seguinte e a anterior
+       em volta do vértice de onde saem, e a face do ângulo que as precede */
+    private int[] rotNext = new int[32];
+    private int[] rotPrev = new int[32];
+    private int[] face = new int[32];
+    private int[] dartMark = new int[32];
+
+    private int[] faceSize = new int[16];
+    private int numFaces = 0;
+
+    /* A semiaresta que sai de cada vértice em cada face dos blocos com imersão */
+    private final FaceIndex faceIndex = new FaceIndex();
+
+    private final List<Integer> dirtyRoots = new ArrayList<Integer>();
+
+    /* Subidas de mergePath: vértices e blocos de cada lado */
+    private int[] subidaU = new int[16];
+    private int[] blocosU = new int[16];
+    private int[] subidaV = new int[16];
+    private int[] blocosV = new int[16];
+
+    /* Blocos do caminho, na ordem de from[e] para to[e], e as semiarestas
+       por onde o caminho entra e sai de cada um */
+    private int[] cadeia = new int[16];
+    private int[] entrada = new int[16];
+    private int[] saida = new int[16];
+
+    /* Semiarestas que mudaram de face na última colagem e a face antiga */
+    private int[] tocadas = new int[16];
+    private int[] faceAntiga = new int[16];
+    private int numTocadas = 0;
+
+    /* Número de chamadas a addEdge */
+    private int insertions = 0;
+
+    /* Índice da inserção que quebrou a planaridade, ou -1 */
+    private int breaking = -1;
+
+    /**
+     * Insere uma aresta. Laços e arestas repetidas são ignorados, mas contam
+     * como inserções na numeração de firstBreakingInsertion.
+     */
+    public void addEdge( T u, T v ) {
+        int t = insertions++;
+        if ( breaking >= 0 || u.equals( v ) ) return;
+        int a = vertex( u ), b = vertex( v );
+        if ( !arestas.add( a < b ? ( (long) a << 32 ) | b : ( (long) b << 32 ) | a ) ) return;
+
+        int e = newEdge( a, b, t );
+        int ca = findComp( a ), cb = findComp( b );
+        if ( ca != cb ) link( e, ca, cb );
+        else mergePath( e );
+    }
+
+    /**
+     * Insere um lote de arestas, a i-ésima de origem.get( i ) a
+     * destino.get( i ), como addEdge, e informa se o grafo continua planar.
+     * Os blocos sem imersão depois do lote são testados uma vez só, no fim.
+     */
+    public boolean addEdges( List<? extends T> origem, List<? extends T> destino ) {
+        if ( origem.size() != destino.size() ) {
+            throw new IllegalArgumentException( "origem e destino com tamanhos diferentes" );
+        }
+        for ( int i = 0; i < origem.size(); i++ ) {
+            addEdge( origem.get( i ), destino.get( i ) );
+        }
+        return isPlanar();
+    }
+
+    /**
+     * Informa se o grafo inserido até agora é planar. Cada bloco que ficou
+     * sem imersão desde a última chamada é testado de novo inteiro, em
+     * O(tamanho do bloco); se todas as arestas couberam nas imersões
+     * guardadas, a chamada custa O(1).
+     */
+    public boolean isPlanar() {
+        if ( breaking >= 0 ) return false;
+        if ( dirtyRoots.isEmpty() ) return true;
+
+        // Todos os blocos marcados são testados, pois a planaridade pode ter
+        // sido quebrada antes em outro bloco.
+        int primeira = -1;
+        for ( int r : dirtyRoots ) {
+            if ( findBlock( r ) != r || !dirty[r] ) continue;
+            int[] edges = blockEdges( r );
+            if ( embed( edges ) ) {
+                dirty[r] = false;
+                continue;
+            }
+            // Os índices das arestas crescem com o tempo de inserção.
+            Arrays.sort( edges );
+            int lo = 1, hi = edges.length;
+            while ( lo < hi ) {
+                int mid = ( lo + hi ) >>> 1;
+                if ( testPrefix( edges, mid ) ) lo = mid + 1;
+                else hi = mid;
+            }
+            int t = time[edges[lo - 1]];
+            if ( primeira < 0 || t < primeira ) primeira = t;
+        }
+        dirtyRoots.clear();
+        if ( primeira >= 0 ) breaking = primeira;
+        return breaking < 0;
+    }
+
+    /**
+     * A inserção (contando de 0, na ordem das chamadas a addEdge) que tornou
+     * o grafo não planar, ou -1 se ele ainda é planar.
+     */
+    public int firstBreakingInsertion() {
+        isPlanar();
+        return breaking;
+    }
+
+    public int numInsertions() {
+        return insertions;
+    }
+
+    /* A aresta e liga dois componentes: é uma ponte e forma um bloco sozinha. */
+    private void link( int e, int ca, int cb ) {
+        int a = from[e], b = to[e];
+        // A árvore menor é reenraizada no seu extremo e pendurada no outro.
+        if ( compSize[ca] < compSize[cb] ) {
+            int c = ca; ca = cb; cb = c;
+            a = to[e]; b = from[e];
+        }
+        reroot( b );
+        treeParent[b] = a;
+        treeEdge[b] = e;
+        comp[cb] = ca;
+        compSize[ca] += compSize[cb];
+
+        numEdges[e] = 1;
+        head[e] = e;
+        tail[e] = e;
+        top[e] = a;
+        topDart[e] = dart( e, a );
+        dirty[e] = false;
+        rotNext[2 * e] = rotPrev[2 * e] = 2 * e;
+        rotNext[2 * e + 1] = rotPrev[2 * e + 1] = 2 * e + 1;
+        int f = newFace( 2 );
+        face[2 * e] = face[2 * e + 1] = f;
+        faceIndex.put( key( a, f ), dart( e, a ) );
+        faceIndex.put( key( b, f ), dart( e, b ) );
+    }
+
+    /* Torna v a raiz da sua árvore, invertendo o caminho até a raiz antiga. */
+    private void reroot( int v ) {
+        int s = nextStamp();
+        int anterior = -1, arestaAnterior = -1;
+        for ( int x = v; x != -1; ) {
+            int pai = treeParent[x], e = treeEdge[x];
+            if ( e != -1 ) {
+                // As arestas de um bloco no caminho são consecutivas; o novo
+                // topo é o vértice delas mais próximo de v.
+                int r = findBlock( e );
+                if ( blockMark[r] != s ) {
+                    blockMark[r] = s;
+                    top[r] = x;
+                    topDart[r] = dart( e, x );
+                }
+            }
+            treeParent[x] = anterior;
+            treeEdge[x] = arestaAnterior;
+            anterior = x;
+            arestaAnterior = e;
+            x = pai;
+        }
+    }
+
+    /*
+     * A aresta e fecha um ciclo no seu componente: funde os blocos do
+     * caminho entre os extremos. As duas subidas andam um bloco por vez,
+     * alternadas, até uma chegar a um vértice já visto pela outra; todo
+     * bloco visitado abaixo desse encontro é fundido, então o custo total
+     * das subidas é proporcional ao número de blocos criados.
+     */
+    private void mergePath( int e ) {
+        int u = from[e], v = to[e];
+        int s = nextStamp();
+        int nu = 0, nv = 0, iu, iv;
+        subidaU[0] = u;
+        subidaV[0] = v;
+        mark[u] = s;
+        pos[u] = 0;
+        mark[v] = s;
+        pos[v] = -1;
+        int x = u, y = v;
+        while ( true ) {
+            if ( treeEdge[x] != -1 ) {
+                int r = findBlock( treeEdge[x] );
+                x = top[r];
+                if ( nu + 2 > subidaU.length ) {
+                    subidaU = Arrays.copyOf( subidaU, 2 * subidaU.length );
+                    blocosU = Arrays.copyOf( blocosU, 2 * blocosU.length );
+                }
+                blocosU[nu++] = r;
+                subidaU[nu] = x;
+                if ( mark[x] == s && pos[x] < 0 ) {
+                    iu = nu;
+                    iv = -1 - pos[x];
+                    break;
+                }
+                mark[x] = s;
+                pos[x] = nu;
+            }
+            if ( treeEdge[y] != -1 ) {
+                int r = findBlock( treeEdge[y] );
+                y = top[r];
+                if ( nv + 2 > subidaV.length ) {
+                    subidaV = Arrays.copyOf( subidaV, 2 * subidaV.length );
+                    blocosV = Arrays.copyOf( blocosV, 2 * blocosV.length );
+                }
+                blocosV[nv++] = r;
+                subidaV[nv] = y;
+                if ( mark[y] == s && pos[y] >= 0 ) {
+                    iu = pos[y];
+                    iv = nv;
+                    break;
+                }
+                mark[y] = s;
+                pos[y] = -1 - nv;
+            }
+        }
+
+        // Monta a cadeia de blocos de u até v. Se as duas subidas chegaram ao
+        // encontro pelo mesmo bloco, o caminho atravessa esse bloco entre os
+        // vértices de onde cada subida entrou nele.
+        boolean mesmo = iu > 0 && iv > 0 && blocosU[iu - 1] == blocosV[iv - 1];
+        if ( iu + iv > cadeia.length ) {
+            cadeia = Arrays.copyOf( cadeia, 2 * ( iu + iv ) );
+            entrada = Arrays.copyOf( entrada, 2 * ( iu + iv ) );
+            saida = Arrays.copyOf( saida, 2 * ( iu + iv ) );
+        }
+        int k = 0;
+        for ( int j = 0; j < iu; j++ ) {
+            int r = blocosU[j];
+            cadeia[k] = r;
+            entrada[k] = dart( treeEdge[subidaU[j]], subidaU[j] );
+            saida[k++] = mesmo && j == iu - 1
+                         ? dart( treeEdge[subidaV[iv - 1]], subidaV[iv - 1] )
+                         : topDart[r];
+        }
+        for ( int j = mesmo ? iv - 2 : iv - 1; j >= 0; j-- ) {
+            int r = blocosV[j];
+            cadeia[k] = r;
+            entrada[k] = topDart[r];
+            saida[k++] = dart( treeEdge[subidaV[j]], subidaV[j] );
+        }
+        int w = subidaU[iu];
+        int wDart = iu > 0 ? topDart[blocosU[iu - 1]] : topDart[blocosV[iv - 1]];
+
+        boolean cabe = true;
+        for ( int i = 0; i < k && cabe; i++ ) {
+            cabe = !dirty[cadeia[i]] && commonFace( i );
+        }
+
+        // Une os blocos no maior deles.
+        int r = cadeia[0];
+        for ( int i = 1; i < k; i++ ) {
+            if ( numEdges[cadeia[i]] > numEdges[r] ) r = cadeia[i];
+        }
+        boolean listado = dirty[r];
+        for ( int i = 0; i < k; i++ ) {
+            int c = cadeia[i];
+            if ( c == r ) continue;
+            block[c] = r;
+            numEdges[r] += numEdges[c];
+            next[tail[r]] = head[c];
+            tail[r] = tail[c];
+            if ( dirty[c] ) dirty[r] = true;
+        }
+        block[e] = r;
+        numEdges[r]++;
+        next[tail[r]] = e;
+        tail[r] = e;
+        top[r] = w;
+        topDart[r] = wDart;
+
+        if ( cabe ) {
+            embedEdge( e, k );
+        } else {
+            dirty[r] = true;
+            if ( !listado ) dirtyRoots.add( r );
+        }
+    }
+
+    /*
+     * Procura uma face do bloco cadeia[i] com os dois vértices de ligação.
+     * As rotações dos dois vértices são percorridas juntas, e cada face de
+     * um é procurada no índice do outro; a busca para quando uma das
+     * rotações acaba. Se achar, troca entrada[i] e saida[i] pelas
+     * semiarestas que saem dos vértices nessa face.
+     */
+    private boolean commonFace( int i ) {
+        int dx = entrada[i], dy = saida[i];
+        int x = tailOf( dx ), y = tailOf( dy );
+        do {
+            int b = faceIndex.get( key( y, face[dx] ) );
+            if ( b != -1 ) {
+                entrada[i] = dx;
+                saida[i] = b;
+                return true;
+            }
+            int a = faceIndex.get( key( x, face[dy] ) );
+            if ( a != -1 ) {
+                entrada[i] = a;
+                saida[i] = dy;
+                return true;
+            }
+            dx = rotNext[dx];
+            dy = rotNext[dy];
+        } while ( dx != entrada[i] && dy != saida[i] );
+        return false;
+    }
+
+    /*
+     * Cola as imersões dos k blocos da cadeia, cada um pela face achada em
+     * commonFace, e desenha a aresta e na face unida, dividindo-a em duas.
+     * Em cada união e na divisão, só a parte menor recebe um número novo.
+     */
+    private void embedEdge( int e, int k ) {
+        int s = nextStamp();
+        numTocadas = 0;
+        int g = face[entrada[0]];
+        for ( int i = 1; i < k; i++ ) {
+            int f = face[entrada[i]];
+            int total = faceSize[f] + faceSize[g];
+            if ( faceSize[f] < faceSize[g] ) {
+                relabel( entrada[i], g, s );
+            } else {
+                relabel( saida[i - 1], f, s );
+                g = f;
+            }
+            faceSize[g] = total;
+            // O bloco i entra na rotação do vértice de corte, no ângulo da face.
+            int b = saida[i - 1], a = entrada[i];
+            int bp = rotPrev[b], ap = rotPrev[a];
+            rotNext[bp] = a;
+            rotPrev[a] = bp;
+            rotNext[ap] = b;
+            rotPrev[b] = ap;
+        }
+
+        int p = 2 * e, q = 2 * e + 1;
+        insertBefore( entrada[0], p );
+        insertBefore( saida[k - 1], q );
+        int dp = p, dq = q, menor, tamanho = 0;
+        while ( true ) {
+            tamanho++;
+            dp = rotNext[dp ^ 1];
+            if ( dp == p ) {
+                menor = p;
+                break;
+            }
+            dq = rotNext[dq ^ 1];
+            if ( dq == q ) {
+                menor = q;
+                break;
+            }
+        }
+        touch( menor == p ? q : p, g, s );
+        faceSize[g] += 2 - tamanho;
+        relabel( menor, newFace( tamanho ), s );
+
+        for ( int i = 0; i < numTocadas; i++ ) {
+            if ( faceAntiga[i] != -1 ) faceIndex.remove( key( tailOf( tocadas[i] ), faceAntiga[i] ) );
+        }
+        for ( int i = 0; i < numTocadas; i++ ) {
+            int d = tocadas[i];
+            faceIndex.put( key( tailOf( d ), face[d] ), d );
+        }
+    }
+
+    /* Passa para a face f todas as semiarestas da face de d. */
+    private void relabel( int d, int f, int s ) {
+        int x = d;
+        do {
+            touch( x, f, s );
+            x = rotNext[x ^ 1];
+        } while ( x != d );
+    }
+
+    /* Muda a face de d, lembrando a antiga para atualizar o índice no fim. */
+    private void touch( int d, int f, int s ) {
+        if ( dartMark[d] != s ) {
+            dartMark[d] = s;
+            if ( numTocadas == tocadas.length ) {
+                tocadas = Arrays.copyOf( tocadas, 2 * numTocadas );
+                faceAntiga = Arrays.copyOf( faceAntiga, 2 * numTocadas );
+            }
+            tocadas[numTocadas] = d;
+            faceAntiga[numTocadas++] = face[d];
+        }
+        face[d] = f;
+    }
+
+    private void insertBefore( int ref, int d ) {
+        int anterior = rotPrev[ref];
+        rotNext[anterior] = d;
+        rotPrev[d] = anterior;
+        rotNext[d] = ref;
+        rotPrev[ref] = d;
+    }
+
+    /*
+     * Testa o bloco formado pelas arestas dadas e, se for planar, guarda a
+     * imersão devolvida pelo teste left-right, com as faces renumeradas.
+     */
+    private boolean embed( int[] edges ) {
+        int k = edges.length;
+        int s = nextStamp();
+        int n = 0;
+        int[] origem = new int[k];
+        int[] destino = new int[k];
+        for ( int i = 0; i < k; i++ ) {
+            int x = from[edges[i]], y = to[edges[i]];
+            if ( mark[x] != s ) {
+                mark[x] = s;
+                pos[x] = n++;
+            }
+            if ( mark[y] != s ) {
+                mark[y] = s;
+                pos[y] = n++;
+            }
+            origem[i] = pos[x];
+            destino[i] = pos[y];
+        }
+        int[] rot = lr.embedding( n, origem, destino );
+        if ( rot == null ) return false;
+
+        for ( int i = 0; i < 2 * k; i++ ) {
+            int d = 2 * edges[i >> 1] + ( i & 1 );
+            int seguinte = 2 * edges[rot[i] >> 1] + ( rot[i] & 1 );
+            rotNext[d] = seguinte;
+            rotPrev[seguinte] = d;
+            if ( face[d] != -1 ) {
+                faceIndex.remove( key( tailOf( d ), face[d] ) );
+                face[d] = -1;
+            }
+        }
+        for ( int i = 0; i < 2 * k; i++ ) {
+            int d = 2 * edges[i >> 1] + ( i & 1 );
+            if ( face[d] != -1 ) continue;
+            int f = newFace( 0 );
+            int x = d;
+            do {
+                face[x] = f;
+                faceIndex.put( key( tailOf( x ), f ), x );
+                faceSize[f]++;
+                x = rotNext[x ^ 1];
+            } while ( x != d );
+        }
+        return true;
+    }
+
+    /* Arestas do bloco de raiz r. */
+    private int[] blockEdges( int r ) {
+        int[] edges = new int[numEdges[r]];
+        int k = 0;
+        for ( int e = head[r]; e != -1; e = next[e] ) edges[k++] = e;
+        return edges;
+    }
+
+    /* Testa a planaridade das primeiras k arestas da lista. */
+    private boolean testPrefix( int[] edges, int k ) {
+        int s = nextStamp();
+        int n = 0;
+        int[] origem = new int[k];
+        int[] destino = new int[k];
+        for ( int i = 0; i < k; i++ ) {
+            int x = from[edges[i]], y = to[edges[i]];
+            if ( mark[x] != s ) {
+                mark[x] = s;
+                pos[x] = n++;
+            }
+            if ( mark[y] != s ) {
+                mark[y] = s;
+                pos[y] = n++;
+            }
+            origem[i] = pos[x];
+            destino[i] = pos[y];
+        }
+        return lr.isPlanar( n, origem, destino );
+    }
+
+    private int vertex( T v ) {
+        Integer id = indice.get( v );
+        if ( id != null ) return id;
+        int x = indice.size();
+        indice.put( v, x );
+        if ( x == comp.length ) {
+            int size = 2 * x;
+            comp = Arrays.copyOf( comp, size );
+            compSize = Arrays.copyOf( compSize, size );
+            treeParent = Arrays.copyOf( treeParent, size );
+            treeEdge = Arrays.copyOf( treeEdge, size );
+            mark = Arrays.copyOf( mark, size );
+            pos = Arrays.copyOf( pos, size );
+        }
+        comp[x] = x;
+        compSize[x] = 1;
+        treeParent[x] = -1;
+        treeEdge[x] = -1;
+        return x;
+    }
+
+    private int newEdge( int a, int b, int t ) {
+        int e = m++;
+        if ( e == from.length ) {
+            int size = 2 * e;
+            from = Arrays.copyOf( from, size );
+            to = Arrays.copyOf( to, size );
+            time = Arrays.copyOf( time, size );
+            next = Arrays.copyOf( next, size );
+            block = Arrays.copyOf( block, size );
+            numEdges = Arrays.copyOf( numEdges, size );
+            head = Arrays.copyOf( head, size );
+            tail = Arrays.copyOf( tail, size );
+            top = Arrays.copyOf( top, size );
+            topDart = Arrays.copyOf( topDart, size );
+            dirty = Arrays.copyOf( dirty, size );
+            blockMark = Arrays.copyOf( blockMark, size );
+            rotNext = Arrays.copyOf( rotNext, 2 * size );
+            rotPrev = Arrays.copyOf( rotPrev, 2 * size );
+            face = Arrays.copyOf( face, 2 * size );
+            dartMark = Arrays.copyOf( dartMark, 2 * size );
+        }
+        from[e] = a;
+        to[e] = b;
+        time[e] = t;
+        next[e] = -1;
+        block[e] = e;
+        face[2 * e] = -1;
+        face[2 * e + 1] = -1;
+        return e;
+    }
+
+    private int newFace( int size ) {
+        if ( numFaces == faceSize.length ) faceSize = Arrays.copyOf( faceSize, 2 * numFaces );
+        faceSize[numFaces] = size;
+        return numFaces++;
+    }
+
+    /* Próximo valor das marcas; ao esgotar os int, as marcas recomeçam. */
+    private int nextStamp() {
+        if ( stamp == Integer.MAX_VALUE ) {
+            Arrays.fill( mark, 0 );
+            Arrays.fill( blockMark, 0 );
+            Arrays.fill( dartMark, 0 );
+            stamp = 0;
+        }
+        return ++stamp;
+    }
+
+    /* A semiaresta de e que sai de x. */
+    private int dart( int e, int x ) {
+        return from[e] == x ? 2 * e : 2 * e + 1;
+    }
+
+    private int tailOf( int d ) {
+        return ( d & 1 ) == 0 ? from[d >> 1] : to[d >> 1];
+    }
+
+    private static long key( int vertice, int face ) {
+        return ( (long) vertice << 32 ) | face;
+    }
+
+    private int findComp( int x ) {
+        while ( comp[x] != x ) {
+            comp[x] = comp[comp[x]];
+            x = comp[x];
+        }
+        return x;
+    }
+
+    private int findBlock( int x ) {
+        while ( block[x] != x ) {
+            block[x] = block[block[x]];
+            x = block[x];
+        }
+        return x;
+    }
+
+    /**
+     * Tabela de espalhamento de long para int com endereçamento aberto
+     * (sondagem linear). A remoção desloca para trás as chaves seguintes, sem
+     * marcas de remoção.
+     */
+    private static final class FaceIndex {
+
+        private static final long EMPTY = -1L;
+
+        private long[] keys = new long[64];
+        private int[] values = new int[64];
+        private int size;
+
+        FaceIndex() {
+            Arrays.fill( keys, EMPTY );
+        }
+
+        /* O valor da chave, ou -1. */
+        int get( long key ) {
+            int mask = keys.length - 1;
+            for ( int i = hash( key ) & mask; keys[i] != EMPTY; i = ( i + 1 ) & mask ) {
+                if ( keys[i] == key ) return values[i];
+            }
+            return -1;
+        }
+
+        void put( long key, int value ) {
+            int mask = keys.length - 1;
+            int i = hash( key ) & mask;
+            while ( keys[i] != EMPTY && keys[i] != key ) i = ( i + 1 ) & mask;
+            if ( keys[i] == EMPTY ) size++;
+            keys[i] = key;
+            values[i] = value;
+            if ( 4L * size > 3L * keys.length ) rehash();
+        }
+
+        void remove( long key ) {
+            int mask = keys.length - 1;
+            int i = hash( key ) & mask;
+            while ( keys[i] != key ) {
+                if ( keys[i] == EMPTY ) return;
+                i = ( i + 1 ) & mask;
+            }
+            // Uma chave seguinte pode ocupar o buraco se ele fica entre a sua
+            // posição de origem e a posição atual.
+            for ( int j = ( i + 1 ) & mask; keys[j] != EMPTY; j = ( j + 1 ) & mask ) {
+                int h = hash( keys[j] ) & mask;
+                if ( ( ( j - h ) & mask ) >= ( ( j - i ) & mask ) ) {
+                    keys[i] = keys[j];
+                    values[i] = values[j];
+                    i = j;
+                }
+            }
+            keys[i] = EMPTY;
+            size--;
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[2 * oldKeys.length];
+            values = new int[2 * oldKeys.length];
+            Arrays.fill( keys, EMPTY );
+            int mask = keys.length - 1;
+            for ( int j = 0; j < oldKeys.length; j++ ) {
+                if ( oldKeys[j] == EMPTY ) continue;
+                int i = hash( oldKeys[j] ) & mask;
+                while ( keys[i] != EMPTY ) i = ( i + 1 ) & mask;
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+
+        private static int hash( long key ) {
+            return (int) ( ( key * 0x9E3779B97F4A7C15L ) >>> 32 );
+        }
+    }
+
+}
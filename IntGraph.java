@@ -0,0 +1,57 @@
+/**
+ * Consultas sobre um grafo não direcionado de vértices inteiros em formato
+ * CSR: os vizinhos de v ficam nas posições neighborStart(v) até
+ * neighborEnd(v)-1, ordenados e sem repetição, e são lidos com neighborAt.
+ *
+ * Implementada por GrafoCSR, com os vetores no heap, e por MappedCSR, com
+ * os vetores num arquivo mapeado em memória, fora do heap. Os percursos de
+ * CSRTraverser e o teste left-right aceitam qualquer uma das duas.
+ */
+public interface IntGraph {
+
+    /**
+     * Função que retorna o limite superior (exclusivo) dos rótulos de vértices.
+     * Todos os vértices estão em 0..vertexBound()-1; rótulos sem arestas
+     * nesse intervalo não contam como vértices.
+     */
+    int vertexBound();
+
+    /** Função que retorna o número de vértices com pelo menos uma aresta. */
+    int numVertices();
+
+    /** Função que retorna o número de arestas do grafo. */
+    int numEdges();
+
+    /**
+     * Função que retorna o grau de um vértice fornecido.
+     * Quando a função retorna -1 significa que o vértice informado não existe no grafo.
+     */
+    int getDegree( int v );
+
+    /** Função booleana que verifica se o vértice informado existe no grafo. */
+    boolean hasVertex( int v );
+
+    /** Verifica se a aresta fornecida está presente no grafo. */
+    boolean hasEdge( int v1, int v2 );
+
+    /** Posição do primeiro vizinho de v, para uso com neighborAt. */
+    int neighborStart( int v );
+
+    /** Posição seguinte ao último vizinho de v. */
+    int neighborEnd( int v );
+
+    /** O vizinho guardado na posição i (entre neighborStart e neighborEnd de algum vértice). */
+    int neighborAt( int i );
+
+    /** Converte para a representação por mapa de adjacências. */
+    default Grafo<Integer> toGrafo() {
+        Grafo<Integer> grafo = new Grafo<Integer>();
+        for ( int v = 0; v < vertexBound(); v++ ) {
+            for ( int i = neighborStart( v ); i < neighborEnd( v ); i++ ) {
+                if ( neighborAt( i ) > v ) grafo.addEdge( v, neighborAt( i ) );
+            }
+        }
+        return grafo;
+    }
+
+}
@@ -0,0 +1,81 @@
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Verificador de certificados de não planaridade.
+ *
+ * Confirma, em tempo linear no tamanho do certificado, que ele é um
+ * subgrafo do grafo original e uma subdivisão de K5 ou K3,3. Isso é muito
+ * mais barato do que testar a planaridade de novo.
+ */
+public class KuratowskiChecker {
+
+    /**
+     * Verifica o certificado.
+     *
+     * @param witness   O subgrafo apresentado como certificado.
+     * @param grafo     O grafo original.
+     * @return          "K5" ou "K3,3" conforme o tipo do certificado, ou null se ele for inválido.
+     */
+    public static <T> String check( Grafo<T> witness, Grafo<T> grafo ) {
+        if ( witness == null || witness.numVertices() == 0 ) return null;
+
+        // Todas as arestas do certificado devem existir no grafo.
+        for ( T v : witness.getVertices() ) {
+            for ( T u : witness.getNeighbors( v ) ) {
+                if ( !grafo.hasEdge( v, u ) ) return null;
+            }
+        }
+
+        // Vértices de grau 2 são internos aos caminhos; os demais são os vértices principais.
+        int branches = 0;
+        int branchDegree = -1;
+        for ( T v : witness.getVertices() ) {
+            int degree = witness.getDegree( v );
+            if ( degree == 2 ) continue;
+            if ( branchDegree == -1 ) branchDegree = degree;
+            if ( degree != branchDegree ) return null;
+            branches++;
+        }
+        String tipo;
+        if ( branches == 5 && branchDegree == 4 ) tipo = "K5";
+        else if ( branches == 6 && branchDegree == 3 ) tipo = "K3,3";
+        else return null;
+
+        // Percorre cada caminho entre vértices principais e monta o grafo que sobra
+        // ao suprimir os vértices de grau 2.
+        Grafo<T> reduced = new Grafo<T>();
+        Set<T> interior = new HashSet<T>();
+        int paths = 0;
+        for ( T b : witness.getVertices() ) {
+            if ( witness.getDegree( b ) == 2 ) continue;
+            for ( T n : witness.getNeighbors( b ) ) {
+                T prev = b;
+                T curr = n;
+                while ( witness.getDegree( curr ) == 2 ) {
+                    interior.add( curr );
+                    T next = null;
+                    for ( T u : witness.getNeighbors( curr ) ) {
+                        if ( !u.equals( prev ) ) next = u;
+                    }
+                    prev = curr;
+                    curr = next;
+                }
+                if ( curr.equals( b ) ) return null;        // o caminho volta ao início
+                reduced.addEdge( b, curr );
+                paths++;
+            }
+        }
+
+        // Cada caminho foi percorrido uma vez de cada ponta; caminhos paralelos
+        // ou vértices de grau 2 fora dos caminhos invalidam o certificado.
+        if ( reduced.numEdges() * 2 != paths ) return null;
+        if ( interior.size() + branches != witness.numVertices() ) return null;
+
+        if ( tipo.equals( "K5" ) ) {
+            return reduced.numEdges() == 10 ? tipo : null;
+        }
+        return reduced.numEdges() == 9 && Grafo.eBipartido( reduced ) ? tipo : null;
+    }
+
+}
@@ -0,0 +1,121 @@
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Extrai de um grafo não planar um subgrafo que é subdivisão de K5 ou de
+ * K3,3 (um subgrafo de Kuratowski), que serve de certificado da resposta
+ * "Nao planar!".
+ *
+ * Usa o teste left-right como oráculo: primeiro restringe a busca a um
+ * bloco biconexo não planar e ao menor prefixo não planar da sua lista de
+ * arestas (por busca binária), e depois remove arestas em blocos de
+ * tamanho adaptativo enquanto o grafo continuar não planar. Quando nenhuma
+ * aresta pode ser removida, o que sobra é minimamente não planar e
+ * portanto uma subdivisão de K5 ou K3,3.
+ */
+public class KuratowskiExtractor {
+
+    private static final LRPlanarityTester lr = new LRPlanarityTester();
+
+    /**
+     * Encontra um subgrafo de Kuratowski.
+     *
+     * @param grafo     O grafo a ser examinado.
+     * @return          Uma subdivisão de K5 ou K3,3 contida no grafo, ou null se o grafo for planar.
+     */
+    public static <T> Grafo<T> extract( Grafo<T> grafo ) {
+        return extract( grafo, null );
+    }
+
+    /**
+     * Como extract( grafo ), com cada teste left-right cobrado do orçamento.
+     *
+     * @param budget    O orçamento, ou null para nenhum limite.
+     * @throws PlanarityBudget.Exceeded se o orçamento acabar antes do fim.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Grafo<T> extract( Grafo<T> grafo, PlanarityBudget budget ) {
+        // Um grafo é planar se todos os seus blocos são; basta olhar um bloco não planar.
+        Grafo<T> block = null;
+        List<Grafo<T>> blocks = BiconnectedComponents.split( grafo );
+        for ( Grafo<T> b : blocks ) {
+            if ( b.numEdges() > 1 && !lr.isPlanar( b, budget ) ) {
+                block = b;
+                break;
+            }
+        }
+        if ( block == null ) return null;
+
+        // Numera os vértices e as arestas do bloco.
+        Object[] label = new Object[block.numVertices()];
+        Map<T, Integer> indice = new HashMap<T, Integer>();
+        for ( T v : block.getVertices() ) {
+            label[indice.size()] = v;
+            indice.put( v, indice.size() );
+        }
+        int m = block.numEdges();
+        int[] origem = new int[m];
+        int[] destino = new int[m];
+        int k = 0;
+        for ( T v : block.getVertices() ) {
+            for ( T u : block.getNeighbors( v ) ) {
+                if ( indice.get( u ) > indice.get( v ) ) {
+                    origem[k] = indice.get( v );
+                    destino[k] = indice.get( u );
+                    k++;
+                }
+            }
+        }
+        int n = label.length;
+
+        // Menor prefixo da lista de arestas que ainda é não planar.
+        int lo = 1, hi = m;
+        while ( lo < hi ) {
+            int mid = ( lo + hi ) >>> 1;
+            if ( isPlanar( n, origem, destino, mid, 0, 0, budget ) ) lo = mid + 1;
+            else hi = mid;
+        }
+        int size = lo;
+
+        // Remove blocos de arestas enquanto o grafo continuar não planar. Uma
+        // aresta cuja remoção torna o grafo planar é essencial e fica.
+        int i = 0;
+        int len = 1;
+        while ( i < size ) {
+            int count = Math.min( len, size - i );
+            if ( !isPlanar( n, origem, destino, size, i, count, budget ) ) {
+                System.arraycopy( origem, i + count, origem, i, size - i - count );
+                System.arraycopy( destino, i + count, destino, i, size - i - count );
+                size -= count;
+                len *= 2;
+            } else if ( count == 1 ) {
+                i++;
+            } else {
+                len = Math.max( 1, count / 2 );
+            }
+        }
+
+        Grafo<T> witness = new Grafo<T>();
+        for ( int e = 0; e < size; e++ ) {
+            witness.addEdge( (T) label[origem[e]], (T) label[destino[e]] );
+        }
+        return witness;
+    }
+
+    /**
+     * Testa a planaridade das primeiras size arestas, sem as arestas
+     * [skip, skip+count).
+     */
+    private static boolean isPlanar( int n, int[] origem, int[] destino, int size, int skip, int count,
+                                     PlanarityBudget budget ) {
+        int[] a = new int[size - count];
+        int[] b = new int[size - count];
+        System.arraycopy( origem, 0, a, 0, skip );
+        System.arraycopy( destino, 0, b, 0, skip );
+        System.arraycopy( origem, skip + count, a, skip, size - skip - count );
+        System.arraycopy( destino, skip + count, b, skip, size - skip - count );
+        return lr.isPlanar( n, a, b, budget );
+    }
+
+}
@@ -0,0 +1,659 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Testador de planaridade pelo critério left-right (de Fraysseix e
+ * Rosenstiehl, na formulação de Brandes).
+ *
+ * Executa em tempo O(n+m): uma busca em profundidade orienta as arestas e
+ * calcula os lowpoints, e uma segunda busca verifica se as arestas de retorno
+ * podem ser divididas entre os lados esquerdo e direito sem conflito.
+ * Ambas as buscas usam pilha explícita, então grafos grandes não estouram a
+ * pilha de chamadas. Não exige que o grafo seja conexo ou biconexo.
+ */
+public class LRPlanarityTester implements PlanarityTester {
+
+    /* Maior vetor que a JVM costuma aceitar */
+    private static final int MAX_ARRAY = Integer.MAX_VALUE - 8;
+
+    /**
+     * Maior número de vértices (ou vertexBound) aceito. A pilha das buscas e
+     * a ordenação por aninhamento usam vetores de 2n + 2 posições.
+     */
+    public static final int MAX_VERTICES = ( MAX_ARRAY - 2 ) / 2;
+
+    /**
+     * Converte o grafo para índices inteiros e aplica o teste left-right.
+     */
+    public <T> boolean isPlanar( Grafo<T> grafo ) {
+        return isPlanar( grafo, null );
+    }
+
+    /** Como isPlanar( grafo ), conferindo o orçamento durante as duas buscas. */
+    @Override
+    public <T> boolean isPlanar( Grafo<T> grafo, PlanarityBudget budget ) {
+        Map<T, Integer> indice = new HashMap<T, Integer>();
+        for ( T v : grafo.getVertices() ) {
+            indice.put( v, indice.size() );
+        }
+        int m = 0;
+        for ( T v : grafo.getVertices() ) {
+            int iv = indice.get( v );
+            for ( T u : grafo.getNeighbors( v ) ) {
+                if ( indice.get( u ) > iv ) m++;
+            }
+        }
+        int[] origem = new int[m];
+        int[] destino = new int[m];
+        int e = 0;
+        for ( T v : grafo.getVertices() ) {
+            int iv = indice.get( v );
+            for ( T u : grafo.getNeighbors( v ) ) {
+                int iu = indice.get( u );
+                if ( iu > iv ) {
+                    origem[e] = iv;
+                    destino[e] = iu;
+                    e++;
+                }
+            }
+        }
+        return isPlanar( indice.size(), origem, destino, budget );
+    }
+
+    /**
+     * Testa a planaridade de um grafo em representação CSR, sem converter
+     * os vértices para objetos. O grafo pode estar fora do heap (MappedCSR),
+     * mas o teste copia as arestas e guarda o seu estado no heap: cerca de
+     * 70 bytes por aresta, mais um par de conflito por aresta de retorno na
+     * pilha. Grafos densos demais (m > 3n - 6) são recusados antes disso.
+     */
+    public boolean isPlanar( IntGraph grafo ) {
+        return isPlanar( grafo, null );
+    }
+
+    /** Como isPlanar( grafo ), conferindo o orçamento durante as duas buscas. */
+    public boolean isPlanar( IntGraph grafo, PlanarityBudget budget ) {
+        int m = grafo.numEdges();
+        // Grafos densos demais são recusados antes de qualquer alocação.
+        if ( grafo.numVertices() > 2 && m > 3L * grafo.numVertices() - 6 ) return false;
+        checkSize( grafo.vertexBound(), m );
+        int[] origem = new int[m];
+        int[] destino = new int[m];
+        int e = 0;
+        for ( int v = 0; v < grafo.vertexBound(); v++ ) {
+            for ( int i = grafo.neighborStart( v ); i < grafo.neighborEnd( v ); i++ ) {
+                int u = grafo.neighborAt( i );
+                if ( u > v ) {
+                    origem[e] = v;
+                    destino[e] = u;
+                    e++;
+                }
+            }
+        }
+        return isPlanar( grafo.vertexBound(), origem, destino, budget );
+    }
+
+    /** Como check( grafo, budget ) de PlanarityTester, para um grafo em formato CSR. */
+    public PlanarityResult check( IntGraph grafo, PlanarityBudget budget ) {
+        long inicio = System.nanoTime();
+        try {
+            return PlanarityResult.of( isPlanar( grafo, budget ), budget, inicio );
+        } catch ( PlanarityBudget.Exceeded e ) {
+            return PlanarityResult.unknown( budget, inicio );
+        }
+    }
+
+    /**
+     * Testa a planaridade de um grafo dado por lista de arestas.
+     *
+     * @param n         O número de vértices, numerados de 0 a n-1.
+     * @param origem    O primeiro vértice de cada aresta.
+     * @param destino   O segundo vértice de cada aresta.
+     * @return          true se o grafo for planar.
+     */
+    public boolean isPlanar( int n, int[] origem, int[] destino ) {
+        return isPlanar( n, origem, destino, null );
+    }
+
+    /**
+     * Como isPlanar( n, origem, destino ), cobrando do orçamento cada aresta
+     * examinada pelas buscas, em blocos de PlanarityBudget.CHUNK.
+     *
+     * @param budget    O orçamento, ou null para nenhum limite.
+     * @throws PlanarityBudget.Exceeded se o orçamento acabar antes da resposta.
+     * @throws IllegalArgumentException se n passar de MAX_VERTICES.
+     */
+    public boolean isPlanar( int n, int[] origem, int[] destino, PlanarityBudget budget ) {
+        if ( budget != null ) budget.charge( origem.length );
+        int m = 0;
+        for ( int e = 0; e < origem.length; e++ ) {
+            if ( origem[e] != destino[e] ) m++;     // laços não afetam a planaridade
+        }
+        // Grafos densos demais são recusados antes de qualquer alocação.
+        if ( n > 2 && m > 3L * n - 6 ) return false;
+        checkSize( n, m );
+        return new Execucao( n, m, origem, destino, budget ).testar();
+    }
+
+    /**
+     * Testa a planaridade e, se o grafo for planar, devolve uma imersão
+     * plana: a fase final do algoritmo de Brandes, que ordena as arestas em
+     * volta de cada vértice pelos lados decididos no teste, em tempo O(n+m).
+     *
+     * A aresta e tem as semiarestas 2e (de origem[e] para destino[e]) e
+     * 2e+1 (o sentido contrário). A imersão é dada pela rotação: a posição
+     * d do vetor devolvido guarda a semiaresta seguinte a d, no sentido
+     * horário, em volta do vértice de onde d sai. As faces são os ciclos de
+     * d -> rotacao[d ^ 1].
+     *
+     * O grafo não pode ter laços nem arestas repetidas.
+     *
+     * @return          A rotação, ou null se o grafo não for planar.
+     * @throws IllegalArgumentException se n passar de MAX_VERTICES / 2.
+     */
+    int[] embedding( int n, int[] origem, int[] destino ) {
+        int m = origem.length;
+        if ( n > 2 && m > 3L * n - 6 ) return null;
+        // A ordenação pelo aninhamento com sinal usa um vetor de 4n + 2 posições.
+        if ( n > MAX_VERTICES / 2 ) {
+            throw new IllegalArgumentException( "Grafo grande demais para a imersao: " + n
+                                                + " vertices, o maximo e " + MAX_VERTICES / 2 );
+        }
+        checkSize( n, m );
+        return new Execucao( n, m, origem, destino, null ).embedding();
+    }
+
+    /*
+     * Recusa grafos cujos vetores não cabem num int: 2n + 2 posições para a
+     * pilha e 2m para a lista de adjacência. Sem isso as contas estourariam
+     * e o teste responderia errado ou falharia com um tamanho negativo.
+     */
+    private static void checkSize( long n, long m ) {
+        if ( n > MAX_VERTICES ) {
+            throw new IllegalArgumentException( "Grafo grande demais para o teste left-right: vertexBound " + n
+                                                + ", o maximo e " + MAX_VERTICES );
+        }
+        if ( 2 * m > MAX_ARRAY ) {
+            throw new IllegalArgumentException( "Grafo grande demais para o teste left-right: " + m
+                                                + " arestas, o maximo e " + MAX_ARRAY / 2 );
+        }
+    }
+
+    /** Par de intervalos de arestas de retorno (esquerdo e direito). Valor -1 indica vazio. */
+    private static final class ConflictPair {
+        int lLow = -1, lHigh = -1, rLow = -1, rHigh = -1;
+
+        boolean leftEmpty() { return lLow == -1 && lHigh == -1; }
+
+        boolean rightEmpty() { return rLow == -1 && rHigh == -1; }
+
+        void swap() {
+            int low = lLow, high = lHigh;
+            lLow = rLow; lHigh = rHigh;
+            rLow = low; rHigh = high;
+        }
+    }
+
+    /** Estado de uma execução do teste sobre um grafo. */
+    private static final class Execucao {
+
+        private final int n;
+        private final int m;
+
+        /* Extremidades de cada aresta não direcionada */
+        private final int[] a;
+        private final int[] b;
+
+        /* Lista de adjacência: arestas incidentes a v em adjEdge[adjStart[v]..adjStart[v+1]) */
+        private final int[] adjStart;
+        private final int[] adjEdge;
+
+        /* Orientação dada pela primeira busca */
+        private final int[] src;
+        private final int[] tgt;
+        private final boolean[] oriented;
+
+        private final int[] height;
+        private final int[] parentEdge;
+        private final int[] lowpt;
+        private final int[] lowpt2;
+        private final int[] nesting;
+
+        /* Arestas de saída de cada vértice, ordenadas pela profundidade de aninhamento */
+        private int[] outStart;
+        private int[] outEdge;
+
+        private final int[] ref;
+        private final int[] lowptEdge;
+        private final ConflictPair[] stackBottom;
+        private final ArrayList<ConflictPair> S = new ArrayList<ConflictPair>();
+
+        /* Pilha explícita usada pelas duas buscas */
+        private final int[] stack;
+
+        /* Raízes das buscas, uma por componente */
+        private int[] roots;
+        private int numRoots;
+
+        /* Lado de cada aresta (1 ou -1), guardado só quando a imersão é pedida */
+        private int[] side;
+
+        /* O orçamento, ou null, e os passos ainda não cobrados dele */
+        private final PlanarityBudget budget;
+        private int passos;
+
+        /* m é o número de arestas de origem e destino que não são laços. */
+        Execucao( int n, int m, int[] origem, int[] destino, PlanarityBudget budget ) {
+            this.n = n;
+            this.m = m;
+            this.budget = budget;
+            a = new int[m];
+            b = new int[m];
+            adjStart = new int[n + 1];
+            int k = 0;
+            for ( int e = 0; e < origem.length; e++ ) {
+                if ( origem[e] == destino[e] ) continue;
+                a[k] = origem[e];
+                b[k] = destino[e];
+                adjStart[a[k] + 1]++;
+                adjStart[b[k] + 1]++;
+                k++;
+            }
+            for ( int v = 0; v < n; v++ ) adjStart[v + 1] += adjStart[v];
+            adjEdge = new int[2 * m];
+            int[] pos = new int[n];
+            for ( int e = 0; e < m; e++ ) {
+                adjEdge[adjStart[a[e]] + pos[a[e]]++] = e;
+                adjEdge[adjStart[b[e]] + pos[b[e]]++] = e;
+            }
+
+            src = new int[m];
+            tgt = new int[m];
+            oriented = new boolean[m];
+            height = new int[n];
+            parentEdge = new int[n];
+            lowpt = new int[m];
+            lowpt2 = new int[m];
+            nesting = new int[m];
+            ref = new int[m];
+            lowptEdge = new int[m];
+            stackBottom = new ConflictPair[m];
+            stack = new int[2 * n + 2];
+            Arrays.fill( height, -1 );
+            Arrays.fill( parentEdge, -1 );
+            Arrays.fill( ref, -1 );
+        }
+
+        boolean testar() {
+            roots = new int[n];
+            numRoots = 0;
+            int[] ind = new int[n];
+            boolean[] skipInit = new boolean[m];
+            for ( int v = 0; v < n; v++ ) {
+                if ( height[v] == -1 ) {
+                    height[v] = 0;
+                    roots[numRoots++] = v;
+                    orient( v, ind, skipInit );
+                }
+            }
+            sortByNesting( 0 );
+            ind = new int[n];
+            skipInit = new boolean[m];
+            for ( int i = 0; i < numRoots; i++ ) {
+                if ( !test( roots[i], ind, skipInit ) ) return false;
+            }
+            return true;
+        }
+
+        /* Conta um passo das buscas e cobra o orçamento a cada CHUNK passos. */
+        private void step() {
+            if ( budget != null && ++passos == PlanarityBudget.CHUNK ) {
+                budget.charge( passos );
+                passos = 0;
+            }
+        }
+
+        private int other( int e, int v ) {
+            return a[e] == v ? b[e] : a[e];
+        }
+
+        /**
+         * Primeira busca: orienta as arestas, calcula altura, lowpoints e a
+         * profundidade de aninhamento de cada aresta.
+         */
+        private void orient( int root, int[] ind, boolean[] skipInit ) {
+            int sp = 0;
+            stack[sp++] = root;
+            outer:
+            while ( sp > 0 ) {
+                int v = stack[--sp];
+                int e = parentEdge[v];
+                int deg = adjStart[v + 1] - adjStart[v];
+                while ( ind[v] < deg ) {
+                    step();
+                    int ei = adjEdge[adjStart[v] + ind[v]];
+                    int w = other( ei, v );
+                    if ( !skipInit[ei] ) {
+                        if ( oriented[ei] ) {
+                            ind[v]++;
+                            continue;
+                        }
+                        oriented[ei] = true;
+                        src[ei] = v;
+                        tgt[ei] = w;
+                        lowpt[ei] = height[v];
+                        lowpt2[ei] = height[v];
+                        if ( height[w] == -1 ) {
+                            // Aresta de árvore: volta a v depois de terminar w.
+                            parentEdge[w] = ei;
+                            height[w] = height[v] + 1;
+                            stack[sp++] = v;
+                            stack[sp++] = w;
+                            skipInit[ei] = true;
+                            continue outer;
+                        } else {
+                            // Aresta de retorno.
+                            lowpt[ei] = height[w];
+                        }
+                    }
+
+                    nesting[ei] = 2 * lowpt[ei];
+                    if ( lowpt2[ei] < height[v] ) nesting[ei]++;     // aresta com corda
+
+                    if ( e != -1 ) {
+                        if ( lowpt[ei] < lowpt[e] ) {
+                            lowpt2[e] = Math.min( lowpt[e], lowpt2[ei] );
+                            lowpt[e] = lowpt[ei];
+                        } else if ( lowpt[ei] > lowpt[e] ) {
+                            lowpt2[e] = Math.min( lowpt2[e], lowpt[ei] );
+                        } else {
+                            lowpt2[e] = Math.min( lowpt2[e], lowpt2[ei] );
+                        }
+                    }
+                    ind[v]++;
+                }
+            }
+        }
+
+        /**
+         * Ordena as arestas de saída de cada vértice por profundidade de
+         * aninhamento (counting sort). offset desloca as chaves para que as
+         * profundidades com sinal da imersão, a partir de -offset, fiquem
+         * positivas.
+         */
+        private void sortByNesting( int offset ) {
+            int maxNesting = 2 * n + 2 + offset;
+            int[] bucket = new int[maxNesting + 1];
+            for ( int e = 0; e < m; e++ ) bucket[nesting[e] + offset + 1]++;
+            for ( int i = 0; i < maxNesting; i++ ) bucket[i + 1] += bucket[i];
+            int[] sorted = new int[m];
+            for ( int e = 0; e < m; e++ ) sorted[bucket[nesting[e] + offset]++] = e;
+
+            outStart = new int[n + 1];
+            for ( int e = 0; e < m; e++ ) outStart[src[e] + 1]++;
+            for ( int v = 0; v < n; v++ ) outStart[v + 1] += outStart[v];
+            outEdge = new int[m];
+            int[] pos = new int[n];
+            for ( int i = 0; i < m; i++ ) {
+                int e = sorted[i];
+                outEdge[outStart[src[e]] + pos[src[e]]++] = e;
+            }
+        }
+
+        private ConflictPair top() {
+            return S.isEmpty() ? null : S.get( S.size() - 1 );
+        }
+
+        private ConflictPair pop() {
+            return S.remove( S.size() - 1 );
+        }
+
+        private int lowest( ConflictPair p ) {
+            if ( p.leftEmpty() ) return lowpt[p.rLow];
+            if ( p.rightEmpty() ) return lowpt[p.lLow];
+            return Math.min( lowpt[p.lLow], lowpt[p.rLow] );
+        }
+
+        /** Um intervalo conflita com e se sua aresta mais alta retorna acima do lowpoint de e. */
+        private boolean conflicting( int high, int e ) {
+            return high != -1 && lowpt[high] > lowpt[e];
+        }
+
+        /**
+         * Segunda busca: percorre as arestas na ordem de aninhamento e
+         * mantém a pilha de pares de conflito.
+         */
+        private boolean test( int root, int[] ind, boolean[] skipInit ) {
+            int sp = 0;
+            stack[sp++] = root;
+            outer:
+            while ( sp > 0 ) {
+                int v = stack[--sp];
+                int e = parentEdge[v];
+                int deg = outStart[v + 1] - outStart[v];
+                while ( ind[v] < deg ) {
+                    step();
+                    int ei = outEdge[outStart[v] + ind[v]];
+                    int w = tgt[ei];
+                    if ( !skipInit[ei] ) {
+                        stackBottom[ei] = top();
+                        if ( ei == parentEdge[w] ) {
+                            stack[sp++] = v;
+                            stack[sp++] = w;
+                            skipInit[ei] = true;
+                            continue outer;
+                        } else {
+                            lowptEdge[ei] = ei;
+                            ConflictPair p = new ConflictPair();
+                            p.rLow = ei;
+                            p.rHigh = ei;
+                            S.add( p );
+                        }
+                    }
+
+                    // Integra as novas arestas de retorno.
+                    if ( lowpt[ei] < height[v] ) {
+                        if ( ind[v] == 0 ) {
+                            lowptEdge[e] = lowptEdge[ei];
+                        } else if ( !addConstraints( ei, e ) ) {
+                            return false;
+                        }
+                    }
+                    ind[v]++;
+                }
+                if ( e != -1 ) removeBackEdges( e );
+            }
+            return true;
+        }
+
+        private boolean addConstraints( int ei, int e ) {
+            ConflictPair p = new ConflictPair();
+
+            // Junta as arestas de retorno de ei no lado direito de p.
+            do {
+                ConflictPair q = pop();
+                if ( !q.leftEmpty() ) q.swap();
+                if ( !q.leftEmpty() ) return false;
+                if ( lowpt[q.rLow] > lowpt[e] ) {
+                    if ( p.rightEmpty() ) {
+                        p.rHigh = q.rHigh;
+                    } else {
+                        ref[p.rLow] = q.rHigh;
+                    }
+                    p.rLow = q.rLow;
+                } else {
+                    ref[q.rLow] = lowptEdge[e];
+                }
+            } while ( top() != stackBottom[ei] );
+
+            // Junta as arestas de retorno conflitantes das arestas irmãs anteriores no lado esquerdo.
+            while ( !S.isEmpty()
+                    && ( conflicting( top().lHigh, ei ) || conflicting( top().rHigh, ei ) ) ) {
+                ConflictPair q = pop();
+                if ( conflicting( q.rHigh, ei ) ) q.swap();
+                if ( conflicting( q.rHigh, ei ) ) return false;
+                if ( p.rLow != -1 ) ref[p.rLow] = q.rHigh;
+                if ( q.rLow != -1 ) p.rLow = q.rLow;
+                if ( p.leftEmpty() ) {
+                    p.lHigh = q.lHigh;
+                } else {
+                    ref[p.lLow] = q.lHigh;
+                }
+                p.lLow = q.lLow;
+            }
+
+            if ( !( p.leftEmpty() && p.rightEmpty() ) ) S.add( p );
+            return true;
+        }
+
+        private void removeBackEdges( int e ) {
+            int u = src[e];
+
+            // Descarta os pares inteiros que retornam ao pai u.
+            while ( !S.isEmpty() && lowest( top() ) == height[u] ) {
+                ConflictPair p = pop();
+                if ( side != null && p.lLow != -1 ) side[p.lLow] = -1;
+            }
+
+            // Apara o par restante do topo.
+            if ( !S.isEmpty() ) {
+                ConflictPair p = top();
+                while ( p.lHigh != -1 && tgt[p.lHigh] == u ) {
+                    p.lHigh = ref[p.lHigh];
+                }
+                if ( p.lHigh == -1 && p.lLow != -1 ) {
+                    ref[p.lLow] = p.rLow;
+                    if ( side != null ) side[p.lLow] = -1;
+                    p.lLow = -1;
+                }
+                while ( p.rHigh != -1 && tgt[p.rHigh] == u ) {
+                    p.rHigh = ref[p.rHigh];
+                }
+                if ( p.rHigh == -1 && p.rLow != -1 ) {
+                    ref[p.rLow] = p.lLow;
+                    if ( side != null ) side[p.rLow] = -1;
+                    p.rLow = -1;
+                }
+            }
+
+            // O lado de e é o lado da sua aresta de retorno mais alta.
+            if ( lowpt[e] < height[u] ) {
+                int hl = top().lHigh;
+                int hr = top().rHigh;
+                if ( hl != -1 && ( hr == -1 || lowpt[hl] > lowpt[hr] ) ) {
+                    ref[e] = hl;
+                } else {
+                    ref[e] = hr;
+                }
+            }
+        }
+
+        /** Testa o grafo e, se for planar, monta a rotação descrita em embedding(). */
+        int[] embedding() {
+            side = new int[m];
+            Arrays.fill( side, 1 );
+            if ( !testar() ) return null;
+
+            // O lado final de cada aresta é o produto dos lados na sua cadeia de ref.
+            int[] oldRef = new int[m];
+            Arrays.fill( oldRef, -1 );
+            int[] pilha = new int[2 * m + 1];
+            for ( int e = 0; e < m; e++ ) nesting[e] *= sign( e, pilha, oldRef );
+            sortByNesting( 2 * n );
+
+            int[] next = new int[2 * m];
+            int[] prev = new int[2 * m];
+            int[] first = new int[n];
+            Arrays.fill( first, -1 );
+            for ( int v = 0; v < n; v++ ) {
+                int anterior = -1;
+                for ( int i = outStart[v]; i < outStart[v + 1]; i++ ) {
+                    int d = dart( outEdge[i], v );
+                    if ( anterior == -1 ) {
+                        next[d] = d;
+                        prev[d] = d;
+                        first[v] = d;
+                    } else {
+                        insertAfter( next, prev, anterior, d );
+                    }
+                    anterior = d;
+                }
+            }
+
+            // Cada aresta entra na rotação do seu destino, na ordem da busca.
+            int[] leftRef = new int[n];
+            int[] rightRef = new int[n];
+            int[] ind = new int[n];
+            for ( int i = 0; i < numRoots; i++ ) {
+                int sp = 0;
+                stack[sp++] = roots[i];
+                outer:
+                while ( sp > 0 ) {
+                    int v = stack[--sp];
+                    while ( ind[v] < outStart[v + 1] - outStart[v] ) {
+                        int ei = outEdge[outStart[v] + ind[v]++];
+                        int w = tgt[ei];
+                        int dv = dart( ei, v );
+                        int dw = dv ^ 1;
+                        if ( ei == parentEdge[w] ) {
+                            if ( first[w] == -1 ) {
+                                next[dw] = dw;
+                                prev[dw] = dw;
+                            } else {
+                                insertAfter( next, prev, prev[first[w]], dw );
+                            }
+                            first[w] = dw;
+                            leftRef[v] = dv;
+                            rightRef[v] = dv;
+                            stack[sp++] = v;
+                            stack[sp++] = w;
+                            continue outer;
+                        } else if ( side[ei] == 1 ) {
+                            insertAfter( next, prev, rightRef[w], dw );
+                        } else {
+                            insertAfter( next, prev, prev[leftRef[w]], dw );
+                            if ( first[w] == leftRef[w] ) first[w] = dw;
+                            leftRef[w] = dw;
+                        }
+                    }
+                }
+            }
+            return next;
+        }
+
+        /* A semiaresta de e que sai de v. */
+        private int dart( int e, int v ) {
+            return a[e] == v ? 2 * e : 2 * e + 1;
+        }
+
+        private static void insertAfter( int[] next, int[] prev, int ref, int d ) {
+            int seguinte = next[ref];
+            next[ref] = d;
+            prev[d] = ref;
+            next[d] = seguinte;
+            prev[seguinte] = d;
+        }
+
+        /* Resolve o lado de e seguindo a cadeia de ref, sem recursão. */
+        private int sign( int e, int[] pilha, int[] oldRef ) {
+            int sp = 0;
+            pilha[sp++] = e;
+            while ( sp > 0 ) {
+                int f = pilha[--sp];
+                if ( ref[f] != -1 ) {
+                    pilha[sp++] = f;
+                    pilha[sp++] = ref[f];
+                    oldRef[f] = ref[f];
+                    ref[f] = -1;
+                } else if ( oldRef[f] != -1 ) {
+                    side[f] *= side[oldRef[f]];
+                    oldRef[f] = -1;
+                }
+            }
+            return side[e];
+        }
+    }
+
+}
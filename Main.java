@@ -1,20 +1,238 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
 public class Main {
-    
-    /* Para compilar use o comando javac *.java
-     * Para executar use o comando java Main Entrada\<nomeDoArquivo>
+
+    private static final String USO = "Uso: java Main [-m ap|lr] [-e estrategia] [-r semente] [-k] [-c cache] [-s] Entrada\\<nome do arquivo>\n"
+                                    + "     java Main [-m ap|lr] [-e estrategia] [-r semente] [-c cache] [-s] -b <pasta ou lista de arquivos>\n"
+                                    + "     java Main [-m ap|lr] [-e estrategia] [-r semente] [-c cache] [-s] -g <arquivo com muitos grafos>";
+
+    /* Limites do cache de resultados gravado em arquivo */
+    private static final int CACHE_ENTRIES = 10000;
+    private static final long CACHE_EDGES = 50000000L;
+
+    /* Para compilar use o comando javac *.java (ou mvn package, que gera target/planaridade-1.0-SNAPSHOT.jar)
+     * Para executar use o comando java Main [-m ap|lr] Entrada\<nomeDoArquivo>
+     * Os vértices do arquivo podem ter rótulos quaisquer (números ou textos sem
+     * espaços); eles são renumerados de 0 a n-1 na leitura e o certificado é
+     * impresso com os rótulos originais.
+     *   -m ap   usa o método recursivo de Auslander-Parter (padrão)
+     *   -m lr   usa o teste left-right, de tempo linear; aceita também arquivos
+     *           CSR gerados por java MappedCSR, lidos fora do heap
+     *   -e      escolha do ciclo inicial de Auslander-Parter: primeiro, longo
+     *           ou grau (padrão); veja CycleStrategy
+     *   -r      semente da escolha do ciclo (padrão 0)
+     *   -k      para grafos não planares, imprime um subgrafo de Kuratowski
+     *           (subdivisão de K5 ou K3,3) como certificado, já verificado
+     *   -b      testa em lote todos os arquivos de uma pasta, ou os listados
+     *           num arquivo (um caminho por linha), imprimindo uma linha por grafo
+     *   -g      testa em lote todos os grafos de um único arquivo, em graph6 ou
+     *           sparse6 (um por linha) ou em blocos de arestas separados por
+     *           linhas em branco, lidos aos poucos enquanto os testes rodam
+     *   -c      guarda os resultados num arquivo de cache e os reaproveita
+     *           quando o mesmo grafo (ou uma renumeração dele) aparece de novo
+     *   -s      imprime na saída de erro um resumo em JSON com o tempo e a
+     *           alocação de cada fase, a profundidade dos níveis, os pedaços
+     *           por nível e os pares de pedaços examinados
      */
     public static void main ( String[] args ) {
-        TestPlanarity testPlanarity = new TestPlanarity();
+        // Check arguments.
+        String metodo = "ap";
+        String estrategia = CycleStrategy.PADRAO.nome();
+        long semente = 0;
+        String arquivo = null;
+        String lote = null;
+        String fluxo = null;
+        String arquivoCache = null;
+        boolean certificado = false;
+        boolean resumo = false;
+        boolean valido = true;
+        for ( int i = 0; i < args.length; i++ ) {
+            if ( args[i].equals( "-m" ) && i + 1 < args.length ) {
+                metodo = args[++i];
+            } else if ( args[i].equals( "-e" ) && i + 1 < args.length ) {
+                estrategia = args[++i];
+            } else if ( args[i].equals( "-r" ) && i + 1 < args.length ) {
+                try {
+                    semente = Long.parseLong( args[++i] );
+                } catch ( NumberFormatException e ) {
+                    valido = false;
+                }
+            } else if ( args[i].equals( "-s" ) ) {
+                resumo = true;
+            } else if ( args[i].equals( "-k" ) ) {
+                certificado = true;
+            } else if ( args[i].equals( "-b" ) && i + 1 < args.length ) {
+                lote = args[++i];
+            } else if ( args[i].equals( "-g" ) && i + 1 < args.length ) {
+                fluxo = args[++i];
+            } else if ( args[i].equals( "-c" ) && i + 1 < args.length ) {
+                arquivoCache = args[++i];
+            } else if ( arquivo == null ) {
+                arquivo = args[i];
+            } else {
+                valido = false;
+            }
+        }
+        PlanarityStats stats = resumo ? new PlanarityStats() : null;
+        TestPlanarity testPlanarity = new TestPlanarity( stats );
+        CycleStrategy strategy = CycleStrategy.forName( estrategia );
+        PlanarityTester tester = metodo.equals( "ap" ) && strategy != null ? new AuslanderParterTester( stats, strategy, semente )
+                                                                           : PlanarityTester.forName( metodo, stats );
+        if ( !valido || tester == null || strategy == null || ( arquivo != null ? 1 : 0 ) + ( lote != null ? 1 : 0 ) + ( fluxo != null ? 1 : 0 ) != 1 ) {
+            System.err.println( USO );
+            System.exit(1);
+        }
+
+        ResultCache cache = null;
+        if ( arquivoCache != null ) {
+            cache = new ResultCache( CACHE_ENTRIES, CACHE_EDGES );
+            try {
+                cache.load( arquivoCache );
+            } catch ( IOException e ) {
+                System.err.println( "Cache \'" + arquivoCache + "\' ignorado: " + e.getMessage() );
+                cache = new ResultCache( CACHE_ENTRIES, CACHE_EDGES );
+            }
+        }
+
+        if ( lote != null || fluxo != null ) {
+            int erros = lote != null ? runBatch( tester, lote, cache ) : runStream( tester, fluxo, cache );
+            saveCache( cache, arquivoCache );
+            if ( stats != null ) System.err.println( stats.toJson() );
+            if ( erros > 0 ) System.exit(1);
+            return;
+        }
+
+        boolean planar = false;
+        Grafo<Integer> witness = null;
+        String tipo = null;
+        EdgeList edges = null;
+        try {
+            GraphFingerprint chave = null;
+            ResultCache.Result cached = null;
+            PlanarityPrefilter.Decisao decisao = null;
+            if ( tester instanceof LRPlanarityTester ) {
+                // O teste left-right roda direto sobre a representação CSR,
+                // que pode ser um arquivo gerado por MappedCSR, lido fora do heap.
+                IntGraph grafo;
+                if ( MappedCSR.isMappedCSR( Paths.get( arquivo ) ) ) {
+                    grafo = MappedCSR.open( Paths.get( arquivo ) );
+                } else {
+                    edges = testPlanarity.readEdgesFromFile( arquivo );
+                    grafo = edges.toCSR();
+                }
+                decisao = testPlanarity.prefilter( grafo );
+                if ( decisao == null && cache != null ) cached = usable( cache.get( chave = GraphFingerprint.of( grafo ) ), certificado );
+                planar = decisao != null ? decisao.isPlanar()
+                       : cached != null  ? cached.isPlanar()
+                                         : testPlanarity.testPlanarity( grafo );
+                if ( !planar && certificado ) {
+                    Grafo<Integer> g = grafo.toGrafo();
+                    witness = cached != null ? cached.<Integer>certificate( chave ) : testPlanarity.findKuratowskiSubgraph( g );
+                    tipo = KuratowskiChecker.check( witness, g );
+                }
+            } else {
+                // O grafo é reduzido e os blocos biconexos do núcleo são testados
+                // separadamente e em paralelo.
+                edges = testPlanarity.readEdgesFromFile( arquivo );
+                Grafo<Integer> grafo = edges.toGrafo();
+                if ( cache != null ) cached = usable( cache.get( chave = GraphFingerprint.of( grafo ) ), certificado );
+                if ( cached != null ) {
+                    planar = cached.isPlanar();
+                } else {
+                    Grafo<Integer> kernel = testPlanarity.reduce( grafo ).kernel();
+                    decisao = testPlanarity.prefilter( kernel );
+                    planar = decisao != null ? decisao.isPlanar()
+                                             : new BlockPlanarityTester( tester, ForkJoinPool.commonPool(), stats ).isPlanar( kernel );
+                }
+                if ( !planar && certificado ) {
+                    witness = cached != null ? cached.<Integer>certificate( chave ) : testPlanarity.findKuratowskiSubgraph( grafo );
+                    tipo = KuratowskiChecker.check( witness, grafo );
+                }
+            }
+            if ( decisao != null ) System.err.println( "Decidido pelo filtro " + decisao.filtro().nome() );
+            if ( cache != null ) {
+                if ( cached == null && chave != null ) cache.put( chave, planar, tipo != null ? witness : null );
+                saveCache( cache, arquivoCache );
+            }
+        } catch ( GraphFormatException e ) {
+            System.err.println( "Erro no arquivo de entrada: " + e.getMessage() );
+            System.exit(1);
+        } catch ( IllegalArgumentException e ) {
+            // Grafo grande demais para o teste escolhido.
+            System.err.println( e.getMessage() );
+            System.exit(1);
+        } catch ( IOException e ) {
+            System.err.println( "Erro ao ler o arquivo de entrada \'" + arquivo + "\'." );
+            System.err.println( USO );
+            System.exit(1);
+        }
+        System.out.println( planar ? "Planar!" : "Nao planar!" );
+        if ( witness != null ) {
+            System.out.println( "Certificado (" + ( tipo != null ? tipo : "invalido" ) + "):" );
+            for ( Integer v : witness.getVertices() ) {
+                for ( Integer u : witness.getNeighbors( v ) ) {
+                    if ( v < u ) System.out.println( label( edges, v ) + " " + label( edges, u ) );
+                }
+            }
+        }
+        if ( stats != null ) System.err.println( stats.toJson() );
+    }
+
+    /* O rótulo original do vértice, quando o arquivo tinha rótulos. */
+    private static String label( EdgeList edges, int v ) {
+        return edges != null ? edges.label( v ) : Integer.toString( v );
+    }
+
+    /* Um resultado do cache só serve se trouxer o certificado, quando ele for pedido. */
+    private static ResultCache.Result usable( ResultCache.Result r, boolean certificado ) {
+        if ( r == null || ( certificado && !r.isPlanar() && !r.hasCertificate() ) ) return null;
+        return r;
+    }
 
-        // Check number of arguments.
-        if ( args.length != 1 ) {
-            System.err.println( "Uso: java TestPlanarity Entrada\\<nome do arquivo>" );
+    /* Grava o cache, se houver, e informa os acertos e faltas na saída de erro. */
+    private static void saveCache( ResultCache cache, String arquivoCache ) {
+        if ( cache == null ) return;
+        try {
+            cache.save( arquivoCache );
+        } catch ( IOException e ) {
+            System.err.println( "Erro ao gravar o cache \'" + arquivoCache + "\'." );
+        }
+        System.err.println( "Cache: " + cache.hits() + " acertos, " + cache.misses() + " faltas" );
+    }
+
+    /* Executa o modo em lote e devolve o número de arquivos que falharam. */
+    private static int runBatch( PlanarityTester tester, String lote, ResultCache cache ) {
+        int erros = 0;
+        try {
+            List<Path> arquivos = BatchRunner.listInputs( lote );
+            erros = new BatchRunner( tester, System.out, 4, Runtime.getRuntime().availableProcessors(), cache ).run( arquivos );
+        } catch ( IOException e ) {
+            System.err.println( "Erro ao ler a lista de arquivos \'" + lote + "\'." );
+            System.exit(1);
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
             System.exit(1);
         }
+        return erros;
+    }
 
-        Grafo<Integer> grafo = testPlanarity.readGraphFromFile(args[0]);
-        Grafo<Integer> cycle = (new GraphTraverser<Integer>( grafo )).findCycle();
-        System.out.println(testPlanarity.testPlanarity(grafo,cycle) ? "Planar!" : "Nao planar!" );
+    /* Executa o modo em lote sobre um arquivo com muitos grafos e devolve o número de grafos que falharam. */
+    private static int runStream( PlanarityTester tester, String fluxo, ResultCache cache ) {
+        int erros = 0;
+        try {
+            erros = new BatchRunner( tester, System.out, 1, Runtime.getRuntime().availableProcessors(), cache ).runStream( Paths.get( fluxo ) );
+        } catch ( IOException e ) {
+            System.err.println( "Erro ao ler o arquivo de grafos \'" + fluxo + "\': " + e.getMessage() );
+            System.exit(1);
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            System.exit(1);
+        }
+        return erros;
     }
 
 
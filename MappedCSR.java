@@ -0,0 +1,480 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Grafo em formato CSR guardado num arquivo mapeado em memória, para
+ * grafos que não cabem no heap.
+ *
+ * O arquivo tem um cabeçalho de 16 bytes ("PLNG", versão 1, vertexBound e
+ * o número de posições de vizinhos, em little-endian), seguido dos vetores
+ * offsets (vertexBound+1 ints) e targets, como em GrafoCSR. O arquivo é
+ * mapeado em pedaços de 1 GB, então o heap guarda só as referências aos
+ * pedaços, qualquer que seja o tamanho do grafo, e o sistema operacional
+ * decide que páginas ficam na memória. As posições são int, o que limita
+ * o grafo a cerca de um bilhão de arestas.
+ *
+ * O arquivo é construído por ordenação externa (build): as arestas são
+ * lidas uma vez e gravadas nos dois sentidos em trechos ordenados de
+ * tamanho limitado, que depois são intercalados, no máximo MAX_FAN_IN de
+ * cada vez, até o arquivo final. A memória usada na construção (o trecho
+ * e os buffers da intercalação) não depende do número de arestas.
+ *
+ * Só o grafo fica fora do heap. O teste left-right sobre ele
+ * (LRPlanarityTester.isPlanar( IntGraph )) monta o seu estado por aresta
+ * no heap, cerca de 70 bytes por aresta: um grafo de 500 milhões de
+ * arestas ainda precisa de dezenas de GB de heap para ser testado.
+ */
+public class MappedCSR implements IntGraph {
+
+    private static final byte[] MAGIC = { 'P', 'L', 'N', 'G' };
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 16;
+
+    /** ints por pedaço mapeado (1 GB) */
+    private static final int CHUNK_SHIFT = 28;
+    private static final int CHUNK_MASK = ( 1 << CHUNK_SHIFT ) - 1;
+
+    /** Posições de vizinhos ordenadas de cada vez na construção (128 MB). */
+    public static final int DEFAULT_RUN = 1 << 24;
+
+    /** Tamanho dos buffers de leitura e gravação dos trechos. */
+    private static final int IO_BUFFER = 1 << 18;
+
+    /** Trechos intercalados de cada vez, cada um com seu buffer (16 MB). */
+    private static final int MAX_FAN_IN = 64;
+
+    private final IntBuffer[] chunks;
+
+    private final int bound;
+
+    private final int arcs;
+
+    private final int numVertices;
+
+    private MappedCSR( IntBuffer[] chunks, int bound, int arcs, int numVertices ) {
+        this.chunks = chunks;
+        this.bound = bound;
+        this.arcs = arcs;
+        this.numVertices = numVertices;
+    }
+
+    /**
+     * Mapeia um arquivo gravado por build.
+     *
+     * @throws GraphFormatException se o arquivo não estiver no formato esperado.
+     */
+    public static MappedCSR open( Path path ) throws IOException {
+        try ( FileChannel channel = FileChannel.open( path, StandardOpenOption.READ ) ) {
+            ByteBuffer head = ByteBuffer.allocate( HEADER_SIZE ).order( ByteOrder.LITTLE_ENDIAN );
+            while ( head.hasRemaining() && channel.read( head, head.position() ) > 0 ) { }
+            head.flip();
+            String nome = path.toString();
+            if ( head.remaining() < HEADER_SIZE || !isMagic( head ) ) {
+                throw new GraphFormatException( nome, 1, 0, "nao e um arquivo CSR mapeado" );
+            }
+            int version = head.getInt( 4 );
+            if ( version != VERSION ) {
+                throw new GraphFormatException( nome, 1, 4, "versao do formato CSR desconhecida: " + version );
+            }
+            int bound = head.getInt( 8 );
+            int arcs = head.getInt( 12 );
+            long ints = (long) bound + 1 + arcs;
+            if ( bound < 0 || arcs < 0 || channel.size() != HEADER_SIZE + 4 * ints ) {
+                throw new GraphFormatException( nome, 1, 8,
+                    "o cabecalho declara " + bound + " vertices e " + arcs + " posicoes mas o arquivo tem " + channel.size() + " bytes" );
+            }
+            IntBuffer[] chunks = new IntBuffer[(int) ( ( ints + CHUNK_MASK ) >>> CHUNK_SHIFT )];
+            for ( int c = 0; c < chunks.length; c++ ) {
+                long first = (long) c << CHUNK_SHIFT;
+                long size = Math.min( ints - first, 1L << CHUNK_SHIFT );
+                chunks[c] = channel.map( FileChannel.MapMode.READ_ONLY, HEADER_SIZE + 4 * first, 4 * size )
+                                   .order( ByteOrder.LITTLE_ENDIAN ).asIntBuffer();
+            }
+            MappedCSR grafo = new MappedCSR( chunks, bound, arcs, 0 );
+            int count = 0;
+            for ( int v = 0; v < bound; v++ ) {
+                if ( grafo.neighborEnd( v ) > grafo.neighborStart( v ) ) count++;
+            }
+            return new MappedCSR( chunks, bound, arcs, count );
+        }
+    }
+
+    /** Se o arquivo começa com o cabeçalho de um CSR mapeado. */
+    public static boolean isMappedCSR( Path path ) throws IOException {
+        try ( FileChannel channel = FileChannel.open( path, StandardOpenOption.READ ) ) {
+            ByteBuffer head = ByteBuffer.allocate( MAGIC.length );
+            while ( head.hasRemaining() && channel.read( head, head.position() ) > 0 ) { }
+            head.flip();
+            return head.remaining() == MAGIC.length && isMagic( head );
+        }
+    }
+
+    private static boolean isMagic( ByteBuffer head ) {
+        for ( int i = 0; i < MAGIC.length; i++ ) {
+            if ( head.get( i ) != MAGIC[i] ) return false;
+        }
+        return true;
+    }
+
+    private int intAt( long index ) {
+        return chunks[(int) ( index >>> CHUNK_SHIFT )].get( (int) ( index & CHUNK_MASK ) );
+    }
+
+    public int vertexBound() {
+        return bound;
+    }
+
+    public int numVertices() {
+        return numVertices;
+    }
+
+    public int numEdges() {
+        return arcs / 2;
+    }
+
+    public int getDegree( int v ) {
+        if ( !hasVertex( v ) ) return -1;
+        return neighborEnd( v ) - neighborStart( v );
+    }
+
+    public boolean hasVertex( int v ) {
+        return v >= 0 && v < bound && neighborEnd( v ) > neighborStart( v );
+    }
+
+    /** Verifica se a aresta fornecida está presente no grafo, por busca binária. */
+    public boolean hasEdge( int v1, int v2 ) {
+        if ( !hasVertex( v1 ) ) return false;
+        int lo = neighborStart( v1 ), hi = neighborEnd( v1 ) - 1;
+        while ( lo <= hi ) {
+            int mid = ( lo + hi ) >>> 1;
+            int u = neighborAt( mid );
+            if ( u < v2 ) lo = mid + 1;
+            else if ( u > v2 ) hi = mid - 1;
+            else return true;
+        }
+        return false;
+    }
+
+    public int neighborStart( int v ) {
+        return intAt( v );
+    }
+
+    public int neighborEnd( int v ) {
+        return intAt( v + 1L );
+    }
+
+    public int neighborAt( int i ) {
+        return intAt( bound + 1L + i );
+    }
+
+    /**
+     * Constrói o arquivo a partir de uma lista de arestas, com trechos do
+     * tamanho padrão. Arestas repetidas e laços são descartados.
+     *
+     * @param edges     As arestas; os vértices devem ser inteiros não negativos.
+     * @param out       O arquivo a gravar.
+     * @return          O grafo gravado, já mapeado.
+     */
+    public static MappedCSR build( EdgeList edges, Path out ) throws IOException {
+        return build( edges, out, DEFAULT_RUN );
+    }
+
+    /**
+     * Constrói o arquivo a partir de uma lista de arestas.
+     *
+     * @param run       Quantas posições de vizinhos são ordenadas de cada vez
+     *                  na memória; a construção usa cerca de 8 bytes por posição.
+     */
+    public static MappedCSR build( EdgeList edges, Path out, int run ) throws IOException {
+        try ( Sorter sorter = new Sorter( out, run ) ) {
+            for ( int e = 0; e < edges.size(); e++ ) sorter.add( edges.source( e ), edges.target( e ) );
+            sorter.finish();
+        }
+        return open( out );
+    }
+
+    /**
+     * Constrói o arquivo a partir de um arquivo de arestas. O formato binário
+     * do EdgeListLoader é lido aos poucos, sem limite de tamanho; o formato
+     * texto é lido inteiro com EdgeListLoader.loadLabeled e os vértices são
+     * renumerados.
+     */
+    public static MappedCSR build( String fileName, Path out, int run ) throws IOException {
+        Path path = Paths.get( fileName );
+        if ( !EdgeListLoader.isBinary( path ) ) return build( EdgeListLoader.loadLabeled( fileName ), out, run );
+        try ( Sorter sorter = new Sorter( out, run );
+              FileChannel channel = FileChannel.open( path, StandardOpenOption.READ ) ) {
+            long m = EdgeListLoader.binaryEdgeCount( fileName, channel );
+            ByteBuffer buffer = ByteBuffer.allocate( IO_BUFFER ).order( ByteOrder.LITTLE_ENDIAN );
+            channel.position( EdgeListLoader.HEADER_SIZE );
+            for ( long e = 0; e < m; ) {
+                buffer.clear();
+                buffer.limit( (int) Math.min( buffer.capacity(), 8 * ( m - e ) ) );
+                while ( buffer.hasRemaining() && channel.read( buffer ) > 0 ) { }
+                buffer.flip();
+                for ( ; buffer.remaining() >= 8; e++ ) sorter.add( buffer.getInt(), buffer.getInt() );
+            }
+            sorter.finish();
+        }
+        return open( out );
+    }
+
+    /**
+     * Ordenação externa das posições de vizinhos, codificadas em long como
+     * (origem << 32 | destino), para que a ordem numérica seja a ordem do CSR.
+     */
+    private static final class Sorter implements AutoCloseable {
+
+        private final Path out;
+
+        private final long[] buffer;
+        private int size;
+
+        private final List<Path> runs = new ArrayList<Path>();
+
+        private int bound;
+
+        Sorter( Path out, int run ) {
+            this.out = out;
+            this.buffer = new long[Math.max( 2, run )];
+        }
+
+        void add( int u, int v ) throws IOException {
+            if ( u < 0 || v < 0 ) {
+                throw new IllegalArgumentException( "Vertice negativo na aresta " + u + " " + v );
+            }
+            bound = Math.max( bound, Math.max( u, v ) + 1 );
+            if ( u == v ) return;
+            put( (long) u << 32 | v );
+            put( (long) v << 32 | u );
+        }
+
+        private void put( long arc ) throws IOException {
+            if ( size == buffer.length ) spill();
+            buffer[size++] = arc;
+        }
+
+        /* Ordena o que está na memória e grava como um trecho, sem repetições. */
+        private void spill() throws IOException {
+            Arrays.sort( buffer, 0, size );
+            Path run = Files.createTempFile( tempDir(), "csr-", ".run" );
+            runs.add( run );
+            try ( FileChannel channel = FileChannel.open( run, StandardOpenOption.WRITE ) ) {
+                ByteBuffer bytes = ByteBuffer.allocate( IO_BUFFER ).order( ByteOrder.LITTLE_ENDIAN );
+                for ( int i = 0; i < size; i++ ) {
+                    if ( i > 0 && buffer[i] == buffer[i - 1] ) continue;
+                    if ( !bytes.hasRemaining() ) write( channel, bytes );
+                    bytes.putLong( buffer[i] );
+                }
+                write( channel, bytes );
+            }
+            size = 0;
+        }
+
+        private Path tempDir() {
+            Path dir = out.toAbsolutePath().getParent();
+            return dir != null ? dir : Paths.get( "." );
+        }
+
+        /**
+         * Intercala os trechos e grava o arquivo final: os offsets a partir
+         * do cabeçalho e os vizinhos logo depois, cada um com seu buffer.
+         * Com mais de MAX_FAN_IN trechos, eles são antes intercalados em
+         * grupos de MAX_FAN_IN, em passadas, até sobrarem no máximo
+         * MAX_FAN_IN; assim os arquivos abertos e os buffers de leitura não
+         * crescem com o número de arestas.
+         */
+        void finish() throws IOException {
+            if ( size > 0 || runs.isEmpty() ) spill();
+            List<Path> pending = new ArrayList<Path>( runs );
+            while ( pending.size() > MAX_FAN_IN ) {
+                List<Path> merged = new ArrayList<Path>();
+                for ( int i = 0; i < pending.size(); i += MAX_FAN_IN ) {
+                    List<Path> group = pending.subList( i, Math.min( i + MAX_FAN_IN, pending.size() ) );
+                    merged.add( group.size() == 1 ? group.get( 0 ) : merge( group ) );
+                }
+                pending = merged;
+            }
+            Path tmp = out.resolveSibling( out.getFileName() + ".tmp" );
+            try ( FileChannel channel = FileChannel.open( tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                                          StandardOpenOption.WRITE ) ) {
+                IntWriter offsets = new IntWriter( channel, HEADER_SIZE );
+                IntWriter targets = new IntWriter( channel, HEADER_SIZE + 4L * ( bound + 1 ) );
+                PriorityQueue<RunReader> heap = open( pending );
+                long arcs = 0;
+                long last = -1;
+                int next = 0;                   // próximo vértice cujo offset será gravado
+                while ( !heap.isEmpty() ) {
+                    RunReader r = heap.poll();
+                    long arc = r.head;
+                    if ( r.next() ) heap.add( r );
+                    else r.close();
+                    if ( arc == last ) continue;
+                    last = arc;
+                    int u = (int) ( arc >>> 32 );
+                    while ( next <= u ) {
+                        offsets.put( (int) arcs );
+                        next++;
+                    }
+                    targets.put( (int) arc );
+                    if ( ++arcs > Integer.MAX_VALUE ) throw new IOException( "arestas demais para o formato CSR" );
+                }
+                while ( next <= bound ) {
+                    offsets.put( (int) arcs );
+                    next++;
+                }
+                offsets.flush();
+                targets.flush();
+
+                ByteBuffer head = ByteBuffer.allocate( HEADER_SIZE ).order( ByteOrder.LITTLE_ENDIAN );
+                head.put( MAGIC ).putInt( VERSION ).putInt( bound ).putInt( (int) arcs ).flip();
+                while ( head.hasRemaining() ) channel.write( head, head.position() );
+            } catch ( IOException | RuntimeException e ) {
+                Files.deleteIfExists( tmp );
+                throw e;
+            }
+            Files.move( tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+        }
+
+        /* Intercala um grupo de trechos num trecho novo, sem repetições, e apaga os do grupo. */
+        private Path merge( List<Path> group ) throws IOException {
+            Path run = Files.createTempFile( tempDir(), "csr-", ".run" );
+            runs.add( run );
+            PriorityQueue<RunReader> heap = open( group );
+            try ( FileChannel channel = FileChannel.open( run, StandardOpenOption.WRITE ) ) {
+                ByteBuffer bytes = ByteBuffer.allocate( IO_BUFFER ).order( ByteOrder.LITTLE_ENDIAN );
+                long last = -1;
+                while ( !heap.isEmpty() ) {
+                    RunReader r = heap.poll();
+                    long arc = r.head;
+                    if ( r.next() ) heap.add( r );
+                    else r.close();
+                    if ( arc == last ) continue;
+                    last = arc;
+                    if ( !bytes.hasRemaining() ) write( channel, bytes );
+                    bytes.putLong( arc );
+                }
+                write( channel, bytes );
+            } finally {
+                for ( RunReader r : heap ) r.close();
+            }
+            for ( Path p : group ) Files.deleteIfExists( p );
+            return run;
+        }
+
+        /* Abre os trechos, já posicionados na primeira posição; os vazios são fechados. */
+        private static PriorityQueue<RunReader> open( List<Path> group ) throws IOException {
+            PriorityQueue<RunReader> heap = new PriorityQueue<RunReader>();
+            try {
+                for ( Path run : group ) {
+                    RunReader r = new RunReader( run );
+                    if ( r.next() ) heap.add( r );
+                    else r.close();
+                }
+            } catch ( IOException | RuntimeException e ) {
+                for ( RunReader r : heap ) r.close();
+                throw e;
+            }
+            return heap;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for ( Path run : runs ) Files.deleteIfExists( run );
+        }
+
+        private static void write( FileChannel channel, ByteBuffer bytes ) throws IOException {
+            bytes.flip();
+            while ( bytes.hasRemaining() ) channel.write( bytes );
+            bytes.clear();
+        }
+    }
+
+    /** Leitura sequencial de um trecho ordenado. */
+    private static final class RunReader implements Comparable<RunReader> {
+
+        private final FileChannel channel;
+        private final ByteBuffer bytes = ByteBuffer.allocate( IO_BUFFER ).order( ByteOrder.LITTLE_ENDIAN );
+
+        long head;
+
+        RunReader( Path run ) throws IOException {
+            channel = FileChannel.open( run, StandardOpenOption.READ );
+            bytes.limit( 0 );
+        }
+
+        /* Avança para a próxima posição; devolve false no fim do trecho. */
+        boolean next() throws IOException {
+            if ( bytes.remaining() < 8 ) {
+                bytes.compact();
+                while ( bytes.hasRemaining() && channel.read( bytes ) > 0 ) { }
+                bytes.flip();
+                if ( bytes.remaining() < 8 ) return false;
+            }
+            head = bytes.getLong();
+            return true;
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+
+        @Override
+        public int compareTo( RunReader o ) {
+            return Long.compare( head, o.head );
+        }
+    }
+
+    /** Gravação sequencial de ints a partir de uma posição do arquivo. */
+    private static final class IntWriter {
+
+        private final FileChannel channel;
+        private final ByteBuffer bytes = ByteBuffer.allocate( IO_BUFFER ).order( ByteOrder.LITTLE_ENDIAN );
+        private long position;
+
+        IntWriter( FileChannel channel, long position ) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        void put( int x ) throws IOException {
+            if ( !bytes.hasRemaining() ) flush();
+            bytes.putInt( x );
+        }
+
+        void flush() throws IOException {
+            bytes.flip();
+            while ( bytes.hasRemaining() ) position += channel.write( bytes, position );
+            bytes.clear();
+        }
+    }
+
+    /* Para executar use o comando java MappedCSR <arquivo de arestas> <arquivo CSR> [posicoes por trecho]
+     * O arquivo CSR gerado pode ser testado com java Main -m lr <arquivo CSR>.
+     */
+    public static void main( String[] args ) throws IOException {
+        if ( args.length < 2 || args.length > 3 ) {
+            System.err.println( "Uso: java MappedCSR <arquivo de arestas> <arquivo CSR> [posicoes por trecho]" );
+            System.exit(1);
+        }
+        int run = args.length == 3 ? Integer.parseInt( args[2] ) : DEFAULT_RUN;
+        long inicio = System.nanoTime();
+        MappedCSR grafo = build( args[0], Paths.get( args[1] ), run );
+        System.err.printf( "%d vertices, %d arestas, %.1f s%n", grafo.numVertices(), grafo.numEdges(), ( System.nanoTime() - inicio ) / 1e9 );
+    }
+
+}
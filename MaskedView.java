@@ -0,0 +1,130 @@
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Visão de um grafo com algumas arestas escondidas, sem copiá-lo. Veja
+ * GraphView.withoutEdges.
+ */
+final class MaskedView<T> implements GraphView<T> {
+
+    private final GraphView<T> base;
+
+    /* As arestas escondidas, todas arestas de base */
+    private final Grafo<T> removed;
+
+    final int depth;
+
+    private int numVertices = -1;
+
+    MaskedView( GraphView<T> base, Grafo<T> removed, int depth ) {
+        this.base = base;
+        this.removed = removed;
+        this.depth = depth;
+    }
+
+    public Set<T> getVertices() {
+        return new FilteredSet<T>( base.getVertices(), this::hasVertex );
+    }
+
+    public Set<T> getNeighbors( T v ) {
+        Set<T> neighbors = base.getNeighbors( v );
+        Set<T> hidden = removed.getNeighbors( v );
+        if ( neighbors == null || hidden == null ) return neighbors;
+        if ( neighbors.size() == hidden.size() ) return null;       // o vértice ficou sem arestas
+        return new FilteredSet<T>( neighbors, u -> !hidden.contains( u ) );
+    }
+
+    public int getDegree( T v ) {
+        int degree = base.getDegree( v );
+        if ( degree < 0 || !removed.hasVertex( v ) ) return degree;
+        degree -= removed.getDegree( v );
+        return degree == 0 ? -1 : degree;
+    }
+
+    public boolean hasVertex( T v ) {
+        return getDegree( v ) >= 0;
+    }
+
+    public boolean hasEdge( T v1, T v2 ) {
+        return base.hasEdge( v1, v2 ) && !removed.hasEdge( v1, v2 );
+    }
+
+    public int numVertices() {
+        if ( numVertices < 0 ) {
+            int count = base.numVertices();
+            for ( T v : removed.getVertices() ) {
+                if ( base.getDegree( v ) == removed.getDegree( v ) ) count--;
+            }
+            numVertices = count;
+        }
+        return numVertices;
+    }
+
+    public int numEdges() {
+        return base.numEdges() - removed.numEdges();
+    }
+
+    /** Os elementos de um conjunto que satisfazem um predicado. */
+    static final class FilteredSet<T> extends AbstractSet<T> {
+
+        private final Set<T> set;
+
+        private final Predicate<T> keep;
+
+        private int size = -1;
+
+        FilteredSet( Set<T> set, Predicate<T> keep ) {
+            this.set = set;
+            this.keep = keep;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains( Object o ) {
+            return set.contains( o ) && keep.test( (T) o );
+        }
+
+        @Override
+        public int size() {
+            if ( size < 0 ) {
+                int count = 0;
+                for ( T x : set ) {
+                    if ( keep.test( x ) ) count++;
+                }
+                size = count;
+            }
+            return size;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<T>() {
+                private final Iterator<T> it = set.iterator();
+                private T next = advance();
+
+                private T advance() {
+                    while ( it.hasNext() ) {
+                        T x = it.next();
+                        if ( keep.test( x ) ) return x;
+                    }
+                    return null;
+                }
+
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                public T next() {
+                    if ( next == null ) throw new NoSuchElementException();
+                    T x = next;
+                    next = advance();
+                    return x;
+                }
+            };
+        }
+    }
+
+}
@@ -0,0 +1,153 @@
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limite de tempo e de trabalho para um teste de planaridade.
+ *
+ * O trabalho é contado em passos, quase todos arestas percorridas: as
+ * buscas de GraphTraverser e do LRPlanarityTester somam as arestas que
+ * examinam, e a recursão de TestPlanarity também os pares de pedaços que
+ * compara. Cada uma chama charge a cada CHUNK passos. charge confere o
+ * prazo, o orçamento e se a thread que criou o orçamento foi interrompida;
+ * quando algum deles estoura, lança Exceeded, e continua lançando em todas
+ * as chamadas seguintes, de qualquer thread. Assim as tarefas de um mesmo
+ * teste que rodam em paralelo também param na próxima conferência, sem
+ * que nenhuma thread precise ser morta.
+ *
+ * Um orçamento é de um único teste e pode ser usado por várias threads.
+ */
+public final class PlanarityBudget {
+
+    /** Quantos passos uma busca dá entre duas conferências. */
+    public static final int CHUNK = 1024;
+
+    /** O motivo de um orçamento estourado. */
+    public static final String PRAZO = "prazo";
+    public static final String ORCAMENTO = "orcamento";
+    public static final String INTERROMPIDO = "interrompido";
+
+    /**
+     * Lançada por charge quando o orçamento acaba. Não guarda a pilha de
+     * chamadas, que seria montada a cada conferência depois do estouro.
+     */
+    public static final class Exceeded extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String motivo;
+
+        Exceeded( String motivo ) {
+            super( motivo, null, false, false );
+            this.motivo = motivo;
+        }
+
+        /** PRAZO, ORCAMENTO ou INTERROMPIDO. */
+        public String motivo() {
+            return motivo;
+        }
+
+    }
+
+    private final long inicio;
+
+    /* O prazo em System.nanoTime, válido só se hasDeadline */
+    private final long deadline;
+    private final boolean hasDeadline;
+
+    private final long maxWork;
+
+    private final Thread caller;
+
+    private final AtomicLong work = new AtomicLong();
+
+    /* null até o orçamento estourar */
+    private volatile String motivo;
+
+    private PlanarityBudget( long inicio, long timeoutNanos, long maxWork ) {
+        this.inicio = inicio;
+        this.hasDeadline = timeoutNanos > 0;
+        this.deadline = inicio + timeoutNanos;
+        this.maxWork = maxWork > 0 ? maxWork : Long.MAX_VALUE;
+        this.caller = Thread.currentThread();
+    }
+
+    /**
+     * Um orçamento que começa agora.
+     *
+     * @param timeoutMillis     O prazo em milissegundos; 0 para nenhum.
+     * @param maxWork           Quantos passos podem ser dados; 0 para nenhum limite.
+     */
+    public static PlanarityBudget of( long timeoutMillis, long maxWork ) {
+        return since( System.nanoTime(), timeoutMillis, maxWork );
+    }
+
+    /**
+     * Um orçamento cujo prazo conta a partir de inicio (um System.nanoTime),
+     * como a chegada de um pedido que ainda esperou numa fila.
+     */
+    public static PlanarityBudget since( long inicio, long timeoutMillis, long maxWork ) {
+        return new PlanarityBudget( inicio, TimeUnit.MILLISECONDS.toNanos( Math.max( 0, timeoutMillis ) ), maxWork );
+    }
+
+    /**
+     * Soma units ao trabalho feito e confere o orçamento.
+     *
+     * @throws Exceeded se o prazo passou, o trabalho passou do limite ou a
+     *                  thread que criou o orçamento foi interrompida.
+     */
+    public void charge( long units ) {
+        long total = work.addAndGet( units );
+        if ( motivo == null ) {
+            if ( caller.isInterrupted() ) motivo = INTERROMPIDO;
+            else if ( total > maxWork ) motivo = ORCAMENTO;
+            else if ( hasDeadline && System.nanoTime() - deadline > 0 ) motivo = PRAZO;
+            else return;
+        }
+        throw new Exceeded( motivo );
+    }
+
+    /**
+     * Executa a tarefa no pool e espera pelo resultado. Sem orçamento é
+     * pool.invoke; com orçamento a espera pode ser interrompida, o que
+     * esgota o orçamento e faz as tarefas pararem na próxima conferência.
+     * (Uma thread parada em pool.invoke não vê a interrupção até a tarefa
+     * terminar.)
+     *
+     * @param budget    O orçamento, ou null.
+     */
+    static <V> V invoke( ForkJoinPool pool, ForkJoinTask<V> task, PlanarityBudget budget ) {
+        if ( budget == null ) return pool.invoke( task );
+        pool.execute( task );
+        try {
+            return task.get();
+        } catch ( InterruptedException e ) {
+            if ( budget.motivo == null ) budget.motivo = INTERROMPIDO;
+            Thread.currentThread().interrupt();
+            throw new Exceeded( budget.motivo );
+        } catch ( ExecutionException e ) {
+            Throwable cause = e.getCause();
+            if ( cause instanceof RuntimeException ) throw (RuntimeException) cause;
+            if ( cause instanceof Error ) throw (Error) cause;
+            throw new IllegalStateException( cause );
+        }
+    }
+
+    /** O motivo do estouro, ou null se o orçamento ainda não acabou. */
+    public String motivo() {
+        return motivo;
+    }
+
+    /** Os passos dados até agora. */
+    public long work() {
+        return work.get();
+    }
+
+    /** O tempo desde o início do orçamento, em nanossegundos. */
+    public long elapsedNanos() {
+        return System.nanoTime() - inicio;
+    }
+
+}
@@ -0,0 +1,335 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cliente do PlanarityServer.
+ *
+ * No modo normal envia cada arquivo num pedido e imprime a resposta, numa
+ * linha por arquivo como no modo em lote do Main:
+ *
+ *     nome  Planar!|Nao planar!  n  m  espera(ms)  teste(ms)  decisor
+ *
+ * No modo de carga (-carga) abre várias conexões que enviam os arquivos em
+ * rodízio, cada uma esperando a resposta antes do próximo pedido, durante
+ * um tempo fixo. Ao fim imprime a vazão e os percentis da latência medida
+ * no cliente, contando só os pedidos feitos depois do aquecimento.
+ *
+ * Nesse modo (carga fechada) um servidor lento também atrasa os pedidos
+ * seguintes, que deixam de ser feitos enquanto a conexão espera, e a
+ * latência desses pedidos que não existiram não é medida: os percentis
+ * altos saem otimistas. O modo de taxa fixa (-taxa) é aberto: os pedidos
+ * são enviados nos instantes previstos (um a cada 1/taxa segundos), sem
+ * esperar as respostas anteriores, e a latência é contada do instante
+ * previsto, então um atraso do próprio cliente também entra na medida.
+ *
+ * Nos dois modos, um pedido recusado com 503 é reenviado depois do tempo
+ * pedido no cabeçalho Retry-After (1 s se não houver), enquanto a medição
+ * durar; a latência vai do primeiro envio (ou do instante previsto) até a
+ * resposta 200, incluindo as esperas. As respostas 503 são contadas à parte.
+ */
+public class PlanarityClient {
+
+    private static final String USO = "Uso: java PlanarityClient [-u url] [-k] arquivo...\n"
+                                    + "     java PlanarityClient [-u url] [-a aquecimento(s)] -carga <conexoes> <segundos> arquivo...\n"
+                                    + "     java PlanarityClient [-u url] [-a aquecimento(s)] -taxa <pedidos/s> <segundos> arquivo...";
+
+    /* Espera antes de reenviar um pedido recusado sem Retry-After */
+    private static final long ESPERA_PADRAO = TimeUnit.SECONDS.toNanos( 1 );
+
+    private final HttpClient http = HttpClient.newBuilder().version( HttpClient.Version.HTTP_1_1 ).build();
+
+    private final URI uri;
+
+    public PlanarityClient( URI uri ) {
+        this.uri = uri;
+    }
+
+    /**
+     * Envia um grafo ao servidor.
+     *
+     * @param corpo     As arestas no formato texto.
+     * @return          A resposta, com o código HTTP e o texto.
+     */
+    public HttpResponse<String> send( byte[] corpo ) throws IOException, InterruptedException {
+        return http.send( request( corpo ), HttpResponse.BodyHandlers.ofString() );
+    }
+
+    private HttpRequest request( byte[] corpo ) {
+        return HttpRequest.newBuilder( uri ).POST( HttpRequest.BodyPublishers.ofByteArray( corpo ) ).build();
+    }
+
+    /**
+     * Gera carga fechada com o número dado de conexões simultâneas.
+     *
+     * @param corpos        Os grafos enviados, em rodízio.
+     * @param conexoes      Quantos pedidos ficam em andamento ao mesmo tempo.
+     * @param aquecimento   Nanossegundos iniciais cujos pedidos não são medidos.
+     * @param duracao       Nanossegundos medidos, depois do aquecimento.
+     * @return              O resumo da medição, numa linha.
+     */
+    public String load( List<byte[]> corpos, int conexoes, long aquecimento, long duracao ) throws InterruptedException {
+        long inicio = System.nanoTime();
+        long medir = inicio + aquecimento;
+        long fim = medir + duracao;
+        long[][] latencias = new long[conexoes][];
+        int[] quantos = new int[conexoes];
+        AtomicLong recusados = new AtomicLong();
+        AtomicLong erros = new AtomicLong();
+
+        Thread[] threads = new Thread[conexoes];
+        for ( int c = 0; c < conexoes; c++ ) {
+            final int id = c;
+            threads[c] = new Thread( () -> {
+                long[] lat = new long[1024];
+                int k = 0;
+                pedidos:
+                for ( int i = id; ; i++ ) {
+                    long antes = System.nanoTime();
+                    if ( antes >= fim ) break;
+                    int status;
+                    long depois;
+                    while ( true ) {
+                        HttpResponse<String> resposta = null;
+                        try {
+                            resposta = send( corpos.get( i % corpos.size() ) );
+                            status = resposta.statusCode();
+                        } catch ( IOException e ) {
+                            status = -1;
+                        } catch ( InterruptedException e ) {
+                            break pedidos;
+                        }
+                        depois = System.nanoTime();
+                        if ( status != 503 ) break;
+                        if ( antes >= medir && depois <= fim ) recusados.incrementAndGet();
+                        long pausa = retryAfter( resposta );
+                        if ( depois + pausa >= fim ) break;
+                        try {
+                            TimeUnit.NANOSECONDS.sleep( pausa );
+                        } catch ( InterruptedException e ) {
+                            break pedidos;
+                        }
+                    }
+                    if ( antes < medir || depois > fim ) continue;
+                    if ( status == 200 ) {
+                        if ( k == lat.length ) lat = Arrays.copyOf( lat, 2 * k );
+                        lat[k++] = depois - antes;
+                    } else if ( status != 503 ) {
+                        erros.incrementAndGet();
+                    }
+                }
+                latencias[id] = lat;
+                quantos[id] = k;
+            }, "carga-" + c );
+            threads[c].start();
+        }
+        for ( Thread t : threads ) t.join();
+
+        int total = 0;
+        for ( int q : quantos ) total += q;
+        long[] todas = new long[total];
+        int pos = 0;
+        for ( int c = 0; c < conexoes; c++ ) {
+            System.arraycopy( latencias[c], 0, todas, pos, quantos[c] );
+            pos += quantos[c];
+        }
+        return summary( todas, recusados.get(), erros.get(), duracao );
+    }
+
+    /**
+     * Gera carga aberta, com os pedidos enviados a uma taxa fixa qualquer que
+     * seja o tempo de resposta. A latência de cada pedido é contada do
+     * instante em que ele deveria ter sido enviado. Os pedidos previstos
+     * dentro da medição são esperados até a resposta, mesmo depois do fim.
+     *
+     * @param corpos        Os grafos enviados, em rodízio.
+     * @param taxa          Pedidos por segundo.
+     * @param aquecimento   Nanossegundos iniciais cujos pedidos não são medidos.
+     * @param duracao       Nanossegundos medidos, depois do aquecimento.
+     * @return              O resumo da medição, numa linha.
+     */
+    public String loadRate( List<byte[]> corpos, double taxa, long aquecimento, long duracao ) throws InterruptedException {
+        long inicio = System.nanoTime();
+        long medir = inicio + aquecimento;
+        long fim = medir + duracao;
+        double intervalo = 1e9 / taxa;
+        Latencias medidas = new Latencias();
+        List<CompletableFuture<Void>> pendentes = new ArrayList<CompletableFuture<Void>>();
+        for ( long i = 0; ; i++ ) {
+            long previsto = inicio + (long) ( i * intervalo );
+            if ( previsto >= fim ) break;
+            long espera = previsto - System.nanoTime();
+            if ( espera > 0 ) TimeUnit.NANOSECONDS.sleep( espera );
+            pendentes.add( post( corpos.get( (int) ( i % corpos.size() ) ), previsto, fim,
+                                 previsto >= medir ? medidas : null ) );
+        }
+        for ( CompletableFuture<Void> f : pendentes ) f.join();
+        return medidas.summary( duracao );
+    }
+
+    /*
+     * Envia um pedido sem esperar a resposta e registra a latência desde o
+     * instante previsto. Um 503 é reenviado depois do Retry-After, se ainda
+     * houver tempo. medidas é null para os pedidos do aquecimento.
+     */
+    private CompletableFuture<Void> post( byte[] corpo, long previsto, long fim, Latencias medidas ) {
+        return http.sendAsync( request( corpo ), HttpResponse.BodyHandlers.ofString() ).handle( ( resposta, erro ) -> {
+            long agora = System.nanoTime();
+            int status = erro != null ? -1 : resposta.statusCode();
+            if ( status == 503 ) {
+                if ( medidas != null ) medidas.refused();
+                long pausa = retryAfter( resposta );
+                if ( agora + pausa < fim ) {
+                    return CompletableFuture.runAsync( () -> { }, CompletableFuture.delayedExecutor( pausa, TimeUnit.NANOSECONDS ) )
+                                            .thenCompose( x -> post( corpo, previsto, fim, medidas ) );
+                }
+            } else if ( medidas != null ) {
+                medidas.add( status, agora - previsto );
+            }
+            return CompletableFuture.<Void>completedFuture( null );
+        } ).thenCompose( f -> f );
+    }
+
+    /* Latências e contadores da carga aberta, registrados pelas threads do HttpClient. */
+    private static final class Latencias {
+
+        private long[] lat = new long[1024];
+        private int k;
+        private long recusados;
+        private long erros;
+
+        synchronized void add( int status, long latencia ) {
+            if ( status != 200 ) {
+                erros++;
+                return;
+            }
+            if ( k == lat.length ) lat = Arrays.copyOf( lat, 2 * k );
+            lat[k++] = latencia;
+        }
+
+        synchronized void refused() {
+            recusados++;
+        }
+
+        synchronized String summary( long duracao ) {
+            return PlanarityClient.summary( Arrays.copyOf( lat, k ), recusados, erros, duracao );
+        }
+    }
+
+    /* O tempo pedido pelo servidor no Retry-After, em nanossegundos. */
+    private static long retryAfter( HttpResponse<?> resposta ) {
+        if ( resposta == null ) return ESPERA_PADRAO;
+        try {
+            return resposta.headers().firstValue( "Retry-After" )
+                           .map( s -> TimeUnit.SECONDS.toNanos( Long.parseLong( s.trim() ) ) )
+                           .orElse( ESPERA_PADRAO );
+        } catch ( NumberFormatException e ) {
+            return ESPERA_PADRAO;       // uma data HTTP, que o servidor não usa
+        }
+    }
+
+    /* A linha de resumo de uma carga. */
+    private static String summary( long[] latencias, long recusados, long erros, long duracao ) {
+        Arrays.sort( latencias );
+        double segundos = duracao / 1e9;
+        return String.format( Locale.ROOT,
+                "pedidos %d (%.1f/s)  recusados %d  erros %d  latencia(ms) p50 %.3f  p90 %.3f  p99 %.3f  max %.3f",
+                latencias.length, latencias.length / segundos, recusados, erros,
+                percentile( latencias, 0.50 ), percentile( latencias, 0.90 ),
+                percentile( latencias, 0.99 ), percentile( latencias, 1.0 ) );
+    }
+
+    /* O percentil p (entre 0 e 1) das latências ordenadas, em milissegundos. */
+    private static double percentile( long[] ordenadas, double p ) {
+        if ( ordenadas.length == 0 ) return Double.NaN;
+        int i = (int) Math.ceil( p * ordenadas.length ) - 1;
+        return ordenadas[Math.max( 0, i )] / 1e6;
+    }
+
+    /* Para executar, com o PlanarityServer rodando:
+     *   java PlanarityClient [-u url] [-k] Entrada\<nome do arquivo> ...
+     *   java PlanarityClient [-u url] [-a 2] -carga 16 10 Entrada\<nome do arquivo> ...
+     *   java PlanarityClient [-u url] [-a 2] -taxa 500 10 Entrada\<nome do arquivo> ...
+     *     -u      o endereço do servidor (padrão http://localhost:8085/planaridade)
+     *     -k      pede o certificado de Kuratowski dos grafos não planares
+     *     -a      segundos de aquecimento, não medidos, antes da carga (padrão 2)
+     *     -carga  quantas conexões simultâneas e por quantos segundos medir
+     *     -taxa   quantos pedidos por segundo e por quantos segundos medir
+     */
+    public static void main( String[] args ) throws IOException, InterruptedException {
+        String url = "http://localhost:" + PlanarityServer.PORTA_PADRAO + "/planaridade";
+        boolean certificado = false;
+        int conexoes = 0;
+        double taxa = 0;
+        double segundos = 0;
+        double aquecimento = 2;
+        List<Path> arquivos = new ArrayList<Path>();
+        try {
+            for ( int i = 0; i < args.length; i++ ) {
+                if ( args[i].equals( "-u" ) && i + 1 < args.length ) {
+                    url = args[++i];
+                } else if ( args[i].equals( "-k" ) ) {
+                    certificado = true;
+                } else if ( args[i].equals( "-a" ) && i + 1 < args.length ) {
+                    aquecimento = Double.parseDouble( args[++i] );
+                } else if ( args[i].equals( "-carga" ) && i + 2 < args.length ) {
+                    conexoes = Integer.parseInt( args[++i] );
+                    segundos = Double.parseDouble( args[++i] );
+                } else if ( args[i].equals( "-taxa" ) && i + 2 < args.length ) {
+                    taxa = Double.parseDouble( args[++i] );
+                    segundos = Double.parseDouble( args[++i] );
+                } else {
+                    arquivos.add( Paths.get( args[i] ) );
+                }
+            }
+        } catch ( NumberFormatException e ) {
+            arquivos.clear();
+        }
+        boolean carga = conexoes > 0 || taxa > 0;
+        if ( arquivos.isEmpty() || ( carga && certificado ) || ( conexoes > 0 && taxa > 0 )
+             || conexoes < 0 || taxa < 0 || segundos < 0 ) {
+            System.err.println( USO );
+            System.exit(1);
+        }
+
+        PlanarityClient cliente = new PlanarityClient( URI.create( certificado ? url + "?certificado=1" : url ) );
+        List<byte[]> corpos = new ArrayList<byte[]>();
+        for ( Path arquivo : arquivos ) corpos.add( Files.readAllBytes( arquivo ) );
+
+        if ( conexoes > 0 ) {
+            System.out.println( cliente.load( corpos, conexoes, (long) ( aquecimento * 1e9 ), (long) ( segundos * 1e9 ) ) );
+            return;
+        }
+        if ( taxa > 0 ) {
+            System.out.println( cliente.loadRate( corpos, taxa, (long) ( aquecimento * 1e9 ), (long) ( segundos * 1e9 ) ) );
+            return;
+        }
+        int erros = 0;
+        for ( int i = 0; i < arquivos.size(); i++ ) {
+            HttpResponse<String> resposta;
+            try {
+                resposta = cliente.send( corpos.get( i ) );
+            } catch ( IOException e ) {
+                System.err.println( "Erro ao falar com o servidor em " + url + ": " + e );
+                System.exit(1);
+                return;
+            }
+            if ( resposta.statusCode() != 200 ) erros++;
+            System.out.print( arquivos.get( i ) + "\t" + resposta.body() );
+        }
+        if ( erros > 0 ) System.exit(1);
+    }
+
+}
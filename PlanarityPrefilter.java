@@ -0,0 +1,285 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Filtros baratos aplicados em cascata antes do teste completo. Cada filtro
+ * só decide quando a resposta é certa; senão o grafo passa ao seguinte, e
+ * se nenhum decidir, ao teste completo.
+ *
+ *  - TRIVIAL:    todo grafo com até 4 vértices é planar, assim como todo
+ *                grafo de número ciclomático m - n + c (c componentes) até 3,
+ *                ou seja, m <= n + 2 num grafo conexo: uma subdivisão de K3,3
+ *                tem número ciclomático 4, a de K5 tem 6, e um subgrafo não
+ *                tem número ciclomático maior que o do grafo.
+ *  - DENSIDADE:  um grafo planar com n >= 3 tem no máximo 3n - 6 arestas.
+ *  - BIPARTIDO:  um grafo planar sem triângulos com n >= 3 tem no máximo
+ *                2n - 4 arestas, e um grafo bipartido não tem triângulos.
+ *  - TABELA:     grafos com até 8 vértices são decididos exatamente com uma
+ *                tabela de todos os grafos rotulados de até 6 vértices.
+ *
+ * n e m custam O(1) (Grafo mantém o número de arestas). A sondagem que conta
+ * os componentes ou testa a bipartição custa O(n + m) e só roda nas faixas
+ * em que pode decidir: m <= n + 2 ou m > 2n - 4.
+ *
+ * O grafo não pode ter laços, que contariam como arestas; o núcleo de
+ * GraphReducer, os blocos de BiconnectedComponents e GrafoCSR não têm.
+ */
+public final class PlanarityPrefilter {
+
+    /** O filtro que decidiu. */
+    public enum Filtro {
+        TRIVIAL, DENSIDADE, BIPARTIDO, TABELA;
+
+        /** O nome usado na saída. */
+        public String nome() {
+            return name().toLowerCase( Locale.ROOT );
+        }
+    }
+
+    /** A resposta de um filtro. */
+    public static final class Decisao {
+
+        private final Filtro filtro;
+
+        private final boolean planar;
+
+        private Decisao( Filtro filtro, boolean planar ) {
+            this.filtro = filtro;
+            this.planar = planar;
+        }
+
+        public Filtro filtro() {
+            return filtro;
+        }
+
+        public boolean isPlanar() {
+            return planar;
+        }
+
+        @Override
+        public String toString() {
+            return filtro.nome() + ( planar ? ": planar" : ": nao planar" );
+        }
+    }
+
+    /* As decisões possíveis, sem alocar uma por grafo: índice 2 * filtro + (planar ? 1 : 0) */
+    private static final Decisao[] DECISOES = new Decisao[2 * Filtro.values().length];
+    static {
+        for ( Filtro f : Filtro.values() ) {
+            DECISOES[2 * f.ordinal()] = new Decisao( f, false );
+            DECISOES[2 * f.ordinal() + 1] = new Decisao( f, true );
+        }
+    }
+
+    /** Grafos com até este número de vértices são decididos por TABELA. */
+    static final int MAX_TABELA = 8;
+
+    /* Vértices dos grafos guardados na tabela */
+    private static final int K = 6;
+
+    /*
+     * Um bit por grafo rotulado de até K vértices, ligado se ele não é planar.
+     * A aresta {i, j}, com i < j, é o bit j(j-1)/2 + i da máscara do grafo,
+     * então um grafo nos vértices 0..k-1 tem a mesma máscara para todo k.
+     * Montada no primeiro uso, para não custar nada a quem não chega a TABELA.
+     */
+    private static final class Tabela {
+        static final long[] NAO_PLANAR = buildTable();
+    }
+
+    private PlanarityPrefilter() { }
+
+    private static Decisao decisao( Filtro filtro, boolean planar ) {
+        return DECISOES[2 * filtro.ordinal() + ( planar ? 1 : 0 )];
+    }
+
+    /**
+     * Aplica os filtros ao grafo.
+     *
+     * @return      A decisão, ou null se nenhum filtro decidiu.
+     */
+    public static <T> Decisao decide( GraphView<T> grafo ) {
+        int n = grafo.numVertices();
+        long m = grafo.numEdges();
+        Decisao d = counts( n, m );
+        if ( d != null ) return d;
+        GraphTraverser<T> traverser = new GraphTraverser<T>( grafo );
+        if ( m <= n + 2 && m - n + traverser.numComponents() <= 3 ) return decisao( Filtro.TRIVIAL, true );
+        if ( m > 2L * n - 4 && traverser.eBipartido() ) return decisao( Filtro.BIPARTIDO, false );
+        if ( n > MAX_TABELA ) return null;
+
+        List<T> vertices = new ArrayList<T>( grafo.getVertices() );
+        int[] adj = new int[n];
+        for ( int i = 0; i < n; i++ ) {
+            for ( T u : grafo.getNeighbors( vertices.get( i ) ) ) {
+                adj[i] |= 1 << vertices.indexOf( u );
+            }
+        }
+        return decisao( Filtro.TABELA, isPlanarSmall( adj, n ) );
+    }
+
+    /** Como decide( GraphView ), para um grafo em formato CSR. */
+    public static Decisao decide( IntGraph grafo ) {
+        int n = grafo.numVertices();
+        long m = grafo.numEdges();
+        Decisao d = counts( n, m );
+        if ( d != null ) return d;
+        CSRTraverser traverser = new CSRTraverser( grafo );
+        if ( m <= n + 2 && m - n + traverser.numComponents() <= 3 ) return decisao( Filtro.TRIVIAL, true );
+        if ( m > 2L * n - 4 && traverser.eBipartido() ) return decisao( Filtro.BIPARTIDO, false );
+        if ( n > MAX_TABELA ) return null;
+
+        // Renumera os vértices de 0 a n-1 na ordem dos rótulos.
+        int[] vertices = new int[n];
+        int k = 0;
+        for ( int v = 0; k < n; v++ ) {
+            if ( grafo.hasVertex( v ) ) vertices[k++] = v;
+        }
+        int[] adj = new int[n];
+        for ( int i = 0; i < n; i++ ) {
+            for ( int p = grafo.neighborStart( vertices[i] ); p < grafo.neighborEnd( vertices[i] ); p++ ) {
+                adj[i] |= 1 << Arrays.binarySearch( vertices, grafo.neighborAt( p ) );
+            }
+        }
+        return decisao( Filtro.TABELA, isPlanarSmall( adj, n ) );
+    }
+
+    /* Os filtros que só usam n e m. */
+    private static Decisao counts( int n, long m ) {
+        if ( n <= 4 ) return decisao( Filtro.TRIVIAL, true );
+        if ( m > 3L * n - 6 ) return decisao( Filtro.DENSIDADE, false );
+        return null;
+    }
+
+    /**
+     * Testa um grafo de k <= MAX_TABELA vértices, dado pela vizinhança de
+     * cada vértice em bits. Acima de K vértices, um grafo não é planar
+     * exatamente quando, removendo um vértice ou contraindo uma aresta, o
+     * resultado não é planar: os dois são menores do grafo, e se ele contém
+     * uma subdivisão de K5 ou K3,3 com mais de 6 vértices, ela tem um vértice
+     * de subdivisão, cuja aresta no caminho pode ser contraída; com menos,
+     * algum vértice fica de fora e pode ser removido.
+     *
+     * Um vértice de grau até 2 não muda a planaridade quando é removido
+     * (grau 0 ou 1) ou suavizado, contraindo uma das suas arestas (grau 2),
+     * então só os grafos de grau mínimo 3 precisam tentar todos os menores.
+     */
+    static boolean isPlanarSmall( int[] adj, int k ) {
+        if ( k <= K ) {
+            int mask = mask( adj, k );
+            return !isSet( Tabela.NAO_PLANAR, mask );
+        }
+        int m = 0;
+        for ( int v = 0; v < k; v++ ) {
+            int degree = Integer.bitCount( adj[v] );
+            if ( degree <= 1 ) return isPlanarSmall( delete( adj, k, v ), k - 1 );
+            if ( degree == 2 ) {
+                int u = Integer.numberOfTrailingZeros( adj[v] );
+                return isPlanarSmall( contract( adj, k, Math.min( u, v ), Math.max( u, v ) ), k - 1 );
+            }
+            m += degree;
+        }
+        if ( m / 2 > 3 * k - 6 ) return false;
+        for ( int v = 0; v < k; v++ ) {
+            if ( !isPlanarSmall( delete( adj, k, v ), k - 1 ) ) return false;
+        }
+        for ( int u = 0; u < k; u++ ) {
+            for ( int rest = adj[u] >>> ( u + 1 ); rest != 0; rest &= rest - 1 ) {
+                int v = u + 1 + Integer.numberOfTrailingZeros( rest );
+                if ( !isPlanarSmall( contract( adj, k, u, v ), k - 1 ) ) return false;
+            }
+        }
+        return true;
+    }
+
+    /* A máscara de arestas de um grafo de até K vértices. */
+    private static int mask( int[] adj, int k ) {
+        int mask = 0;
+        for ( int j = 1; j < k; j++ ) {
+            mask |= ( adj[j] & ( ( 1 << j ) - 1 ) ) << ( j * ( j - 1 ) / 2 );
+        }
+        return mask;
+    }
+
+    /* O grafo sem o vértice v; os vértices seguintes descem uma posição. */
+    private static int[] delete( int[] adj, int k, int v ) {
+        int[] result = new int[k - 1];
+        int low = ( 1 << v ) - 1;
+        for ( int i = 0, j = 0; i < k; i++ ) {
+            if ( i == v ) continue;
+            int x = adj[i];
+            result[j++] = ( x & low ) | ( ( x >>> ( v + 1 ) ) << v );
+        }
+        return result;
+    }
+
+    /* O grafo com a aresta {u, v} contraída em u, sem laços nem arestas repetidas. */
+    private static int[] contract( int[] adj, int k, int u, int v ) {
+        int[] merged = adj.clone();
+        merged[u] = ( adj[u] | adj[v] ) & ~( 1 << u );
+        for ( int w = 0; w < k; w++ ) {
+            if ( w != u && ( adj[w] & ( 1 << v ) ) != 0 ) merged[w] |= 1 << u;
+        }
+        return delete( merged, k, v );
+    }
+
+    /*
+     * Monta a tabela de K = 6 vértices. Um grafo não é planar quando contém
+     * uma subdivisão de K5 ou K3,3, e as que cabem em 6 vértices são K3,3,
+     * K5 em 5 dos vértices, ou K5 com uma aresta subdividida pelo sexto.
+     * Essas são marcadas primeiro, e depois todo grafo que contém uma delas:
+     * para cada aresta, em ordem crescente de máscara, um grafo com a aresta
+     * fica marcado se ele sem a aresta estava.
+     */
+    private static long[] buildTable() {
+        int all = ( 1 << K ) - 1;
+        long[] table = new long[( 1 << ( K * ( K - 1 ) / 2 ) ) >>> 6];
+        for ( int side = 0; side < 1 << K; side++ ) {
+            // Cada divisão em dois lados de 3 uma vez: o lado com o vértice 0.
+            if ( Integer.bitCount( side ) == 3 && ( side & 1 ) != 0 ) set( table, between( side, all & ~side ) );
+        }
+        for ( int s = 0; s < K; s++ ) {
+            int five = all & ~( 1 << s );
+            int k5 = between( five, five );
+            set( table, k5 );
+            for ( int a = 0; a < K; a++ ) {
+                for ( int b = a + 1; b < K; b++ ) {
+                    if ( a != s && b != s ) set( table, k5 & ~edge( a, b ) | edge( a, s ) | edge( b, s ) );
+                }
+            }
+        }
+        for ( int e = 0; e < K * ( K - 1 ) / 2; e++ ) {
+            for ( int mask = 0; mask < table.length << 6; mask++ ) {
+                if ( ( mask & ( 1 << e ) ) != 0 && isSet( table, mask ^ ( 1 << e ) ) ) set( table, mask );
+            }
+        }
+        return table;
+    }
+
+    /* A máscara da aresta {i, j}. */
+    private static int edge( int i, int j ) {
+        return i < j ? 1 << ( j * ( j - 1 ) / 2 + i ) : 1 << ( i * ( i - 1 ) / 2 + j );
+    }
+
+    /* A máscara de todas as arestas entre um vértice de x e outro de y. */
+    private static int between( int x, int y ) {
+        int mask = 0;
+        for ( int i = 0; i < K; i++ ) {
+            for ( int j = 0; j < K; j++ ) {
+                if ( i != j && ( x & ( 1 << i ) ) != 0 && ( y & ( 1 << j ) ) != 0 ) mask |= edge( i, j );
+            }
+        }
+        return mask;
+    }
+
+    private static boolean isSet( long[] table, int mask ) {
+        return ( table[mask >>> 6] & ( 1L << mask ) ) != 0;
+    }
+
+    private static void set( long[] table, int mask ) {
+        table[mask >>> 6] |= 1L << mask;
+    }
+
+}
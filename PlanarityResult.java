@@ -0,0 +1,94 @@
+import java.util.Locale;
+
+/**
+ * A resposta de um teste feito com PlanarityBudget: planar, não planar ou
+ * desconhecido, quando o orçamento acabou antes da resposta. Guarda também
+ * o trabalho feito e o tempo gasto, para mostrar até onde o teste chegou.
+ */
+public final class PlanarityResult {
+
+    public enum Verdict { PLANAR, NAO_PLANAR, DESCONHECIDO }
+
+    private final Verdict verdict;
+
+    private final String motivo;
+
+    private final long work;
+
+    private final long nanos;
+
+    private PlanarityResult( Verdict verdict, String motivo, long work, long nanos ) {
+        this.verdict = verdict;
+        this.motivo = motivo;
+        this.work = work;
+        this.nanos = nanos;
+    }
+
+    /**
+     * A resposta de um teste que terminou dentro do orçamento. Sem orçamento
+     * o trabalho fica 0 e o tempo conta de inicio (um System.nanoTime); com
+     * orçamento, ambos vêm dele.
+     */
+    static PlanarityResult of( boolean planar, PlanarityBudget budget, long inicio ) {
+        return new PlanarityResult( planar ? Verdict.PLANAR : Verdict.NAO_PLANAR, null,
+                                    work( budget ), nanos( budget, inicio ) );
+    }
+
+    /** A resposta de um teste interrompido pelo orçamento. */
+    static PlanarityResult unknown( PlanarityBudget budget, long inicio ) {
+        return new PlanarityResult( Verdict.DESCONHECIDO, budget != null ? budget.motivo() : null,
+                                    work( budget ), nanos( budget, inicio ) );
+    }
+
+    private static long work( PlanarityBudget budget ) {
+        return budget != null ? budget.work() : 0;
+    }
+
+    private static long nanos( PlanarityBudget budget, long inicio ) {
+        return budget != null ? budget.elapsedNanos() : System.nanoTime() - inicio;
+    }
+
+    public Verdict verdict() {
+        return verdict;
+    }
+
+    /** true se o teste chegou a uma resposta. */
+    public boolean isKnown() {
+        return verdict != Verdict.DESCONHECIDO;
+    }
+
+    public boolean isPlanar() {
+        return verdict == Verdict.PLANAR;
+    }
+
+    /** Por que o teste parou (PlanarityBudget.PRAZO, ORCAMENTO ou INTERROMPIDO), ou null. */
+    public String motivo() {
+        return motivo;
+    }
+
+    /** Os passos dados (veja PlanarityBudget). */
+    public long work() {
+        return work;
+    }
+
+    /** O tempo gasto, em nanossegundos. */
+    public long nanos() {
+        return nanos;
+    }
+
+    /** "Planar!", "Nao planar!" ou "Desconhecido", como na saída do Main. */
+    public String text() {
+        switch ( verdict ) {
+            case PLANAR:     return "Planar!";
+            case NAO_PLANAR: return "Nao planar!";
+            default:         return "Desconhecido";
+        }
+    }
+
+    @Override
+    public String toString() {
+        if ( isKnown() ) return text();
+        return String.format( Locale.ROOT, "%s (%s apos %d passos, %.3f ms)", text(), motivo, work, nanos / 1e6 );
+    }
+
+}
@@ -0,0 +1,331 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Servidor HTTP local que testa a planaridade de grafos enviados no corpo
+ * dos pedidos, numa JVM que fica aquecida entre um pedido e outro.
+ *
+ *     POST /planaridade[?certificado=1]
+ *         O corpo é uma lista de arestas no formato texto (rótulos quaisquer).
+ *         200: uma linha "Planar!|Nao planar!  n  m  espera(ms)  teste(ms)  decisor",
+ *              separada por tabulações, seguida do certificado de Kuratowski
+ *              (uma aresta por linha) se ele foi pedido e o grafo não é planar.
+ *              A extração do certificado é cobrada do mesmo orçamento do
+ *              teste; se ele acabar antes, a resposta sai sem certificado.
+ *              A espera vai da chegada do pedido até o início do teste e
+ *              inclui a leitura do corpo e o tempo na fila. O decisor é o
+ *              filtro de PlanarityPrefilter que respondeu, ou "teste".
+ *              Com prazo ou limite de trabalho (-d, -w), um teste que não
+ *              termina a tempo responde "Desconhecido  n  m  espera(ms)
+ *              teste(ms)  motivo  passos", com o motivo (prazo, orcamento
+ *              ou interrompido) e o trabalho feito até ali.
+ *         400: "ERRO  mensagem" se o corpo não é uma lista de arestas válida.
+ *         503: o servidor já tem pedidos demais; tente de novo mais tarde.
+ *     GET /estado
+ *         Contadores em JSON.
+ *
+ * Como no BatchRunner, o corpo é lido por um pool de threads de E/S e o
+ * teste roda num pool com uma thread por processador. O número de pedidos
+ * aceitos e ainda não respondidos é limitado: um pedido que chega com o
+ * limite atingido é recusado na hora com 503, com o corpo descartado sem
+ * ser interpretado, em vez de esperar numa fila sem fim.
+ *
+ * O servidor só escuta no endereço de loopback.
+ */
+public class PlanarityServer {
+
+    private static final String USO = "Uso: java PlanarityServer [-m ap|lr] [-p porta] [-t threads] [-q fila] [-d prazo(ms)] [-w passos]";
+
+    public static final int PORTA_PADRAO = 8085;
+
+    static {
+        // Sem TCP_NODELAY o cabeçalho e o corpo da resposta saem em pacotes
+        // separados, e o corpo espera o ACK atrasado do cliente (~40 ms).
+        if ( System.getProperty( "sun.net.httpserver.nodelay" ) == null ) {
+            System.setProperty( "sun.net.httpserver.nodelay", "true" );
+        }
+    }
+
+    private final PlanarityTester tester;
+
+    private final HttpServer server;
+
+    private final ExecutorService io;
+
+    private final ExecutorService cpu;
+
+    /* Vagas para pedidos aceitos e ainda não respondidos */
+    private final Semaphore vagas;
+
+    /* Prazo de cada pedido, contado da chegada, e limite de trabalho do teste; 0 para nenhum */
+    private final long prazo;
+    private final long maxWork;
+
+    private final AtomicLong atendidos = new AtomicLong();
+    private final AtomicLong desconhecidos = new AtomicLong();
+    private final AtomicLong recusados = new AtomicLong();
+    private final AtomicLong erros = new AtomicLong();
+
+    /**
+     * Cria o servidor, sem iniciá-lo.
+     *
+     * @param tester        O método de teste.
+     * @param porta         A porta de loopback; 0 escolhe uma porta livre.
+     * @param cpuThreads    Quantos testes rodam ao mesmo tempo.
+     * @param fila          Quantos pedidos aceitos podem esperar por uma thread de teste.
+     */
+    public PlanarityServer( PlanarityTester tester, int porta, int cpuThreads, int fila ) throws IOException {
+        this( tester, porta, cpuThreads, fila, 0, 0 );
+    }
+
+    /**
+     * @param prazo         Prazo de cada pedido em milissegundos, contado da chegada; 0 para nenhum.
+     * @param maxWork       Quantos passos cada teste pode dar (veja PlanarityBudget); 0 para nenhum limite.
+     */
+    public PlanarityServer( PlanarityTester tester, int porta, int cpuThreads, int fila, long prazo, long maxWork )
+            throws IOException {
+        this.tester = tester;
+        this.prazo = prazo;
+        this.maxWork = maxWork;
+        this.vagas = new Semaphore( cpuThreads + fila );
+        this.io = Executors.newFixedThreadPool( 4, daemon( "server-io" ) );
+        this.cpu = Executors.newFixedThreadPool( cpuThreads, daemon( "server-cpu" ) );
+        this.server = HttpServer.create( new InetSocketAddress( InetAddress.getLoopbackAddress(), porta ), 0 );
+        server.setExecutor( io );
+        server.createContext( "/planaridade", this::planaridade );
+        server.createContext( "/estado", this::estado );
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Para de aceitar pedidos e espera até um segundo pelos que estão em
+     * andamento. Os testes que ainda estiverem rodando são interrompidos e
+     * param na próxima conferência do orçamento.
+     */
+    public void stop() {
+        server.stop( 1 );
+        cpu.shutdown();
+        io.shutdown();
+        try {
+            if ( !cpu.awaitTermination( 1, TimeUnit.SECONDS ) ) cpu.shutdownNow();
+        } catch ( InterruptedException e ) {
+            cpu.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** A porta em que o servidor escuta. */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    private void planaridade( HttpExchange exchange ) throws IOException {
+        long recebido = System.nanoTime();
+        if ( !exchange.getRequestMethod().equals( "POST" ) ) {
+            exchange.getResponseHeaders().set( "Allow", "POST" );
+            send( exchange, 405, "ERRO\tuse POST\n" );
+            return;
+        }
+        if ( !vagas.tryAcquire() ) {
+            recusados.incrementAndGet();
+            // O corpo é descartado sem ser interpretado. Sem lê-lo, a conexão
+            // seria fechada com o cliente ainda enviando, e ele veria a conexão
+            // cair em vez do 503.
+            try ( InputStream in = exchange.getRequestBody() ) {
+                in.transferTo( OutputStream.nullOutputStream() );
+            }
+            exchange.getResponseHeaders().set( "Retry-After", "1" );
+            send( exchange, 503, "ERRO\tservidor ocupado\n" );
+            return;
+        }
+        boolean liberar = true;
+        try {
+            EdgeList edges;
+            try ( InputStream in = exchange.getRequestBody() ) {
+                edges = EdgeListLoader.loadLabeled( in, "corpo" );
+            } catch ( GraphFormatException e ) {
+                erros.incrementAndGet();
+                send( exchange, 400, "ERRO\t" + e.getMessage() + "\n" );
+                return;
+            }
+            boolean certificado = "certificado=1".equals( exchange.getRequestURI().getRawQuery() );
+            cpu.execute( () -> {
+                try {
+                    send( exchange, 200, test( edges, certificado, recebido ) );
+                    atendidos.incrementAndGet();
+                } catch ( IOException | RuntimeException e ) {
+                    erros.incrementAndGet();
+                    exchange.close();
+                } finally {
+                    vagas.release();
+                }
+            } );
+            liberar = false;
+        } catch ( RejectedExecutionException e ) {
+            send( exchange, 503, "ERRO\tservidor parando\n" );
+        } finally {
+            if ( liberar ) vagas.release();
+        }
+    }
+
+    /*
+     * Testa o grafo como no modo em lote e monta a resposta. Com prazo ou
+     * limite de trabalho, o teste é abandonado quando o orçamento acaba.
+     */
+    private String test( EdgeList edges, boolean certificado, long recebido ) {
+        long inicio = System.nanoTime();
+        PlanarityBudget budget = prazo > 0 || maxWork > 0 ? PlanarityBudget.since( recebido, prazo, maxWork ) : null;
+        int n, m;
+        boolean planar;
+        Grafo<Integer> grafo = null;
+        GrafoCSR csr = null;
+        if ( tester instanceof LRPlanarityTester ) {
+            csr = edges.toCSR();
+            n = csr.numVertices();
+            m = csr.numEdges();
+        } else {
+            grafo = edges.toGrafo();
+            n = grafo.numVertices();
+            m = grafo.numEdges();
+        }
+        PlanarityPrefilter.Decisao decisao;
+        PlanarityResult resultado = null;
+        if ( csr != null ) {
+            decisao = PlanarityPrefilter.decide( csr );
+            if ( decisao == null ) resultado = ( (LRPlanarityTester) tester ).check( csr, budget );
+        } else {
+            Grafo<Integer> kernel = GraphReducer.reduce( grafo ).kernel();
+            decisao = PlanarityPrefilter.decide( kernel );
+            if ( decisao == null ) resultado = new BlockPlanarityTester( tester ).check( kernel, budget );
+        }
+        long fim = System.nanoTime();
+        if ( resultado != null && !resultado.isKnown() ) {
+            desconhecidos.incrementAndGet();
+            return String.format( Locale.ROOT, "%s\t%d\t%d\t%.3f\t%.3f\t%s\t%d%n", resultado.text(), n, m,
+                                  ( inicio - recebido ) / 1e6, ( fim - inicio ) / 1e6,
+                                  resultado.motivo(), resultado.work() );
+        }
+        planar = decisao != null ? decisao.isPlanar() : resultado.isPlanar();
+
+        StringBuilder sb = new StringBuilder();
+        sb.append( String.format( Locale.ROOT, "%s\t%d\t%d\t%.3f\t%.3f\t%s%n", planar ? "Planar!" : "Nao planar!",
+                                  n, m, ( inicio - recebido ) / 1e6, ( fim - inicio ) / 1e6,
+                                  decisao != null ? decisao.filtro().nome() : "teste" ) );
+        if ( !planar && certificado ) {
+            if ( grafo == null ) grafo = edges.toGrafo();
+            Grafo<Integer> witness;
+            try {
+                witness = new TestPlanarity().findKuratowskiSubgraph( grafo, budget );
+            } catch ( PlanarityBudget.Exceeded e ) {
+                witness = null;
+            }
+            if ( witness != null ) {
+                for ( Integer v : witness.getVertices() ) {
+                    for ( Integer u : witness.getNeighbors( v ) ) {
+                        if ( v < u ) sb.append( edges.label( v ) ).append( ' ' ).append( edges.label( u ) ).append( '\n' );
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private void estado( HttpExchange exchange ) throws IOException {
+        try ( InputStream in = exchange.getRequestBody() ) {
+            in.transferTo( OutputStream.nullOutputStream() );
+        }
+        exchange.getResponseHeaders().set( "Content-Type", "application/json" );
+        send( exchange, 200, String.format( Locale.ROOT,
+                "{\"atendidos\":%d,\"desconhecidos\":%d,\"recusados\":%d,\"erros\":%d,\"vagasLivres\":%d}%n",
+                atendidos.get(), desconhecidos.get(), recusados.get(), erros.get(), vagas.availablePermits() ) );
+    }
+
+    private static void send( HttpExchange exchange, int status, String body ) throws IOException {
+        byte[] bytes = body.getBytes( StandardCharsets.UTF_8 );
+        if ( !exchange.getResponseHeaders().containsKey( "Content-Type" ) ) {
+            exchange.getResponseHeaders().set( "Content-Type", "text/plain; charset=utf-8" );
+        }
+        exchange.sendResponseHeaders( status, bytes.length );
+        try ( OutputStream out = exchange.getResponseBody() ) {
+            out.write( bytes );
+        }
+    }
+
+    private static ThreadFactory daemon( String nome ) {
+        AtomicInteger contador = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread( r, nome + "-" + contador.incrementAndGet() );
+            t.setDaemon( true );
+            return t;
+        };
+    }
+
+    /* Para executar use o comando java PlanarityServer [-m ap|lr] [-p porta] [-t threads] [-q fila] [-d prazo] [-w passos]
+     *   -m      o método de teste, como no Main (padrão ap)
+     *   -p      a porta de loopback (padrão 8085)
+     *   -t      quantos testes rodam ao mesmo tempo (padrão: um por processador)
+     *   -q      quantos pedidos podem esperar por um teste (padrão: 4 por thread)
+     *   -d      prazo de cada pedido em milissegundos, contado da chegada (padrão: nenhum)
+     *   -w      quantos passos cada teste pode dar (padrão: nenhum limite)
+     * Os pedidos podem ser feitos com o PlanarityClient.
+     */
+    public static void main( String[] args ) throws IOException, InterruptedException {
+        String metodo = "ap";
+        int porta = PORTA_PADRAO;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int fila = -1;
+        long prazo = 0, passos = 0;
+        try {
+            for ( int i = 0; i < args.length; i++ ) {
+                if ( args[i].equals( "-m" ) && i + 1 < args.length ) {
+                    metodo = args[++i];
+                } else if ( args[i].equals( "-p" ) && i + 1 < args.length ) {
+                    porta = Integer.parseInt( args[++i] );
+                } else if ( args[i].equals( "-t" ) && i + 1 < args.length ) {
+                    threads = Integer.parseInt( args[++i] );
+                } else if ( args[i].equals( "-q" ) && i + 1 < args.length ) {
+                    fila = Integer.parseInt( args[++i] );
+                } else if ( args[i].equals( "-d" ) && i + 1 < args.length ) {
+                    prazo = Long.parseLong( args[++i] );
+                } else if ( args[i].equals( "-w" ) && i + 1 < args.length ) {
+                    passos = Long.parseLong( args[++i] );
+                } else {
+                    throw new IllegalArgumentException( args[i] );
+                }
+            }
+        } catch ( IllegalArgumentException e ) {
+            System.err.println( USO );
+            System.exit(1);
+        }
+        PlanarityTester tester = PlanarityTester.forName( metodo );
+        if ( tester == null || threads < 1 ) {
+            System.err.println( USO );
+            System.exit(1);
+        }
+        PlanarityServer servidor = new PlanarityServer( tester, porta, threads, fila >= 0 ? fila : 4 * threads, prazo, passos );
+        servidor.start();
+        Runtime.getRuntime().addShutdownHook( new Thread( servidor::stop ) );
+        System.err.println( "Escutando em http://localhost:" + servidor.port() + "/planaridade" );
+        Thread.currentThread().join();
+    }
+
+}
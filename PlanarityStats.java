@@ -0,0 +1,258 @@
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Medições de uma execução do teste de planaridade.
+ *
+ * Acumula, para cada fase, o tempo de relógio, os bytes alocados pela
+ * thread e o número de vezes que a fase rodou, além da profundidade máxima
+ * dos níveis de Auslander-Parter, do número de pedaços em cada
+ * profundidade e do número de pares de pedaços cujo entrelaçamento foi
+ * verificado. As fases não se sobrepõem, então os tempos podem ser somados.
+ *
+ * Cada fase e cada nível também geram eventos do JDK Flight Recorder
+ * (planaridade.Fase e planaridade.Nivel), gravados quando há uma gravação
+ * ativa, por exemplo com -XX:StartFlightRecording. Sem gravação e sem um
+ * objeto de estatísticas as medições não são feitas: begin devolve null e
+ * o custo é uma verificação por fase.
+ *
+ * Pode ser usado por várias threads ao mesmo tempo, como nos blocos
+ * testados em paralelo por BlockPlanarityTester.
+ */
+public class PlanarityStats {
+
+    /** As fases medidas. */
+    public enum Phase {
+        LEITURA, REDUCAO, FILTRO, BLOCOS, CICLO, SUBPROBLEMA, PEDACOS, ENTRELACAMENTO, LEFT_RIGHT;
+
+        String nome() {
+            return name().toLowerCase( Locale.ROOT );
+        }
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private final LongAdder[] nanos = adders();
+    private final LongAdder[] bytes = adders();
+    private final LongAdder[] calls = adders();
+
+    private final AtomicInteger maxDepth = new AtomicInteger( -1 );
+
+    /* Níveis e pedaços por profundidade */
+    private long[] levelsAtDepth = new long[8];
+    private long[] piecesAtDepth = new long[8];
+
+    private final LongAdder pairs = new LongAdder();
+
+    /**
+     * Começa a medir uma fase.
+     *
+     * @param stats     As estatísticas da execução, ou null.
+     * @return          A medição, a ser terminada com end, ou null se nada está sendo medido.
+     */
+    public static Span begin( PlanarityStats stats, Phase phase, int depth ) {
+        PhaseEvent event = new PhaseEvent();
+        if ( stats == null && !event.isEnabled() ) return null;
+        return new Span( stats, phase, depth, event );
+    }
+
+    /**
+     * Registra um nível testado: sua profundidade, quantos pedaços ele tem e
+     * quantos pares de pedaços foram examinados.
+     */
+    public static void level( PlanarityStats stats, int depth, int pieces, long pairsExamined ) {
+        if ( stats != null ) stats.addLevel( depth, pieces, pairsExamined );
+        LevelEvent event = new LevelEvent();
+        if ( event.shouldCommit() ) {
+            event.profundidade = depth;
+            event.pedacos = pieces;
+            event.pares = pairsExamined;
+            event.commit();
+        }
+    }
+
+    private synchronized void addLevel( int depth, int pieces, long pairsExamined ) {
+        if ( depth >= levelsAtDepth.length ) {
+            int size = Math.max( depth + 1, 2 * levelsAtDepth.length );
+            levelsAtDepth = Arrays.copyOf( levelsAtDepth, size );
+            piecesAtDepth = Arrays.copyOf( piecesAtDepth, size );
+        }
+        levelsAtDepth[depth]++;
+        piecesAtDepth[depth] += pieces;
+        maxDepth.accumulateAndGet( depth, Math::max );
+        pairs.add( pairsExamined );
+    }
+
+    /** Uma fase em andamento. */
+    public static final class Span {
+
+        private final PlanarityStats stats;
+        private final Phase phase;
+        private final int depth;
+        private final PhaseEvent event;
+        private final long inicio;
+        private final long alocado;
+
+        private Span( PlanarityStats stats, Phase phase, int depth, PhaseEvent event ) {
+            this.stats = stats;
+            this.phase = phase;
+            this.depth = depth;
+            this.event = event;
+            this.alocado = allocatedBytes();
+            event.begin();
+            this.inicio = System.nanoTime();
+        }
+
+        /** Termina a medição, informando o tamanho do grafo tratado na fase. */
+        public void end( int vertices, int arestas ) {
+            long tempo = System.nanoTime() - inicio;
+            long bytes = Math.max( 0, allocatedBytes() - alocado );
+            if ( stats != null ) {
+                stats.nanos[phase.ordinal()].add( tempo );
+                stats.bytes[phase.ordinal()].add( bytes );
+                stats.calls[phase.ordinal()].increment();
+            }
+            event.end();
+            if ( event.shouldCommit() ) {
+                event.fase = phase.nome();
+                event.profundidade = depth;
+                event.vertices = vertices;
+                event.arestas = arestas;
+                event.bytesAlocados = bytes;
+                event.commit();
+            }
+        }
+    }
+
+    public long nanos( Phase phase ) {
+        return nanos[phase.ordinal()].sum();
+    }
+
+    public long allocatedBytes( Phase phase ) {
+        return bytes[phase.ordinal()].sum();
+    }
+
+    public long calls( Phase phase ) {
+        return calls[phase.ordinal()].sum();
+    }
+
+    /** A maior profundidade de nível alcançada, ou -1 se nenhum nível foi testado. */
+    public int maxDepth() {
+        return maxDepth.get();
+    }
+
+    public long pairsExamined() {
+        return pairs.sum();
+    }
+
+    /** O total de pedaços, somado em todos os níveis. */
+    public synchronized long pieces() {
+        long total = 0;
+        for ( long p : piecesAtDepth ) total += p;
+        return total;
+    }
+
+    /** O total de níveis testados. */
+    public synchronized long levels() {
+        long total = 0;
+        for ( long l : levelsAtDepth ) total += l;
+        return total;
+    }
+
+    /**
+     * Resumo em JSON, numa linha:
+     * {"fases":{"leitura":{"ms":..,"bytes":..,"vezes":..},...},
+     *  "profundidadeMaxima":..,"niveis":[..],"pedacos":[..],"pares":..}
+     */
+    public synchronized String toJson() {
+        StringBuilder sb = new StringBuilder( "{\"fases\":{" );
+        for ( Phase p : Phase.values() ) {
+            if ( p.ordinal() > 0 ) sb.append( ',' );
+            sb.append( String.format( Locale.ROOT, "\"%s\":{\"ms\":%.3f,\"bytes\":%d,\"vezes\":%d}",
+                                      p.nome(), nanos( p ) / 1e6, allocatedBytes( p ), calls( p ) ) );
+        }
+        int depths = maxDepth() + 1;
+        sb.append( "},\"profundidadeMaxima\":" ).append( maxDepth() );
+        sb.append( ",\"niveis\":" ).append( toJson( levelsAtDepth, depths ) );
+        sb.append( ",\"pedacos\":" ).append( toJson( piecesAtDepth, depths ) );
+        sb.append( ",\"pares\":" ).append( pairsExamined() ).append( '}' );
+        return sb.toString();
+    }
+
+    private static String toJson( long[] values, int length ) {
+        StringBuilder sb = new StringBuilder( "[" );
+        for ( int i = 0; i < length; i++ ) {
+            if ( i > 0 ) sb.append( ',' );
+            sb.append( values[i] );
+        }
+        return sb.append( ']' ).toString();
+    }
+
+    private static LongAdder[] adders() {
+        LongAdder[] a = new LongAdder[Phase.values().length];
+        for ( int i = 0; i < a.length; i++ ) a[i] = new LongAdder();
+        return a;
+    }
+
+    /* Bytes alocados pela thread atual até agora, ou 0 se a JVM não informa. */
+    private static long allocatedBytes() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if ( bean instanceof com.sun.management.ThreadMXBean ) {
+            com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean) bean;
+            if ( sun.isThreadAllocatedMemorySupported() && sun.isThreadAllocatedMemoryEnabled() ) return sun;
+        }
+        return null;
+    }
+
+    @Name( "planaridade.Fase" )
+    @Label( "Fase do teste de planaridade" )
+    @Category( "Planaridade" )
+    static final class PhaseEvent extends Event {
+        @Label( "Fase" )
+        String fase;
+
+        @Label( "Profundidade" )
+        @Description( "Profundidade do nível de Auslander-Parter, ou -1 fora dos níveis" )
+        int profundidade;
+
+        @Label( "Vértices" )
+        int vertices;
+
+        @Label( "Arestas" )
+        int arestas;
+
+        @Label( "Bytes alocados" )
+        @DataAmount
+        long bytesAlocados;
+    }
+
+    @Name( "planaridade.Nivel" )
+    @Label( "Nível de Auslander-Parter" )
+    @Category( "Planaridade" )
+    static final class LevelEvent extends Event {
+        @Label( "Profundidade" )
+        int profundidade;
+
+        @Label( "Pedaços" )
+        int pedacos;
+
+        @Label( "Pares examinados" )
+        @Description( "Pares de pedaços cujo entrelaçamento foi verificado" )
+        long pares;
+    }
+
+}
@@ -0,0 +1,65 @@
+/**
+ * Interface comum aos métodos de teste de planaridade.
+ *
+ * Cada implementação recebe um grafo qualquer e responde se ele é planar,
+ * permitindo que o Main escolha o método usado sem conhecer seus detalhes.
+ */
+public interface PlanarityTester {
+
+    /**
+     * Testa a planaridade do grafo fornecido.
+     *
+     * @param grafo     O grafo cuja planaridade será testada.
+     * @return          true se o grafo for planar, false caso contrário.
+     */
+    <T> boolean isPlanar( Grafo<T> grafo );
+
+    /**
+     * Testa a planaridade gastando no máximo o orçamento dado. A versão
+     * padrão só cobra as arestas do grafo antes do teste; os testadores que
+     * fazem buscas longas conferem o orçamento também durante elas.
+     *
+     * @param budget    O orçamento, ou null para nenhum limite.
+     * @throws PlanarityBudget.Exceeded se o orçamento acabar antes da resposta.
+     */
+    default <T> boolean isPlanar( Grafo<T> grafo, PlanarityBudget budget ) {
+        if ( budget != null ) budget.charge( grafo.numEdges() );
+        return isPlanar( grafo );
+    }
+
+    /**
+     * Como isPlanar( grafo, budget ), mas devolve uma resposta
+     * DESCONHECIDO, com o trabalho feito até ali, em vez de lançar a exceção.
+     * Sem orçamento (null) a resposta é sempre conhecida, com trabalho 0 e o
+     * tempo medido aqui.
+     */
+    default <T> PlanarityResult check( Grafo<T> grafo, PlanarityBudget budget ) {
+        long inicio = System.nanoTime();
+        try {
+            return PlanarityResult.of( isPlanar( grafo, budget ), budget, inicio );
+        } catch ( PlanarityBudget.Exceeded e ) {
+            return PlanarityResult.unknown( budget, inicio );
+        }
+    }
+
+    /**
+     * Retorna o testador correspondente ao nome fornecido.
+     *
+     * @param nome      "ap" para Auslander-Parter ou "lr" para left-right.
+     * @return          O testador escolhido, ou null se o nome não for conhecido.
+     */
+    static PlanarityTester forName( String nome ) {
+        return forName( nome, null );
+    }
+
+    /**
+     * Retorna o testador correspondente ao nome fornecido, registrando as
+     * fases do teste nas estatísticas dadas (que podem ser null).
+     */
+    static PlanarityTester forName( String nome, PlanarityStats stats ) {
+        if ( nome.equals( "ap" ) ) return new AuslanderParterTester( stats );
+        if ( nome.equals( "lr" ) ) return new LRPlanarityTester();
+        return null;
+    }
+
+}
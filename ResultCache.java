@@ -0,0 +1,202 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache de resultados de planaridade, indexado pela impressão digital
+ * canônica do grafo (GraphFingerprint).
+ *
+ * Guarda o veredito e, se houver, o certificado de Kuratowski em vértices
+ * canônicos, de modo que um grafo que reaparece renumerado recebe o
+ * certificado já com os seus próprios rótulos. O tamanho é limitado pelo
+ * número de entradas e pelo total de arestas guardadas; ao passar de um dos
+ * limites, as entradas usadas há mais tempo são descartadas (LRU).
+ *
+ * Pode ser usado por várias threads ao mesmo tempo.
+ */
+public class ResultCache {
+
+    private static final int MAGIC = 0x504c4e43;        // "PLNC"
+
+    private static final int VERSION = 1;
+
+    /** Um resultado guardado no cache. */
+    public static final class Result {
+
+        private final boolean planar;
+
+        /* Arestas canônicas do certificado, ou null */
+        private final long[] certificate;
+
+        Result( boolean planar, long[] certificate ) {
+            this.planar = planar;
+            this.certificate = certificate;
+        }
+
+        public boolean isPlanar() {
+            return planar;
+        }
+
+        public boolean hasCertificate() {
+            return certificate != null;
+        }
+
+        /** O certificado com os rótulos do grafo da impressão dada, ou null. */
+        public <T> Grafo<T> certificate( GraphFingerprint chave ) {
+            return certificate == null ? null : chave.<T>decode( certificate );
+        }
+
+        private long size() {
+            return certificate == null ? 0 : certificate.length;
+        }
+
+    }
+
+    private final int maxEntries;
+
+    private final long maxEdges;
+
+    private final LinkedHashMap<GraphFingerprint, Result> entries =
+        new LinkedHashMap<GraphFingerprint, Result>( 16, 0.75f, true );
+
+    private long edges = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param maxEntries    O número máximo de grafos guardados.
+     * @param maxEdges      O número máximo de arestas guardadas, somando chaves e certificados.
+     */
+    public ResultCache( int maxEntries, long maxEdges ) {
+        this.maxEntries = maxEntries;
+        this.maxEdges = maxEdges;
+    }
+
+    /**
+     * Procura o resultado de um grafo.
+     *
+     * @return      O resultado guardado, ou null se o grafo não estiver no cache.
+     */
+    public synchronized Result get( GraphFingerprint chave ) {
+        Result r = entries.get( chave );
+        if ( r == null ) misses.incrementAndGet();
+        else hits.incrementAndGet();
+        return r;
+    }
+
+    /**
+     * Guarda o resultado de um grafo.
+     *
+     * @param chave         A impressão digital do grafo.
+     * @param planar        O veredito.
+     * @param certificado   Um subgrafo de Kuratowski do grafo, ou null.
+     */
+    public <T> void put( GraphFingerprint chave, boolean planar, Grafo<T> certificado ) {
+        long[] canonical = certificado == null ? null : chave.encode( certificado );
+        put( chave, new Result( planar, canonical ) );
+    }
+
+    private synchronized void put( GraphFingerprint chave, Result r ) {
+        Result antigo = entries.put( chave, r );
+        if ( antigo != null ) edges -= chave.numEdges() + antigo.size();
+        edges += chave.numEdges() + r.size();
+
+        Iterator<Map.Entry<GraphFingerprint, Result>> it = entries.entrySet().iterator();
+        while ( ( entries.size() > maxEntries || edges > maxEdges ) && it.hasNext() ) {
+            Map.Entry<GraphFingerprint, Result> e = it.next();
+            edges -= e.getKey().numEdges() + e.getValue().size();
+            it.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Grava o cache num arquivo, da entrada menos usada para a mais usada.
+     * O arquivo é escrito ao lado e depois renomeado, para que uma gravação
+     * interrompida não estrague o cache anterior.
+     */
+    public synchronized void save( String arquivo ) throws IOException {
+        Path path = Paths.get( arquivo ).toAbsolutePath();
+        Path tmp = path.resolveSibling( path.getFileName() + ".tmp" );
+        try ( DataOutputStream out = new DataOutputStream( new BufferedOutputStream( Files.newOutputStream( tmp ) ) ) ) {
+            out.writeInt( MAGIC );
+            out.writeInt( VERSION );
+            out.writeInt( entries.size() );
+            for ( Map.Entry<GraphFingerprint, Result> e : entries.entrySet() ) {
+                GraphFingerprint chave = e.getKey();
+                Result r = e.getValue();
+                out.writeInt( chave.numVertices() );
+                out.writeLong( chave.hash() );
+                writeEdges( out, chave.edges() );
+                out.writeBoolean( r.planar );
+                writeEdges( out, r.certificate );
+            }
+        }
+        Files.move( tmp, path, StandardCopyOption.REPLACE_EXISTING );
+    }
+
+    /**
+     * Lê as entradas gravadas por save. Um arquivo inexistente é ignorado.
+     *
+     * @throws IOException  Se o arquivo existir mas não for um cache válido.
+     */
+    public void load( String arquivo ) throws IOException {
+        Path path = Paths.get( arquivo );
+        if ( !Files.exists( path ) ) return;
+        try ( DataInputStream in = new DataInputStream( new BufferedInputStream( Files.newInputStream( path ) ) ) ) {
+            if ( in.readInt() != MAGIC || in.readInt() != VERSION ) {
+                throw new IOException( arquivo + ": não é um arquivo de cache" );
+            }
+            int count = in.readInt();
+            for ( int i = 0; i < count; i++ ) {
+                int n = in.readInt();
+                long hash = in.readLong();
+                long[] chave = readEdges( in );
+                boolean planar = in.readBoolean();
+                long[] certificado = readEdges( in );
+                put( new GraphFingerprint( n, hash, chave, null ), new Result( planar, certificado ) );
+            }
+        }
+    }
+
+    private static void writeEdges( DataOutputStream out, long[] edges ) throws IOException {
+        if ( edges == null ) {
+            out.writeInt( -1 );
+            return;
+        }
+        out.writeInt( edges.length );
+        for ( long e : edges ) out.writeLong( e );
+    }
+
+    private static long[] readEdges( DataInputStream in ) throws IOException {
+        int length = in.readInt();
+        if ( length < 0 ) return null;
+        long[] edges = new long[length];
+        for ( int i = 0; i < length; i++ ) edges[i] = in.readLong();
+        return edges;
+    }
+
+}
@@ -1,8 +1,13 @@
-import java.io.BufferedInputStream;
-import java.io.FileInputStream;
-import java.util.HashSet;
-import java.util.Scanner;
-import java.util.Set;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Classe que comtem critérios de teste para dizer se um grafo é planar
@@ -10,153 +15,509 @@ import java.util.Set;
  */
 public class TestPlanarity {
 
+    /** Pedaços com menos arestas do que isso são testados na mesma tarefa, sem criar outra. */
+    private static final int PARALLEL_THRESHOLD = 2048;
+
+    /* Estatísticas da execução, ou null quando não são coletadas */
+    private final PlanarityStats stats;
+
+    /* Pool onde os pedaços grandes são testados em paralelo, ou null para testar tudo na thread atual */
+    private final ForkJoinPool pool;
+
+    public TestPlanarity() {
+        this( null );
+    }
+
     /**
-     * conjunto contendo a string de caracteres de tamanho quatro, 
-     * que indicam o não entrelaçamento do grafo.
+     * @param stats     Onde registrar o tempo e a alocação de cada fase, ou null.
      */
-    private static final Set<String> notInterlacedSet = makeNIS();
+    public TestPlanarity( PlanarityStats stats ) {
+        this( stats, ForkJoinPool.commonPool() );
+    }
 
-    /** Instanciação do conjunto de strings acima. */
-    private static Set<String> makeNIS() {
-        Set<String> set = new HashSet<String>();
-        String[] strings = {"xbyb", "bybx", "ybxb", "bxby"};
-        for (String s : strings) set.add(s);
-        return set;
+    /**
+     * @param stats     Onde registrar o tempo e a alocação de cada fase, ou null.
+     * @param pool      Pool para testar os pedaços em paralelo, ou null para um teste sequencial.
+     */
+    public TestPlanarity( PlanarityStats stats, ForkJoinPool pool ) {
+        this.stats = stats;
+        this.pool = pool;
     }
 
     /**
      * Função que constroi um grafo a partir das arestas fornecidas
      * no arquivo de entrada
-     * 
-     */
-    public Grafo<Integer> readGraphFromFile( String fileName ) {
-        Grafo<Integer> grafo = new Grafo<Integer>();
-        Scanner in = null;
-        try {
-            in = new Scanner( new BufferedInputStream( new FileInputStream( fileName )));
-            while ( in.hasNextInt() ) {
-                int a = in.nextInt();
-                int b = in.nextInt();
-                grafo.addEdge(a,b);
-            }
-        } catch ( Exception e ) {
-            System.err.println( "Erro ao ler o arquivo de entrada \'" + fileName + "\'." );
-            System.err.println( "Uso: java TestPlanarity Entrada\\<nome do arquivo>" );
-            System.exit(1);
-        }
+     *
+     * @throws GraphFormatException se o arquivo tiver conteúdo inválido,
+     *         com a linha e a posição do erro.
+     */
+    public Grafo<Integer> readGraphFromFile( String fileName ) throws IOException {
+        PlanarityStats.Span span = PlanarityStats.begin( stats, PlanarityStats.Phase.LEITURA, -1 );
+        Grafo<Integer> grafo = EdgeListLoader.load( fileName ).toGrafo();
+        if ( span != null ) span.end( grafo.numVertices(), grafo.numEdges() );
+        return grafo;
+    }
+
+    /**
+     * Função que lê as arestas do arquivo de entrada renumerando os vértices
+     * de 0 a n-1, o que permite rótulos arbitrários (textos ou números
+     * grandes). Os rótulos originais ficam em EdgeList.labels, para a saída.
+     *
+     */
+    public EdgeList readEdgesFromFile( String fileName ) throws IOException {
+        PlanarityStats.Span span = PlanarityStats.begin( stats, PlanarityStats.Phase.LEITURA, -1 );
+        EdgeList edges = EdgeListLoader.loadLabeled( fileName );
+        if ( span != null ) span.end( edges.labels().size(), edges.size() );
+        return edges;
+    }
+
+    /**
+     * Função que constroi um grafo em representação CSR a partir das
+     * arestas fornecidas no arquivo de entrada, sem criar um objeto
+     * por vértice ou aresta.
+     *
+     */
+    public GrafoCSR readCSRFromFile( String fileName ) throws IOException {
+        PlanarityStats.Span span = PlanarityStats.begin( stats, PlanarityStats.Phase.LEITURA, -1 );
+        GrafoCSR grafo = EdgeListLoader.load( fileName ).toCSR();
+        if ( span != null ) span.end( grafo.numVertices(), grafo.numEdges() );
         return grafo;
     }
 
+    /**
+     * Testa a planaridade de um grafo em representação CSR.
+     * Usa o teste left-right, que trabalha diretamente sobre os vetores
+     * de inteiros e não exige que o grafo seja biconexo.
+     *
+     * @param grafo     O grafo cuja planaridade será testada.
+     * @return          Se o grafo é planar ou não.
+     */
+    public boolean testPlanarity( IntGraph grafo ) {
+        PlanarityStats.Span span = PlanarityStats.begin( stats, PlanarityStats.Phase.LEFT_RIGHT, -1 );
+        boolean planar = new LRPlanarityTester().isPlanar( grafo );
+        if ( span != null ) span.end( grafo.numVertices(), grafo.numEdges() );
+        return planar;
+    }
+
+    /**
+     * Reduz o grafo (vértices de grau 0, 1 e 2, laços e arestas paralelas)
+     * sem mudar a sua planaridade.
+     *
+     * @param grafo     O grafo a ser reduzido.
+     * @return          O núcleo, com o mapeamento de volta para o grafo original.
+     */
+    public <T> GraphReducer.Reduction<T> reduce( Grafo<T> grafo ) {
+        PlanarityStats.Span span = PlanarityStats.begin( stats, PlanarityStats.Phase.REDUCAO, -1 );
+        GraphReducer.Reduction<T> reduction = GraphReducer.reduce( grafo );
+        if ( span != null ) span.end( reduction.kernel().numVertices(), reduction.kernel().numEdges() );
+        return reduction;
+    }
+
+    /**
+     * Aplica os filtros baratos de PlanarityPrefilter, que decidem muitos
+     * grafos sem o teste completo. O grafo não pode ter laços, como o
+     * núcleo devolvido por reduce.
+     *
+     * @return          A decisão do filtro que respondeu, ou null se nenhum respondeu.
+     */
+    public <T> PlanarityPrefilter.Decisao prefilter( GraphView<T> grafo ) {
+        PlanarityStats.Span span = PlanarityStats.begin( stats, PlanarityStats.Phase.FILTRO, -1 );
+        PlanarityPrefilter.Decisao decisao = PlanarityPrefilter.decide( grafo );
+        if ( span != null ) span.end( grafo.numVertices(), grafo.numEdges() );
+        return decisao;
+    }
+
+    /** Como prefilter( GraphView ), para um grafo em representação CSR. */
+    public PlanarityPrefilter.Decisao prefilter( IntGraph grafo ) {
+        PlanarityStats.Span span = PlanarityStats.begin( stats, PlanarityStats.Phase.FILTRO, -1 );
+        PlanarityPrefilter.Decisao decisao = PlanarityPrefilter.decide( grafo );
+        if ( span != null ) span.end( grafo.numVertices(), grafo.numEdges() );
+        return decisao;
+    }
+
+    /**
+     * Encontra um certificado de não planaridade: um subgrafo que é
+     * subdivisão de K5 ou K3,3. O certificado pode ser conferido com
+     * KuratowskiChecker.check.
+     *
+     * A busca é feita no grafo reduzido, e o subgrafo encontrado é expandido
+     * de volta para os vértices e arestas do grafo original.
+     *
+     * @param grafo     O grafo a ser examinado.
+     * @return          O subgrafo de Kuratowski, ou null se o grafo for planar.
+     */
+    public <T> Grafo<T> findKuratowskiSubgraph( Grafo<T> grafo ) {
+        return findKuratowskiSubgraph( grafo, null );
+    }
+
+    /**
+     * Como findKuratowskiSubgraph( grafo ), com a redução e os testes da
+     * extração cobrados do orçamento.
+     *
+     * @param budget    O orçamento, ou null para nenhum limite.
+     * @throws PlanarityBudget.Exceeded se o orçamento acabar antes do fim.
+     */
+    public <T> Grafo<T> findKuratowskiSubgraph( Grafo<T> grafo, PlanarityBudget budget ) {
+        if ( budget != null ) budget.charge( grafo.numEdges() );
+        GraphReducer.Reduction<T> reduction = reduce( grafo );
+        Grafo<T> witness = KuratowskiExtractor.extract( reduction.kernel(), budget );
+        return witness == null ? null : reduction.expand( witness );
+    }
+
     /**
      * Testa a planaridade de um grafo biconexo. 
      *
+     * Cada pedaço que não é um caminho gera um subproblema (o pedaço junto
+     * com o ciclo). Os subproblemas são independentes: o grafo é planar se
+     * todos os níveis forem planares, em qualquer ordem. Os de pedaços
+     * grandes viram tarefas do ForkJoinPool; os demais ficam numa pilha
+     * explícita da tarefa que os gerou, então a profundidade da pilha de
+     * chamadas não depende do tamanho do grafo. Quando um subproblema não é
+     * planar, as tarefas irmãs ainda não iniciadas são canceladas e as que
+     * estão rodando param no próximo subproblema.
+     *
+     * Só o primeiro nível divide o grafo inteiro em pedaços. Nos seguintes,
+     * os pedaços são obtidos do próprio pedaço do subproblema e do trecho
+     * de ciclo que ele substitui (veja testPiece), e as posições no ciclo
+     * vêm das do nível anterior (CycleOrder), sem percorrer o ciclo.
+     *
      * @param graph     O grafo cuja planaridade será testada.
      * @param cycle     O ciclo do grafo fornecido.
      * @return          Se o grafo é planar ou não.
      */
-    @SuppressWarnings("unchecked")
     public <T> boolean testPlanarity( Grafo<T> grafo, Grafo<T> cycle ) {
-        if ( grafo.numEdges() > 3 * grafo.numVertices() - 6 ) {
-            return false;
+        return testPlanarity( grafo, cycle, null );
+    }
+
+    /**
+     * Como testPlanarity( grafo, cycle ), cobrando do orçamento as buscas de
+     * cada subproblema e os pares de pedaços comparados. Quando ele acaba,
+     * cada tarefa cancela as filhas ainda não iniciadas, e as que estão
+     * rodando param na próxima conferência.
+     *
+     * @param budget    O orçamento, ou null para nenhum limite.
+     * @throws PlanarityBudget.Exceeded se o orçamento acabar antes da resposta.
+     */
+    public <T> boolean testPlanarity( Grafo<T> grafo, Grafo<T> cycle, PlanarityBudget budget ) {
+        PieceTask<T> root = new PieceTask<T>( grafo, cycle, null, null, 0, new AtomicBoolean( false ), budget );
+        // Já dentro do pool (por exemplo, num bloco de BlockPlanarityTester) a
+        // tarefa roda na thread atual e os pedaços são distribuídos a partir dela.
+        if ( pool == null || ForkJoinTask.inForkJoinPool() ) return root.invoke();
+        return PlanarityBudget.invoke( pool, root, budget );
+    }
+
+    /**
+     * Tarefa que testa um subproblema e os subproblemas gerados por ele.
+     * Os pedaços pequenos ficam na pilha da própria tarefa; os grandes
+     * viram tarefas filhas.
+     */
+    private final class PieceTask<T> extends RecursiveTask<Boolean> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final GraphView<T> grafo;    // para a tarefa raiz: o grafo inteiro
+        private final GraphView<T> cycle;
+        private final CycleOrder<T> order;   // null na tarefa raiz
+        private final Grafo<T> piece;        // null na tarefa raiz
+        private final int depth;
+
+        /* Marcado quando algum subproblema não é planar; as demais tarefas param ao vê-lo. */
+        private final AtomicBoolean naoPlanar;
+
+        private final PlanarityBudget budget;   // null para nenhum limite
+
+        // Subproblemas (ciclo, ordem do ciclo, pedaço) ainda não testados, com a profundidade do nível que os gerou.
+        private final Deque<GraphView<T>> cycles = new ArrayDeque<GraphView<T>>();
+        private final Deque<CycleOrder<T>> orders = new ArrayDeque<CycleOrder<T>>();
+        private final Deque<Grafo<T>> pieces = new ArrayDeque<Grafo<T>>();
+        private final Deque<Integer> depths = new ArrayDeque<Integer>();
+
+        private final List<PieceTask<T>> forked = new ArrayList<PieceTask<T>>();
+
+        PieceTask( GraphView<T> grafo, GraphView<T> cycle, CycleOrder<T> order, Grafo<T> piece, int depth,
+                   AtomicBoolean naoPlanar, PlanarityBudget budget ) {
+            this.grafo = grafo;
+            this.cycle = cycle;
+            this.order = order;
+            this.piece = piece;
+            this.depth = depth;
+            this.naoPlanar = naoPlanar;
+            this.budget = budget;
+        }
+
+        /* Guarda um subproblema gerado num nível de profundidade depth. */
+        void add( GraphView<T> c, CycleOrder<T> o, Grafo<T> p, int depth ) {
+            if ( pool != null && p.numEdges() >= PARALLEL_THRESHOLD ) {
+                PieceTask<T> task = new PieceTask<T>( null, c, o, p, depth + 1, naoPlanar, budget );
+                forked.add( task );
+                task.fork();
+            } else {
+                cycles.push( c );
+                orders.push( o );
+                pieces.push( p );
+                depths.push( depth );
+            }
         }
-        Set<Grafo<T>> pieces = Grafo.splitIntoPieces( grafo, cycle );
-        for ( Grafo<T> piece : pieces ) {
-            if ( !Grafo.isPath( piece ) ) {    
 
-                // Need a starting vertex that is an attachment point between the piece and the cycle.
-                T start = null;
-                for ( T v : cycle.getVertices() ) {
-                    if ( piece.hasVertex( v ) ) {
-                        start = v;
+        @Override
+        protected Boolean compute() {
+            if ( naoPlanar.get() ) return false;
+            boolean planar;
+            try {
+                planar = piece == null ? testRoot( grafo, cycle, this )
+                                       : testPiece( cycle, order, piece, depth, this );
+                while ( planar && !cycles.isEmpty() ) {
+                    if ( naoPlanar.get() ) {
+                        planar = false;
                         break;
                     }
+                    planar = testPiece( cycles.pop(), orders.pop(), pieces.pop(), depths.pop() + 1, this );
                 }
-
-                // Construct the part of the new cycle that is coming from the old cycle.
-                Grafo<T> cycleSegment = new Grafo<T>( cycle );
-                T prev = start;
-
-                // Choose an arbitrary direction to traverse the cycle in.
-                T curr = cycle.getNeighbors( prev ).iterator().next();
-
-                // Remove all the edges between the starting attachment point and the
-                // next found attachment point from the cycleSegment graph.
-                cycleSegment.removeEdge( prev, curr );
-                while ( !piece.hasVertex( curr ) ) {
-                    for ( T v : cycle.getNeighbors( curr ) ) {
-                        if ( !v.equals( prev ) ) {
-                            prev = curr;
-                            curr = v;
-                            break;
-                        }
-                    }
-                    cycleSegment.removeEdge( prev, curr );
+                for ( int i = 0; planar && i < forked.size(); i++ ) {
+                    planar = forked.get( i ).join();
                 }
-                T end = curr;       // end is the next attachment point found.
+            } catch ( PlanarityBudget.Exceeded e ) {
+                for ( PieceTask<T> task : forked ) task.cancel( false );
+                throw e;
+            }
+            if ( !planar ) {
+                naoPlanar.set( true );
+                for ( PieceTask<T> task : forked ) task.cancel( false );
+            }
+            return planar;
+        }
+    }
 
-                // Find a path through the piece connecting the attachment points, but
-                // make sure that it doesn't go through a different attachment point.
-                GraphTraverser<T> traverser = new GraphTraverser<T>( piece );
-                Grafo<T> piecePath = traverser.findPath( start, end, cycle.getVertices() );
+    /**
+     * Testa o primeiro nível: divide o grafo inteiro em pedaços em relação
+     * ao ciclo e numera o ciclo.
+     */
+    private <T> boolean testRoot( GraphView<T> grafo, GraphView<T> cycle, PieceTask<T> task ) {
+        if ( grafo.numEdges() > 3 * grafo.numVertices() - 6 ) {
+            return false;
+        }
+        PlanarityStats.Span span = PlanarityStats.begin( stats, PlanarityStats.Phase.PEDACOS, 0 );
+        List<Grafo<T>> pieces = new ArrayList<Grafo<T>>( new GraphTraverser<T>( grafo, task.budget ).splitIntoPieces( cycle ) );
+        if ( task.budget != null ) task.budget.charge( cycle.numVertices() );
+        CycleOrder<T> order = CycleOrder.of( cycle );
+        if ( span != null ) span.end( grafo.numVertices(), grafo.numEdges() );
+        return testLevel( grafo, cycle, order, pieces, 0, task );
+    }
 
-                // Construct the new graph and the new cycle accordingly.
-                Grafo<T> pp = Grafo.addGraphs( cycle, piece );
-                Grafo<T> cp = Grafo.addGraphs( cycleSegment, piecePath );
+    /**
+     * Monta o subproblema formado por um pedaço e o ciclo: o novo grafo é a
+     * união dos dois, e o novo ciclo troca um trecho do ciclo antigo por um
+     * caminho através do pedaço.
+     *
+     * Os dois são visões (GraphView) sobre o ciclo e o pedaço, em vez de
+     * cópias: o único grafo alocado é o trecho removido do ciclo.
+     *
+     * O resto do ciclo antigo continua inteiro no novo ciclo, então os
+     * pedaços do novo nível são o trecho removido (um caminho ligado a start
+     * e end) e as partes do pedaço fora do caminho. Só o pedaço é percorrido.
+     */
+    private <T> boolean testPiece( GraphView<T> cycle, CycleOrder<T> order, Grafo<T> piece, int depth, PieceTask<T> task ) {
+        PlanarityStats.Span span = PlanarityStats.begin( stats, PlanarityStats.Phase.SUBPROBLEMA, depth );
 
-                // Recurse using them as parameters.
-                boolean planar = testPlanarity( pp, cp );
-                if ( !planar ) return false;
+        // Need a starting vertex that is an attachment point between the piece and the cycle.
+        // The piece is usually much smaller than the cycle, so look for it there.
+        T start = null;
+        for ( T v : piece.getVertices() ) {
+            if ( cycle.hasVertex( v ) ) {
+                start = v;
+                break;
             }
         }
 
-        // If all the piece/cycle combinations are planar, then test the interlacement.
-        Grafo<Integer> interlacement = new Grafo<Integer>();
-        Object[] pieceArray = pieces.toArray();
-
-        // For each pair of pieces, see if they're interlaced.
-        for ( int i = 0; i < pieceArray.length; i++ ) {
-            Grafo<T> x = (Grafo<T>) pieceArray[i];
-            for ( int j = i + 1; j < pieceArray.length; j++ ) {
-                Grafo<T> y = (Grafo<T>) pieceArray[j];
-
-                char lastChar = ' ';    // Store the last character added to make things easier.
-                String symList = "";    // The list of symbols representing the interlacement of the pieces.
-                int bCount = 0;         // The number of 'b' symbols.  Again, to make things easy.
-
-                // Walk around the cycle and construct the symbol list.
-                GraphTraverser<T> traverser = new GraphTraverser<T>( cycle );
-                for ( int k = 0; k < cycle.numVertices(); k++ ) {
-                    T v = traverser.walkCycle();
-                    // If a node is in both pieces, then add a 'b'.
-                    if ( x.hasVertex( v ) && y.hasVertex( v ) ) {
-                        bCount++;
-                        symList += 'b';
-                        lastChar = 'b';
-                    // Else add if it's only in one piece and it's not the last symbol added.
-                    } else if ( x.hasVertex( v ) && lastChar != 'x' ) {
-                        symList += 'x';
-                        lastChar = 'x';
-                    } else if ( y.hasVertex( v ) && lastChar != 'y' ) {
-                        symList += 'y';
-                        lastChar = 'y';
-                    }
-                }
-                // Check for wrap-around adjacency of x's or y's.
-                if ( (lastChar == 'x' || lastChar == 'y') && symList.charAt(0) == lastChar ) {
-                    symList = symList.substring(1);
-                }
-                boolean interlaced = false;
-                if ( symList.length() > 4 || bCount > 2 ) {
-                    interlaced = true;
-                } else if ( symList.length() == 4 && !notInterlacedSet.contains( symList ) ) {
-                    interlaced = true;
+        // Construct the part of the new cycle that is coming from the old cycle:
+        // the old cycle minus the arc up to the next attachment point.
+        Grafo<T> arc = new Grafo<T>();
+        T prev = start;
+
+        // Choose an arbitrary direction to traverse the cycle in.
+        T curr = cycle.getNeighbors( prev ).iterator().next();
+        T second = curr;
+        int arcLength = 1;
+
+        // Remove all the edges between the starting attachment point and the
+        // next found attachment point from the cycleSegment graph.
+        arc.addEdge( prev, curr );
+        while ( !piece.hasVertex( curr ) ) {
+            for ( T v : cycle.getNeighbors( curr ) ) {
+                if ( !v.equals( prev ) ) {
+                    prev = curr;
+                    curr = v;
+                    break;
                 }
-                if ( interlaced ) {
-                    interlacement.addEdge( i, j );
+            }
+            arc.addEdge( prev, curr );
+            arcLength++;
+        }
+        T end = curr;       // end is the next attachment point found.
+        if ( task.budget != null ) task.budget.charge( arcLength );
+        GraphView<T> cycleSegment = GraphView.withoutEdges( cycle, arc );
+
+        // Find a path through the piece connecting the attachment points, but
+        // make sure that it doesn't go through a different attachment point.
+        GraphTraverser<T> traverser = new GraphTraverser<T>( piece, task.budget );
+        Grafo<T> piecePath = traverser.findPath( start, end, cycle.getVertices() );
+
+        // Construct the new graph and the new cycle accordingly.
+        GraphView<T> pp = GraphView.union( cycle, piece );
+        GraphView<T> cp = GraphView.union( cycleSegment, piecePath );
+        if ( span != null ) span.end( pp.numVertices(), pp.numEdges() );
+        if ( pp.numEdges() > 3 * pp.numVertices() - 6 ) {
+            return false;
+        }
+
+        // The pieces of the new level: the parts of this piece off the path,
+        // found from its vertices on the new cycle, plus the removed arc.
+        span = PlanarityStats.begin( stats, PlanarityStats.Phase.PEDACOS, depth );
+        List<T> contacts = new ArrayList<T>();
+        for ( T v : piece.getVertices() ) {
+            if ( cp.hasVertex( v ) ) contacts.add( v );
+        }
+        List<Grafo<T>> pieces = new ArrayList<Grafo<T>>( traverser.splitIntoPieces( cp, contacts ) );
+        pieces.add( arc );
+        CycleOrder<T> next = order.splice( start, second, end, arcLength, piecePath, cp );
+        if ( span != null ) span.end( piece.numVertices(), piece.numEdges() );
+
+        // Test them as the next level.
+        return testLevel( pp, cp, next, pieces, depth, task );
+    }
+
+    /**
+     * Testa um nível já dividido em pedaços: entrega à tarefa os pedaços que
+     * não são caminhos, para serem testados depois, e verifica o
+     * entrelaçamento dos pedaços deste nível.
+     */
+    private <T> boolean testLevel( GraphView<T> grafo, GraphView<T> cycle, CycleOrder<T> order, List<Grafo<T>> pieces,
+                                   int depth, PieceTask<T> task ) {
+        for ( Grafo<T> piece : pieces ) {
+            if ( !Grafo.isPath( piece ) ) task.add( cycle, order, piece, depth );
+        }
+
+        PlanarityStats.Span span = PlanarityStats.begin( stats, PlanarityStats.Phase.ENTRELACAMENTO, depth );
+        long pairs = 0;
+        boolean bipartite = true;
+
+        // The attachment points of each piece, as sorted positions on the cycle.
+        int[][] attachments = new int[pieces.size()][];
+        for ( int i = 0; i < attachments.length; i++ ) {
+            attachments[i] = attachmentPositions( pieces.get( i ), order );
+        }
+
+        // For each pair of pieces, see if they're interlaced. The interlacement graph
+        // must be bipartite; a union-find with parities detects the first odd cycle
+        // as soon as its closing edge is found.
+        int[] parent = new int[attachments.length];
+        int[] parity = new int[attachments.length];
+        for ( int i = 0; i < parent.length; i++ ) parent[i] = i;
+        PlanarityBudget budget = task.budget;
+        search:
+        for ( int i = 0; i < attachments.length; i++ ) {
+            for ( int j = i + 1; j < attachments.length; j++ ) {
+                if ( ++pairs % PlanarityBudget.CHUNK == 0 && budget != null ) budget.charge( PlanarityBudget.CHUNK );
+                if ( interlaced( attachments[i], attachments[j] ) && !addOddEdge( parent, parity, i, j ) ) {
+                    bipartite = false;
+                    break search;
                 }
             }
         }
-        return Grafo.eBipartido( interlacement );
+        if ( span != null ) span.end( grafo.numVertices(), grafo.numEdges() );
+        PlanarityStats.level( stats, depth, pieces.size(), pairs );
+        return bipartite;
+    }
+
+    /**
+     * As posições no ciclo dos vértices de contato de um pedaço, em ordem crescente.
+     */
+    private static <T> int[] attachmentPositions( Grafo<T> piece, CycleOrder<T> order ) {
+        int[] result = new int[piece.numVertices()];
+        int count = 0;
+        for ( T v : piece.getVertices() ) {
+            int k = order.position( v );
+            if ( k >= 0 ) result[count++] = k;
+        }
+        result = Arrays.copyOf( result, count );
+        Arrays.sort( result );
+        return result;
+    }
+
+    /**
+     * Verifica se dois pedaços estão entrelaçados, dadas as posições
+     * ordenadas dos seus vértices de contato no ciclo.
+     *
+     * Os contatos de x dividem o ciclo em arcos fechados entre contatos
+     * consecutivos. Os pedaços não estão entrelaçados exatamente quando
+     * todos os contatos de y cabem num mesmo arco de x.
+     */
+    static boolean interlaced( int[] x, int[] y ) {
+        // The arc of x that contains the contacts of y that are not contacts of x.
+        int arc = -1;
+        for ( int p : y ) {
+            int k = Arrays.binarySearch( x, p );
+            if ( k >= 0 ) continue;
+            int ins = -k - 1;
+            int a = ins == 0 ? x.length - 1 : ins - 1;
+            if ( arc == -1 ) {
+                arc = a;
+            } else if ( arc != a ) {
+                return true;
+            }
+        }
+
+        // Every contact of y is shared with x: at most two, and consecutive in x.
+        if ( arc == -1 ) {
+            if ( y.length >= 3 ) return true;
+            if ( y.length <= 1 ) return false;
+            int i = Arrays.binarySearch( x, y[0] );
+            int j = Arrays.binarySearch( x, y[1] );
+            return !( j == i + 1 || ( i == 0 && j == x.length - 1 ) );
+        }
+
+        // The shared contacts must be the ends of that arc.
+        int next = ( arc + 1 ) % x.length;
+        for ( int p : y ) {
+            int k = Arrays.binarySearch( x, p );
+            if ( k >= 0 && k != arc && k != next ) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adiciona a aresta (i, j) ao grafo de entrelaçamento, exigindo que i e j
+     * tenham cores diferentes.
+     *
+     * @return      false se a aresta fecha um ciclo ímpar.
+     */
+    private static boolean addOddEdge( int[] parent, int[] parity, int i, int j ) {
+        int ri = find( parent, parity, i );
+        int rj = find( parent, parity, j );
+        if ( ri == rj ) return parity[i] != parity[j];
+        parent[ri] = rj;
+        parity[ri] = parity[i] ^ parity[j] ^ 1;
+        return true;
+    }
+
+    /* Encontra a raiz de i, comprimindo o caminho; parity[i] passa a ser a paridade de i em relação à raiz. */
+    private static int find( int[] parent, int[] parity, int i ) {
+        int root = i;
+        int p = 0;
+        while ( parent[root] != root ) {
+            p ^= parity[root];
+            root = parent[root];
+        }
+        // Second pass: point every node on the path straight at the root.
+        while ( parent[i] != root ) {
+            int next = parent[i];
+            int pi = parity[i];
+            parent[i] = root;
+            parity[i] = p;
+            p ^= pi;
+            i = next;
+        }
+        return root;
     }
 
 } // TestPlanarity
@@ -0,0 +1,127 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Marcas de visita e cores reaproveitadas por todos os percursos de
+ * GraphTraverser feitos numa mesma thread.
+ *
+ * Cada vértice ocupa uma posição num vetor: o próprio valor, para vértices
+ * Integer não negativos (como os ids densos de EdgeListLoader.loadLabeled),
+ * ou um número dado por um mapa para os demais. Uma marca só vale se o seu
+ * carimbo for a época atual, então begin apaga todas as marcas em O(1),
+ * sem percorrer os vetores, e consultar uma marca é uma leitura de vetor.
+ *
+ * Os vetores crescem até o maior vértice visto pela thread e não encolhem.
+ * Um percurso não pode começar outro na mesma thread antes de terminar;
+ * os métodos de GraphTraverser que usam a área não se chamam entre si.
+ */
+final class TraversalWorkspace {
+
+    private static final ThreadLocal<TraversalWorkspace> LOCAL = ThreadLocal.withInitial( TraversalWorkspace::new );
+
+    /** Vértices Integer a partir deste valor usam o mapa, para limitar o tamanho dos vetores. */
+    private static final int DIRECT_LIMIT = 1 << 24;
+
+    /* Vértices Integer não negativos: carimbo e cor por valor */
+    private int[] stamp = new int[256];
+    private byte[] color = new byte[256];
+
+    /* Demais vértices: posição dada pelo mapa, limpo a cada begin */
+    private final Map<Object, Integer> ids = new HashMap<Object, Integer>();
+    private int[] otherStamp = new int[16];
+    private byte[] otherColor = new byte[16];
+
+    private int epoch;
+
+    private TraversalWorkspace() { }
+
+    /** A área da thread atual. */
+    static TraversalWorkspace get() {
+        return LOCAL.get();
+    }
+
+    /** Começa um percurso: nenhum vértice fica marcado. */
+    void begin() {
+        if ( ++epoch == Integer.MAX_VALUE ) {
+            Arrays.fill( stamp, 0 );
+            Arrays.fill( otherStamp, 0 );
+            epoch = 1;
+        }
+        if ( !ids.isEmpty() ) ids.clear();
+    }
+
+    /**
+     * Marca o vértice.
+     *
+     * @return      false se ele já estava marcado neste percurso.
+     */
+    boolean mark( Object v ) {
+        int i = direct( v );
+        if ( i >= 0 ) {
+            if ( stamp[i] == epoch ) return false;
+            stamp[i] = epoch;
+            return true;
+        }
+        i = other( v );
+        if ( otherStamp[i] == epoch ) return false;
+        otherStamp[i] = epoch;
+        return true;
+    }
+
+    boolean isMarked( Object v ) {
+        int i = direct( v );
+        if ( i >= 0 ) return stamp[i] == epoch;
+        Integer id = ids.get( v );
+        return id != null && otherStamp[id] == epoch;
+    }
+
+    /** A cor do vértice, ou -1 se ele não foi marcado neste percurso. */
+    int color( Object v ) {
+        int i = direct( v );
+        if ( i >= 0 ) return stamp[i] == epoch ? color[i] : -1;
+        Integer id = ids.get( v );
+        return id != null && otherStamp[id] == epoch ? otherColor[id] : -1;
+    }
+
+    /** Marca o vértice com a cor dada. */
+    void setColor( Object v, int c ) {
+        int i = direct( v );
+        if ( i >= 0 ) {
+            stamp[i] = epoch;
+            color[i] = (byte) c;
+        } else {
+            i = other( v );
+            otherStamp[i] = epoch;
+            otherColor[i] = (byte) c;
+        }
+    }
+
+    /* A posição de um Integer pequeno e não negativo, com os vetores já do tamanho certo, ou -1. */
+    private int direct( Object v ) {
+        if ( !( v instanceof Integer ) ) return -1;
+        int i = (Integer) v;
+        if ( i < 0 || i >= DIRECT_LIMIT ) return -1;
+        if ( i >= stamp.length ) {
+            int size = Math.min( DIRECT_LIMIT, Math.max( i + 1, 2 * stamp.length ) );
+            stamp = Arrays.copyOf( stamp, size );
+            color = Arrays.copyOf( color, size );
+        }
+        return i;
+    }
+
+    /* A posição de um vértice no mapa, criando-a se preciso. */
+    private int other( Object v ) {
+        Integer id = ids.get( v );
+        if ( id == null ) {
+            id = ids.size();
+            ids.put( v, id );
+            if ( id == otherStamp.length ) {
+                otherStamp = Arrays.copyOf( otherStamp, 2 * id );
+                otherColor = Arrays.copyOf( otherColor, 2 * id );
+            }
+        }
+        return id;
+    }
+
+}
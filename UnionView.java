@@ -0,0 +1,146 @@
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Visão da união de dois grafos, sem copiá-los. Veja GraphView.union.
+ */
+final class UnionView<T> implements GraphView<T> {
+
+    private final GraphView<T> a;
+
+    private final GraphView<T> b;
+
+    final int depth;
+
+    /* Contagens calculadas na primeira consulta; -1 enquanto não calculadas */
+    private int numVertices = -1;
+
+    private int numEdges = -1;
+
+    UnionView( GraphView<T> a, GraphView<T> b, int depth ) {
+        this.a = a;
+        this.b = b;
+        this.depth = depth;
+    }
+
+    public Set<T> getVertices() {
+        return new UnionSet<T>( a.getVertices(), b.getVertices() );
+    }
+
+    public Set<T> getNeighbors( T v ) {
+        Set<T> na = a.getNeighbors( v );
+        Set<T> nb = b.getNeighbors( v );
+        if ( na == null ) return nb;
+        if ( nb == null ) return na;
+        return new UnionSet<T>( na, nb );
+    }
+
+    public int getDegree( T v ) {
+        Set<T> na = a.getNeighbors( v );
+        Set<T> nb = b.getNeighbors( v );
+        if ( na == null ) return nb == null ? -1 : nb.size();
+        if ( nb == null ) return na.size();
+        int degree = na.size();
+        for ( T u : nb ) {
+            if ( !na.contains( u ) ) degree++;
+        }
+        return degree;
+    }
+
+    public boolean hasVertex( T v ) {
+        return a.hasVertex( v ) || b.hasVertex( v );
+    }
+
+    public boolean hasEdge( T v1, T v2 ) {
+        return a.hasEdge( v1, v2 ) || b.hasEdge( v1, v2 );
+    }
+
+    public int numVertices() {
+        if ( numVertices < 0 ) {
+            int count = a.numVertices();
+            for ( T v : b.getVertices() ) {
+                if ( !a.hasVertex( v ) ) count++;
+            }
+            numVertices = count;
+        }
+        return numVertices;
+    }
+
+    public int numEdges() {
+        if ( numEdges < 0 ) {
+            int shared = 0;
+            for ( T v : b.getVertices() ) {
+                if ( !a.hasVertex( v ) ) continue;
+                for ( T u : b.getNeighbors( v ) ) {
+                    if ( a.hasEdge( v, u ) ) shared++;
+                }
+            }
+            numEdges = a.numEdges() + b.numEdges() - shared / 2;
+        }
+        return numEdges;
+    }
+
+    /** União de dois conjuntos: os elementos de first e depois os de second que não estão em first. */
+    static final class UnionSet<T> extends AbstractSet<T> {
+
+        private final Set<T> first;
+
+        private final Set<T> second;
+
+        private int size = -1;
+
+        UnionSet( Set<T> first, Set<T> second ) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public boolean contains( Object o ) {
+            return first.contains( o ) || second.contains( o );
+        }
+
+        @Override
+        public int size() {
+            if ( size < 0 ) {
+                int count = first.size();
+                for ( T x : second ) {
+                    if ( !first.contains( x ) ) count++;
+                }
+                size = count;
+            }
+            return size;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<T>() {
+                private final Iterator<T> i1 = first.iterator();
+                private final Iterator<T> i2 = second.iterator();
+                private T next = advance();
+
+                private T advance() {
+                    if ( i1.hasNext() ) return i1.next();
+                    while ( i2.hasNext() ) {
+                        T x = i2.next();
+                        if ( !first.contains( x ) ) return x;
+                    }
+                    return null;
+                }
+
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                public T next() {
+                    if ( next == null ) throw new NoSuchElementException();
+                    T x = next;
+                    next = advance();
+                    return x;
+                }
+            };
+        }
+    }
+
+}
@@ -0,0 +1,212 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Numeração densa de rótulos de vértices: cada rótulo distinto recebe um
+ * inteiro de 0 a n-1, na ordem em que aparece, e os algoritmos trabalham
+ * só com esses inteiros. Os rótulos voltam a ser usados apenas na saída.
+ *
+ * Os rótulos são guardados sem um objeto por vértice. Enquanto todos são
+ * números, ficam num vetor de long; quando aparece o primeiro rótulo que
+ * não é número, todos passam a ser guardados como bytes concatenados num
+ * único vetor. A busca é uma tabela de espalhamento com endereçamento
+ * aberto (sondagem linear) que guarda apenas os ids atribuídos e parte do
+ * espalhamento de cada rótulo, então cada vértice custa cerca de 20 bytes
+ * mais o tamanho do seu rótulo.
+ *
+ * Dois rótulos são o mesmo vértice se e só se têm o mesmo texto. Por isso
+ * só textos na forma canônica de um número ("7", "-12", mas não "007" nem
+ * "+7") devem ser passados para intern(long); os demais vão para
+ * intern(byte[], int, int). Veja isCanonicalNumber.
+ *
+ * Não é seguro para uso por várias threads ao mesmo tempo.
+ */
+public class VertexInterner {
+
+    /** Posição vazia da tabela. */
+    private static final long EMPTY = 0;
+
+    /** Dígitos de um long que cabem sem estouro, qualquer que seja o valor. */
+    private static final int MAX_DIGITS = 18;
+
+    /* Espalhamento do rótulo nos 32 bits altos e id + 1 nos baixos, para que
+       as posições de outros rótulos sejam puladas sem consultar os rótulos;
+       o tamanho é uma potência de 2 */
+    private long[] table;
+
+    private int size;
+
+    /* Rótulo de cada id enquanto todos os rótulos são números */
+    private long[] numbers;
+
+    /* Rótulo de cada id depois que apareceu um rótulo não numérico:
+       bytes[starts[id]..starts[id+1]) */
+    private byte[] bytes;
+    private int[] starts;
+    private int used;
+
+    public VertexInterner() {
+        this( 16 );
+    }
+
+    /**
+     * @param expected  Número esperado de vértices, para evitar realocações.
+     */
+    public VertexInterner( int expected ) {
+        int capacity = Integer.highestOneBit( Math.max( 16, expected + expected / 3 ) - 1 ) << 1;
+        table = new long[capacity];
+        numbers = new long[Math.max( 16, expected )];
+    }
+
+    /** O número de rótulos distintos vistos até agora. */
+    public int size() {
+        return size;
+    }
+
+    /** Se todos os rótulos vistos até agora são números. */
+    public boolean isNumeric() {
+        return numbers != null;
+    }
+
+    /**
+     * Função que retorna o id do rótulo numérico, atribuindo o próximo id
+     * livre se o rótulo ainda não foi visto.
+     */
+    public int intern( long label ) {
+        if ( numbers == null ) {
+            byte[] text = Long.toString( label ).getBytes( StandardCharsets.US_ASCII );
+            return intern( text, 0, text.length );
+        }
+        int h = mix( label );
+        int mask = table.length - 1;
+        for ( int i = h & mask; ; i = ( i + 1 ) & mask ) {
+            long slot = table[i];
+            if ( slot == EMPTY ) {
+                if ( size == numbers.length ) numbers = Arrays.copyOf( numbers, grow( size ) );
+                numbers[size] = label;
+                table[i] = slot( h, size );
+                return added();
+            }
+            if ( (int) ( slot >>> 32 ) == h && numbers[id( slot )] == label ) return id( slot );
+        }
+    }
+
+    /**
+     * Função que retorna o id do rótulo formado pelos bytes buf[off..off+len),
+     * atribuindo o próximo id livre se o rótulo ainda não foi visto. Os bytes
+     * são copiados; buf pode ser reaproveitado pelo chamador.
+     */
+    public int intern( byte[] buf, int off, int len ) {
+        if ( numbers != null ) toText();
+        int h = hash( buf, off, len );
+        int mask = table.length - 1;
+        for ( int i = h & mask; ; i = ( i + 1 ) & mask ) {
+            long slot = table[i];
+            if ( slot == EMPTY ) {
+                append( size, buf, off, len );
+                table[i] = slot( h, size );
+                return added();
+            }
+            if ( (int) ( slot >>> 32 ) != h ) continue;
+            int id = id( slot );
+            int start = starts[id];
+            if ( starts[id + 1] - start == len
+                    && Arrays.equals( bytes, start, start + len, buf, off, off + len ) ) return id;
+        }
+    }
+
+    /** O rótulo do id, como texto. */
+    public String label( int id ) {
+        if ( id < 0 || id >= size ) throw new IndexOutOfBoundsException( "id " + id + " fora de 0.." + ( size - 1 ) );
+        if ( numbers != null ) return Long.toString( numbers[id] );
+        return new String( bytes, starts[id], starts[id + 1] - starts[id], StandardCharsets.UTF_8 );
+    }
+
+    /**
+     * Se buf[off..off+len) é um número na forma canônica que cabe num long:
+     * um '-' opcional e dígitos, sem zeros à esquerda e sem "-0".
+     */
+    public static boolean isCanonicalNumber( byte[] buf, int off, int len ) {
+        int i = off, end = off + len;
+        if ( i < end && buf[i] == '-' ) i++;
+        int digits = end - i;
+        if ( digits == 0 || digits > MAX_DIGITS ) return false;
+        if ( buf[i] == '0' && ( digits > 1 || i > off ) ) return false;
+        for ( ; i < end; i++ ) {
+            if ( buf[i] < '0' || buf[i] > '9' ) return false;
+        }
+        return true;
+    }
+
+    /* Conta o id recém atribuído e aumenta a tabela se ela passou de 3/4 cheia. */
+    private int added() {
+        int id = size++;
+        if ( 4L * size > 3L * table.length ) rehash( 2 * table.length );
+        return id;
+    }
+
+    private void rehash( int capacity ) {
+        long[] old = table;
+        table = new long[capacity];
+        int mask = capacity - 1;
+        for ( long slot : old ) {
+            if ( slot == EMPTY ) continue;
+            int id = id( slot );
+            int h = numbers != null ? mix( numbers[id] ) : hash( bytes, starts[id], starts[id + 1] - starts[id] );
+            int i = h & mask;
+            while ( table[i] != EMPTY ) i = ( i + 1 ) & mask;
+            table[i] = slot( h, id );
+        }
+    }
+
+    private static long slot( int hash, int id ) {
+        return (long) hash << 32 | ( id + 1L );
+    }
+
+    private static int id( long slot ) {
+        return (int) slot - 1;
+    }
+
+    /* Passa os rótulos numéricos já vistos para a forma de texto. */
+    private void toText() {
+        long[] old = numbers;
+        numbers = null;
+        bytes = new byte[Math.max( 64, 8 * size )];
+        starts = new int[Math.max( 16, size ) + 1];
+        used = 0;
+        for ( int id = 0; id < size; id++ ) {
+            byte[] text = Long.toString( old[id] ).getBytes( StandardCharsets.US_ASCII );
+            append( id, text, 0, text.length );
+        }
+        rehash( table.length );
+    }
+
+    /* Acrescenta os bytes do rótulo do id, que é o próximo a ser guardado. */
+    private void append( int id, byte[] buf, int off, int len ) {
+        if ( used + len > bytes.length ) bytes = Arrays.copyOf( bytes, Math.max( grow( bytes.length ), used + len ) );
+        if ( id + 2 > starts.length ) starts = Arrays.copyOf( starts, grow( starts.length ) );
+        System.arraycopy( buf, off, bytes, used, len );
+        starts[id] = used;
+        used += len;
+        starts[id + 1] = used;
+    }
+
+    private static int grow( int length ) {
+        int grown = length + ( length >> 1 ) + 16;
+        if ( grown < 0 || grown > Integer.MAX_VALUE - 8 ) throw new OutOfMemoryError( "rotulos demais" );
+        return grown;
+    }
+
+    private static int mix( long x ) {
+        x = ( x ^ ( x >>> 33 ) ) * 0xff51afd7ed558ccdL;
+        x = ( x ^ ( x >>> 33 ) ) * 0xc4ceb9fe1a85ec53L;
+        return (int) ( x ^ ( x >>> 33 ) );
+    }
+
+    private static int hash( byte[] buf, int off, int len ) {
+        long h = len;
+        for ( int i = off; i < off + len; i++ ) h = 31 * h + buf[i];
+        return mix( h );
+    }
+
+}
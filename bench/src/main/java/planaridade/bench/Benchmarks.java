@@ -0,0 +1,32 @@
+package planaridade.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Ponto de entrada do jar de benchmarks.
+ *
+ * Aceita as mesmas opções da linha de comando do JMH, mas por padrão grava
+ * os resultados em JSON no arquivo jmh-<versão>.json, para que execuções de
+ * versões diferentes possam ser comparadas. Use -rff para outro arquivo.
+ */
+public class Benchmarks {
+
+    public static void main( String[] args ) throws Exception {
+        CommandLineOptions linha = new CommandLineOptions( args );
+        ChainedOptionsBuilder opcoes = new OptionsBuilder().parent( linha );
+        if ( !linha.getResultFormat().hasValue() ) opcoes.resultFormat( ResultFormatType.JSON );
+        if ( !linha.getResult().hasValue() ) opcoes.result( "jmh-" + versao() + ".json" );
+        new Runner( opcoes.build() ).run();
+    }
+
+    /* A versão do projeto, lida do manifesto do jar. */
+    private static String versao() {
+        String v = Benchmarks.class.getPackage().getImplementationVersion();
+        return v != null ? v : "dev";
+    }
+
+}
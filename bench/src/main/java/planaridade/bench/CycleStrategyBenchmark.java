@@ -0,0 +1,92 @@
+package planaridade.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compara as escolhas de ciclo inicial (CycleStrategy) do método de
+ * Auslander-Parter.
+ *
+ * Além do tempo, cada teste informa como contadores secundários do JMH
+ * o total de pedaços, a profundidade máxima (mais um) e os pares de
+ * pedaços examinados, somados ao longo de cada iteração. Rode, por exemplo,
+ * java -jar bench/target/benchmarks.jar CycleStrategyBenchmark.
+ *
+ * Os tamanhos param em 20000 arestas: só o método de Auslander-Parter é
+ * medido aqui, e o seu tempo cresce mais que linearmente (cerca de 20 s
+ * por teste numa grade de 40000 arestas), multiplicado pelas 9 combinações
+ * de tipo e estratégia. Tamanhos maiores só com o left-right, em
+ * LargeGraphBenchmark.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( value = 1, jvmArgsAppend = { "-Xmx8g" } )
+public class CycleStrategyBenchmark {
+
+    private static final long SEMENTE = 20240601L;
+
+    @Param( { "triangulacao", "grade", "roda" } )
+    public String tipo;
+
+    @Param( { "1000", "10000", "20000" } )
+    public int arestas;
+
+    @Param( { "primeiro", "longo", "grau" } )
+    public String estrategia;
+
+    private Path arquivo;
+
+    private Object grafo;
+
+    @Setup( Level.Trial )
+    public void setup() throws Throwable {
+        arquivo = Files.createTempFile( "planaridade-" + tipo + "-" + arestas + "-", ".txt" );
+        Targets.generate( tipo, arestas, SEMENTE, arquivo.toString() );
+        grafo = Targets.readGraphFromFile( Targets.newTestPlanarity(), arquivo.toString() );
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() throws IOException {
+        Files.deleteIfExists( arquivo );
+    }
+
+    /** Contadores de uma operação, somados pelo JMH ao longo da iteração. */
+    @State( Scope.Thread )
+    @AuxCounters( AuxCounters.Type.EVENTS )
+    public static class Contadores {
+        public long pedacos;
+        public long profundidade;
+        public long pares;
+    }
+
+    @Benchmark
+    public boolean testPlanarityAP( Contadores contadores ) throws Throwable {
+        Object stats = Targets.newStats();
+        boolean planar = Targets.isPlanar( Targets.blockTester( stats, estrategia, 0 ), grafo );
+        contadores.pedacos += Targets.pieces( stats );
+        contadores.profundidade += Targets.maxDepth( stats ) + 1;
+        contadores.pares += Targets.pairsExamined( stats );
+        return planar;
+    }
+
+}
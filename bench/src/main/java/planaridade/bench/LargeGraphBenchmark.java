@@ -0,0 +1,78 @@
+package planaridade.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks do caminho de tempo linear (leitura para CSR e teste
+ * left-right) de 10^3 a 10^7 arestas, uma potência de 10 por vez.
+ *
+ * O método de Auslander-Parter fica de fora: o seu tempo cresce mais que
+ * linearmente (uma grade de 40000 arestas já leva cerca de 20 s por
+ * teste), então ele é medido só até 10^5 arestas, em PlanarityBenchmark.
+ * Com 10^7 arestas cada operação leva alguns segundos, por isso há menos
+ * iterações que nos outros benchmarks.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 2, time = 2 )
+@Measurement( iterations = 3, time = 2 )
+@Fork( value = 1, jvmArgsAppend = { "-Xmx8g" } )
+public class LargeGraphBenchmark {
+
+    private static final long SEMENTE = 20240601L;
+
+    @Param( { "triangulacao", "grade", "roda", "k5", "k33" } )
+    public String tipo;
+
+    @Param( { "1000", "10000", "100000", "1000000", "10000000" } )
+    public int arestas;
+
+    private Path arquivo;
+
+    private Object testPlanarity;
+
+    private Object csr;
+
+    @Setup( Level.Trial )
+    public void setup() throws Throwable {
+        arquivo = Files.createTempFile( "planaridade-" + tipo + "-" + arestas + "-", ".txt" );
+        Targets.generate( tipo, arestas, SEMENTE, arquivo.toString() );
+        testPlanarity = Targets.newTestPlanarity();
+        csr = Targets.readCSRFromFile( testPlanarity, arquivo.toString() );
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() throws IOException {
+        Files.deleteIfExists( arquivo );
+    }
+
+    @Benchmark
+    public Object readCSRFromFile() throws Throwable {
+        return Targets.readCSRFromFile( testPlanarity, arquivo.toString() );
+    }
+
+    /** Só o teste left-right, sobre o grafo já lido. */
+    @Benchmark
+    public boolean testPlanarityCSR() throws Throwable {
+        return Targets.testPlanarity( testPlanarity, csr );
+    }
+
+}
@@ -0,0 +1,110 @@
+package planaridade.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks das etapas do teste de planaridade sobre grafos gerados.
+ *
+ * Cada combinação de tipo e número de arestas gera um arquivo temporário
+ * com GraphGenerator (semente fixa, então as entradas são as mesmas em
+ * todas as versões). Os tamanhos vão só até 10^5 arestas porque o método
+ * de Auslander-Parter cresce mais que linearmente: com 10^5 arestas uma
+ * grade já leva mais de um minuto por teste. O caminho left-right sobre
+ * CSR é medido até 10^7 arestas em LargeGraphBenchmark.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( value = 1, jvmArgsAppend = { "-Xmx8g" } )
+public class PlanarityBenchmark {
+
+    private static final long SEMENTE = 20240601L;
+
+    @Param( { "triangulacao", "grade", "roda", "k5", "k33" } )
+    public String tipo;
+
+    @Param( { "1000", "10000", "100000" } )
+    public int arestas;
+
+    private Path arquivo;
+
+    private Object testPlanarity;
+
+    private Object grafo;
+
+    private Object ciclo;
+
+    private Object ap;
+
+    private Object lr;
+
+    @Setup( Level.Trial )
+    public void setup() throws Throwable {
+        arquivo = Files.createTempFile( "planaridade-" + tipo + "-" + arestas + "-", ".txt" );
+        Targets.generate( tipo, arestas, SEMENTE, arquivo.toString() );
+        testPlanarity = Targets.newTestPlanarity();
+        grafo = Targets.readGraphFromFile( testPlanarity, arquivo.toString() );
+        ciclo = Targets.findCycle( grafo );
+        ap = Targets.blockTester( "ap" );
+        lr = Targets.blockTester( "lr" );
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() throws IOException {
+        Files.deleteIfExists( arquivo );
+    }
+
+    @Benchmark
+    public Object readGraphFromFile() throws Throwable {
+        return Targets.readGraphFromFile( testPlanarity, arquivo.toString() );
+    }
+
+    @Benchmark
+    public Object findCycle() throws Throwable {
+        return Targets.findCycle( grafo );
+    }
+
+    @Benchmark
+    public Object splitIntoPieces() throws Throwable {
+        return Targets.splitIntoPieces( grafo, ciclo );
+    }
+
+    /** Leitura e teste pelo método de Auslander-Parter, como em java Main -m ap. */
+    @Benchmark
+    public boolean testPlanarityAP() throws Throwable {
+        return Targets.isPlanar( ap, Targets.readGraphFromFile( testPlanarity, arquivo.toString() ) );
+    }
+
+    /** Leitura e teste left-right sobre blocos de Grafo. */
+    @Benchmark
+    public boolean testPlanarityLR() throws Throwable {
+        return Targets.isPlanar( lr, Targets.readGraphFromFile( testPlanarity, arquivo.toString() ) );
+    }
+
+    /** Leitura e teste left-right sobre a representação CSR, como em java Main -m lr. */
+    @Benchmark
+    public boolean testPlanarityCSR() throws Throwable {
+        Object csr = Targets.readCSRFromFile( testPlanarity, arquivo.toString() );
+        return Targets.testPlanarity( testPlanarity, csr );
+    }
+
+}
@@ -0,0 +1,169 @@
+package planaridade.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Acesso às classes do projeto, que estão no pacote padrão.
+ *
+ * Java não permite importar classes do pacote padrão, e o JMH exige que os
+ * benchmarks estejam num pacote com nome. As operações medidas são então
+ * chamadas por MethodHandles guardados em campos static final, que o JIT
+ * trata como constantes: depois do aquecimento a chamada custa o mesmo que
+ * uma chamada direta.
+ */
+final class Targets {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+    private static final Class<?> GRAFO = load( "Grafo" );
+    private static final Class<?> GRAFO_CSR = load( "GrafoCSR" );
+    private static final Class<?> INT_GRAPH = load( "IntGraph" );
+    private static final Class<?> GRAPH_VIEW = load( "GraphView" );
+    private static final Class<?> TEST_PLANARITY = load( "TestPlanarity" );
+    private static final Class<?> GRAPH_TRAVERSER = load( "GraphTraverser" );
+    private static final Class<?> PLANARITY_TESTER = load( "PlanarityTester" );
+    private static final Class<?> PLANARITY_STATS = load( "PlanarityStats" );
+    private static final Class<?> CYCLE_STRATEGY = load( "CycleStrategy" );
+
+    private static final MethodHandle NEW_TEST_PLANARITY =
+        constructor( TEST_PLANARITY );
+    private static final MethodHandle READ_GRAPH =
+        virtual( TEST_PLANARITY, "readGraphFromFile", GRAFO, String.class );
+    private static final MethodHandle READ_CSR =
+        virtual( TEST_PLANARITY, "readCSRFromFile", GRAFO_CSR, String.class );
+    private static final MethodHandle TEST_CSR =
+        virtual( TEST_PLANARITY, "testPlanarity", boolean.class, INT_GRAPH );
+    private static final MethodHandle NEW_TRAVERSER =
+        constructor( GRAPH_TRAVERSER, GRAPH_VIEW );
+    private static final MethodHandle FIND_CYCLE =
+        virtual( GRAPH_TRAVERSER, "findCycle", GRAFO );
+    private static final MethodHandle SPLIT_INTO_PIECES =
+        statik( GRAFO, "splitIntoPieces", java.util.Set.class, GRAFO, GRAFO );
+    private static final MethodHandle FOR_NAME =
+        statik( PLANARITY_TESTER, "forName", PLANARITY_TESTER, String.class );
+    private static final MethodHandle NEW_BLOCK_TESTER =
+        constructor( load( "BlockPlanarityTester" ), PLANARITY_TESTER );
+    private static final MethodHandle IS_PLANAR =
+        virtual( PLANARITY_TESTER, "isPlanar", boolean.class, GRAFO );
+    private static final MethodHandle NEW_STATS =
+        constructor( PLANARITY_STATS );
+    private static final MethodHandle STRATEGY =
+        statik( CYCLE_STRATEGY, "forName", CYCLE_STRATEGY, String.class );
+    private static final MethodHandle NEW_AP_TESTER =
+        constructor( load( "AuslanderParterTester" ), PLANARITY_STATS, CYCLE_STRATEGY, long.class );
+    private static final MethodHandle PIECES =
+        virtual( PLANARITY_STATS, "pieces", long.class );
+    private static final MethodHandle MAX_DEPTH =
+        virtual( PLANARITY_STATS, "maxDepth", int.class );
+    private static final MethodHandle PAIRS =
+        virtual( PLANARITY_STATS, "pairsExamined", long.class );
+    private static final MethodHandle GENERATE =
+        statik( load( "GraphGenerator" ), "main", void.class, String[].class );
+
+    private Targets() { }
+
+    static Object newTestPlanarity() throws Throwable {
+        return NEW_TEST_PLANARITY.invokeExact();
+    }
+
+    static Object readGraphFromFile( Object testPlanarity, String arquivo ) throws Throwable {
+        return READ_GRAPH.invokeExact( testPlanarity, (Object) arquivo );
+    }
+
+    static Object readCSRFromFile( Object testPlanarity, String arquivo ) throws Throwable {
+        return READ_CSR.invokeExact( testPlanarity, (Object) arquivo );
+    }
+
+    static boolean testPlanarity( Object testPlanarity, Object csr ) throws Throwable {
+        return (boolean) TEST_CSR.invokeExact( testPlanarity, csr );
+    }
+
+    static Object findCycle( Object grafo ) throws Throwable {
+        Object traverser = NEW_TRAVERSER.invokeExact( grafo );
+        return FIND_CYCLE.invokeExact( traverser );
+    }
+
+    static Object splitIntoPieces( Object grafo, Object ciclo ) throws Throwable {
+        return SPLIT_INTO_PIECES.invokeExact( grafo, ciclo );
+    }
+
+    /** Testador que separa os blocos biconexos e aplica o método dado a cada um. */
+    static Object blockTester( String metodo ) throws Throwable {
+        return NEW_BLOCK_TESTER.invokeExact( FOR_NAME.invokeExact( (Object) metodo ) );
+    }
+
+    /**
+     * Testador de Auslander-Parter por blocos com a escolha de ciclo dada,
+     * que registra as fases em stats.
+     */
+    static Object blockTester( Object stats, String estrategia, long semente ) throws Throwable {
+        Object strategy = STRATEGY.invokeExact( (Object) estrategia );
+        if ( strategy == null ) throw new IllegalArgumentException( "estrategia desconhecida: " + estrategia );
+        return NEW_BLOCK_TESTER.invokeExact( NEW_AP_TESTER.invokeExact( stats, strategy, semente ) );
+    }
+
+    static Object newStats() throws Throwable {
+        return NEW_STATS.invokeExact();
+    }
+
+    static long pieces( Object stats ) throws Throwable {
+        return (long) PIECES.invokeExact( stats );
+    }
+
+    static int maxDepth( Object stats ) throws Throwable {
+        return (int) MAX_DEPTH.invokeExact( stats );
+    }
+
+    static long pairsExamined( Object stats ) throws Throwable {
+        return (long) PAIRS.invokeExact( stats );
+    }
+
+    static boolean isPlanar( Object tester, Object grafo ) throws Throwable {
+        return (boolean) IS_PLANAR.invokeExact( tester, grafo );
+    }
+
+    static void generate( String tipo, int arestas, long semente, String arquivo ) throws Throwable {
+        String[] args = { tipo, Integer.toString( arestas ), Long.toString( semente ), arquivo };
+        GENERATE.invokeExact( (Object) args );
+    }
+
+    private static Class<?> load( String nome ) {
+        try {
+            return Class.forName( nome );
+        } catch ( ClassNotFoundException e ) {
+            throw new IllegalStateException( "classe do projeto nao encontrada: " + nome, e );
+        }
+    }
+
+    /* Os handles são convertidos para tipos Object, que podem ser escritos aqui. */
+    private static MethodHandle erase( MethodHandle h ) {
+        return h.asType( h.type().erase() );
+    }
+
+    private static MethodHandle constructor( Class<?> c, Class<?>... params ) {
+        try {
+            return erase( LOOKUP.findConstructor( c, MethodType.methodType( void.class, params ) ) );
+        } catch ( ReflectiveOperationException e ) {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    private static MethodHandle virtual( Class<?> c, String nome, Class<?> ret, Class<?>... params ) {
+        try {
+            return erase( LOOKUP.findVirtual( c, nome, MethodType.methodType( ret, params ) ) );
+        } catch ( ReflectiveOperationException e ) {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    private static MethodHandle statik( Class<?> c, String nome, Class<?> ret, Class<?>... params ) {
+        try {
+            return erase( LOOKUP.findStatic( c, nome, MethodType.methodType( ret, params ) ) );
+        } catch ( ReflectiveOperationException e ) {
+            throw new IllegalStateException( e );
+        }
+    }
+
+}